@@ -54,7 +54,7 @@ import com.example.mydemo.fragment.ValueAnimatorFragment;
 import com.example.mydemo.fragment.ViewAnimationUtilsFragment;
 import com.example.mydemo.fragment.WebViewFragment;
 import com.example.mydemo.fragment.WeiboFragment;
-import com.orhanobut.logger.Logger;
+import com.example.mydemo.utils.AppLog;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -75,19 +75,9 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
         initDrawer();
         initView();
-        Logger.d("debug");
-        Logger.e("error");
-        Logger.w("warning");
-        Logger.v("verbose");
-        Logger.i("information");
-        Logger.wtf("What a Terrible Failure");
-        Logger.json("{\n" +
-                "\"employees\": [\n" +
-                "{ \"firstName\":\"Bill\" , \"lastName\":\"Gates\" },\n" +
-                "{ \"firstName\":\"George\" , \"lastName\":\"Bush\" },\n" +
-                "{ \"firstName\":\"Thomas\" , \"lastName\":\"Carter\" }\n" +
-                "]\n" +
-                "}");
+        if (AppLog.DEBUG) {
+            AppLog.d("MainActivity", "onCreate");
+        }
     }
 
 
@@ -2,11 +2,11 @@ package com.example.mydemo;
 
 import android.app.Application;
 import android.content.Context;
-import android.util.Log;
 
 import com.example.mydemo.bean.MyObjectBox;
-import com.orhanobut.logger.AndroidLogAdapter;
-import com.orhanobut.logger.Logger;
+import com.example.mydemo.rxjava.NetworkMetrics;
+import com.example.mydemo.utils.AppLog;
+import com.example.mydemo.utils.ConnectivityMonitor;
 
 import io.objectbox.BoxStore;
 import io.objectbox.android.AndroidObjectBrowser;
@@ -27,13 +27,16 @@ public class MyDemoApplication extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
-        Logger.addLogAdapter(new AndroidLogAdapter());
         context = getApplicationContext();
+        //尽早注册网络监听，请求时直接读取缓存的状态
+        ConnectivityMonitor.get(this);
+        //调试版统计网络请求各阶段耗时
+        NetworkMetrics.setEnabled(BuildConfig.DEBUG);
         mBoxStore = MyObjectBox.builder().androidContext(this).build();
         if (BuildConfig.DEBUG) {
             // 添加调试
             boolean start=  new AndroidObjectBrowser(mBoxStore).start(this);
-            Log.e("====start=======",start+"");
+            AppLog.d("====start=======", "%b", start);
         }
 
 
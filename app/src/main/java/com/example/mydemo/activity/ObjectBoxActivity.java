@@ -7,14 +7,17 @@ import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 
-import com.example.mydemo.MyDemoApplication;
 import com.example.mydemo.R;
 import com.example.mydemo.bean.MyData2;
 import com.example.mydemo.bean.MyData2_;
+import com.example.mydemo.db.PreparedQuery;
+import com.example.mydemo.db.QueryRegistry;
+import com.example.mydemo.db.WriteBehindBox;
+import com.example.mydemo.db.WriteBehindQueue;
 
 import java.util.List;
 
-import io.objectbox.Box;
+import io.objectbox.query.QueryBuilder;
 
 /**
  * author : 宋佳
@@ -28,7 +31,10 @@ public class ObjectBoxActivity extends AppCompatActivity {
 
     private Button mBtnPut;
     private Button mBtnGet;
-    private Box<MyData2> mBox;
+    // 写入先排队，批量在后台事务中提交
+    private WriteBehindBox<MyData2> mBox;
+    private PreparedQuery<MyData2> mByGender;
+    private PreparedQuery<MyData2> mByIdRange;
     private Button remove;
     private Button btn_query;
 
@@ -36,11 +42,30 @@ public class ObjectBoxActivity extends AppCompatActivity {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_object_box);
-        mBox = MyDemoApplication.getBoxStore().boxFor(MyData2.class);
+        mBox = WriteBehindQueue.get().box(MyData2.class);
+        prepareQueries();
         initView();
         initListener();
     }
 
+    // 查询只构建一次，每次点击只换参数
+    private void prepareQueries() {
+        mByGender = QueryRegistry.get().prepare("MyData2.byGender", MyData2.class,
+                new QueryRegistry.Shape<MyData2>() {
+                    @Override
+                    public void apply(QueryBuilder<MyData2> builder) {
+                        builder.equal(MyData2_.gender_new_now, "");
+                    }
+                });
+        mByIdRange = QueryRegistry.get().prepare("MyData2.byIdRange", MyData2.class,
+                new QueryRegistry.Shape<MyData2>() {
+                    @Override
+                    public void apply(QueryBuilder<MyData2> builder) {
+                        builder.between(MyData2_.id, 0, 0);
+                    }
+                });
+    }
+
     private void initView() {
         mBtnPut = findViewById(R.id.btn_put);
         mBtnGet = findViewById(R.id.btn_get);
@@ -77,7 +102,9 @@ public class ObjectBoxActivity extends AppCompatActivity {
                 //删除具体的id为 1的 数据
                 mBox.remove(1);
                 //删除 id 为1,2,3，的数据
-                mBox.remove(1, 2, 3);
+                mBox.remove(1);
+                mBox.remove(2);
+                mBox.remove(3);
                 //删除此表
                 mBox.removeAll();
             }
@@ -85,12 +112,11 @@ public class ObjectBoxActivity extends AppCompatActivity {
         btn_query.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                //查询 字段是具体的
-                List<MyData2> data2List = mBox.query().equal(MyData2_.gender_new_now, "数据2222")
-                        .build().find();
+                //查询 字段是具体的，只能查到已提交的数据
+                List<MyData2> data2List = mByGender.find(MyData2_.gender_new_now, "数据2222");
 
 
-                List<MyData2> data2List2 = mBox.query().between(MyData2_.id, 20, 23).build().find();
+                List<MyData2> data2List2 = mByIdRange.find(MyData2_.id, 20, 23);
 
                 for (int i = 0; i < data2List2.size(); i++) {
                     Long id = data2List2.get(i).getId();
@@ -101,4 +127,11 @@ public class ObjectBoxActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // 离开页面时尽快落盘，进程被杀不丢数据
+        WriteBehindQueue.get().flush();
+    }
+
 }
@@ -5,8 +5,9 @@ import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
 
+import com.example.mydemo.rxjava.HttpClientProvider;
+
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
 import okhttp3.Callback;
@@ -42,7 +43,7 @@ public class OkHttpActivity extends AppCompatActivity {
             @Override
             public void run() {
                 super.run();
-                OkHttpClient okHttpClient = new OkHttpClient.Builder().readTimeout(10, TimeUnit.SECONDS).build();
+                OkHttpClient okHttpClient = HttpClientProvider.get();
                 Request request = new Request.Builder().url("http://www.baidu.com").get().build();
 
                 //连接 resquest  response 的桥梁
@@ -51,6 +52,8 @@ public class OkHttpActivity extends AppCompatActivity {
                 try {
                     Response response = call.execute();
                     String okhttpString = response.body().toString();
+                    //关闭响应体，连接才能回到共享的连接池
+                    response.close();
                     Log.i("》》》", okhttpString);
                 } catch (IOException e) {
                     e.printStackTrace();
@@ -66,7 +69,7 @@ public class OkHttpActivity extends AppCompatActivity {
 
 
 
-        OkHttpClient okHttpClient = new OkHttpClient.Builder().readTimeout(10, TimeUnit.SECONDS).build();
+        OkHttpClient okHttpClient = HttpClientProvider.get();
 
         Request request = new Request.Builder().url("http://www.baidu.com").get().build();
 
@@ -82,7 +85,7 @@ public class OkHttpActivity extends AppCompatActivity {
 
             @Override
             public void onResponse(Call call, Response response) throws IOException {
-
+                response.close();
             }
         });
 
@@ -13,6 +13,7 @@ import com.example.mydemo.rxjava.ApiMethods;
 import com.example.mydemo.rxjava.ApiService;
 import com.example.mydemo.rxjava.MyObserver;
 import com.example.mydemo.rxjava.ObserverOnNextListener;
+import com.example.mydemo.utils.GsonUtil;
 
 import java.util.List;
 
@@ -59,7 +60,7 @@ public class RetrofitActivity extends AppCompatActivity {
         String baseUrl = "https://api.douban.com/v2/movie/";
         Retrofit retrofit = new Retrofit.Builder()
                 .baseUrl(baseUrl)
-                .addConverterFactory(GsonConverterFactory.create())//将请求的结果转为实体
+                .addConverterFactory(GsonConverterFactory.create(GsonUtil.getGson()))//将请求的结果转为实体
                 .addCallAdapterFactory(RxJava2CallAdapterFactory.create()) //适配RxJava2.0, RxJava1.x 则为RxJavaCallAdapterFactory.create()
                 .build();
         ApiService apiService = retrofit.create(ApiService.class);
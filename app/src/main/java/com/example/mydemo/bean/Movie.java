@@ -10,8 +10,9 @@ import java.util.List;
  */
 
 public class Movie {
-    private String title;
-    private List<Subjects> subjects;
+    //包内可见，供生成的MovieTypeAdapter赋值
+    String title;
+    List<Subjects> subjects;
 
 
     public String getTitle() {
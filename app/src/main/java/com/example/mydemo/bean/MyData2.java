@@ -2,6 +2,7 @@ package com.example.mydemo.bean;
 
 import io.objectbox.annotation.Entity;
 import io.objectbox.annotation.Id;
+import io.objectbox.annotation.Index;
 import io.objectbox.annotation.Uid;
 
 /**
@@ -22,6 +23,8 @@ public class MyData2 {
     private int userAge;
 
 
+    // 按此字段查询，加索引避免全表扫描
+    @Index
     @Uid(2428186107625747761L)
     private String gender_new_now;
     // 必须有
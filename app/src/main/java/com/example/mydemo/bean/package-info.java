@@ -0,0 +1,7 @@
+/**
+ * 数据类。每个类的Gson TypeAdapter在编译时生成，由BeanTypeAdapterFactory提供，不走反射。
+ */
+@GenerateTypeAdapters(factory = "BeanTypeAdapterFactory")
+package com.example.mydemo.bean;
+
+import com.example.gsonprocessor.GenerateTypeAdapters;
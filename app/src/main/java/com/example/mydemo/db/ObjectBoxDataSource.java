@@ -0,0 +1,245 @@
+package com.example.mydemo.db;
+
+import com.example.mydemo.superadapter.LazyDataSource;
+import com.example.mydemo.utils.AppLog;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.objectbox.Box;
+import io.objectbox.BoxStore;
+import io.objectbox.android.AndroidScheduler;
+import io.objectbox.query.Query;
+import io.objectbox.reactive.DataObserver;
+import io.objectbox.reactive.DataSubscription;
+import io.objectbox.reactive.DataTransformer;
+import io.objectbox.reactive.ErrorObserver;
+import io.objectbox.reactive.Scheduler;
+
+/**
+ * 按需加载的ObjectBox查询结果，直接交给SuperAdapter
+ * <pre>
+ *     adapter.setDataSource(new ObjectBoxDataSource&lt;&gt;(store, MyData2.class, box.query().build(), 50));
+ * </pre>
+ * Like ObjectBox's LazyList, only the ids of the results are held: 8 bytes a row. An entity is
+ * read by id when its row is bound and kept in a small LRU cache, so the entities in memory do
+ * not grow with the table. Items are null for rows removed before the list caught up.
+ * <p>
+ * While attached to an adapter the list follows the box: every change re-runs the query for its
+ * ids off the main thread, where the old and new ids are also diffed into removes, moves and
+ * inserts. The main thread only swaps the ids and notifies them. Only the cached rows, the ones on
+ * or near the screen, are notified as changed and read again. The diff needs temporary arrays of
+ * under 100 bytes a row, so above {@link #MAX_DIFF_ROWS} rows the whole list is notified as
+ * replaced instead.
+ */
+public class ObjectBoxDataSource<T> extends LazyDataSource<T> {
+    private static final String TAG = "ObjectBoxDataSource";
+    private static final long[] NO_IDS = new long[0];
+    /**
+     * Largest list diffed, about 10 MB of temporary arrays.
+     */
+    static final int MAX_DIFF_ROWS = 100000;
+
+    private final BoxStore mStore;
+    private final Class<T> mType;
+    private final Box<T> mBox;
+    private final Query<T> mQuery;
+    private final Scheduler mScheduler;
+    private final Map<Long, T> mCache;
+    private long[] mIds = NO_IDS;
+    private DataSubscription mSubscription;
+    // Updates of earlier subscriptions, or older than the last applied one, are dropped.
+    private int mGeneration;
+    private long mApplied;
+
+    /**
+     * @param query     Used from a background thread only, do not share it.
+     * @param cacheSize Entities kept in memory, about two screens of rows.
+     */
+    public ObjectBoxDataSource(BoxStore store, Class<T> type, Query<T> query, int cacheSize) {
+        this(store, type, query, cacheSize, AndroidScheduler.mainThread());
+    }
+
+    /**
+     * @param scheduler Delivers the ids, on the thread the list is used from.
+     */
+    ObjectBoxDataSource(BoxStore store, Class<T> type, Query<T> query, final int cacheSize, Scheduler scheduler) {
+        if (cacheSize <= 0)
+            throw new IllegalArgumentException("cacheSize must be positive.");
+        mStore = store;
+        mType = type;
+        mBox = store.boxFor(type);
+        mQuery = query;
+        mScheduler = scheduler;
+        mCache = new LinkedHashMap<Long, T>(cacheSize * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return mIds.length;
+    }
+
+    /**
+     * @return The entity, read from the box unless it is cached; null if it was just removed.
+     */
+    @Override
+    public T get(int index) {
+        long id = getId(index);
+        T entity = mCache.get(id);
+        if (entity == null) {
+            entity = mBox.get(id);
+            if (entity != null)
+                mCache.put(id, entity);
+        }
+        return entity;
+    }
+
+    /**
+     * The id at this position, e.g. for stable ids; does not read the entity.
+     */
+    public long getId(int index) {
+        if (index < 0 || index >= mIds.length)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mIds.length);
+        return mIds[index];
+    }
+
+    int getCachedCount() {
+        return mCache.size();
+    }
+
+    @Override
+    protected void onAttached() {
+        final int generation = ++mGeneration;
+        final long[] attachedIds = mIds;
+        mApplied = 0;
+        // Delivers the current ids first, then again after every change to the box.
+        mSubscription = mStore.subscribe(mType)
+                .transform(new DataTransformer<Class<T>, Update>() {
+                    private long[] mLast = attachedIds;
+                    private long mSequence;
+
+                    @Override
+                    public Update transform(Class<T> source) {
+                        // The initial run and the change runs may come from different threads. The
+                        // query runs under the lock too, so sequence numbers follow query order.
+                        synchronized (this) {
+                            long[] ids = mQuery.findIds();
+                            Update update = new Update(generation, ++mSequence, mLast, ids, diff(mLast, ids));
+                            mLast = ids;
+                            return update;
+                        }
+                    }
+                })
+                .on(mScheduler)
+                .onError(new ErrorObserver() {
+                    @Override
+                    public void onError(Throwable th) {
+                        AppLog.e(TAG, "Query failed", th);
+                    }
+                })
+                .observer(new DataObserver<Update>() {
+                    @Override
+                    public void onData(Update update) {
+                        if (isAttached() && update.mGeneration == mGeneration && update.mSequence > mApplied) {
+                            mApplied = update.mSequence;
+                            setIds(update);
+                        }
+                    }
+                });
+    }
+
+    @Override
+    protected void onDetached() {
+        if (mSubscription != null) {
+            mSubscription.cancel();
+            mSubscription = null;
+        }
+        mCache.clear();
+    }
+
+    /**
+     * Runs on ObjectBox's thread.
+     *
+     * @return null if the whole list is replaced.
+     */
+    private Diff diff(long[] old, long[] ids) {
+        if (!isDiffable(old, ids))
+            return null;
+        // Null is not expected from a query, ids are unique.
+        return diffKeys(old, ids);
+    }
+
+    private static boolean isDiffable(long[] old, long[] ids) {
+        return old.length > 0 && ids.length > 0 && old.length <= MAX_DIFF_ROWS && ids.length <= MAX_DIFF_ROWS;
+    }
+
+    private void setIds(Update update) {
+        long[] old = mIds;
+        long[] ids = update.mIds;
+        mIds = ids;
+        // DataObserver does not say which entities changed, so the cached ones are read again.
+        long[] cached = new long[mCache.size()];
+        int c = 0;
+        for (Long id : mCache.keySet()) {
+            cached[c++] = id;
+        }
+        Arrays.sort(cached);
+        mCache.clear();
+
+        boolean notified;
+        if (update.mOld != old) {
+            // An earlier update was dropped, diff from what the adapter has. Not expected.
+            notified = isDiffable(old, ids) && notifyKeyedDiff(old, ids);
+        } else if (update.mDiff != null) {
+            notifyDiff(update.mDiff);
+            notified = true;
+        } else {
+            notified = false;
+        }
+        if (!notified) {
+            if (old.length > 0)
+                notifyItemRangeRemoved(0, old.length);
+            if (ids.length > 0)
+                notifyItemRangeInserted(0, ids.length);
+            return;
+        }
+        if (cached.length == 0)
+            return;
+        for (int i = 0; i < ids.length; ) {
+            if (Arrays.binarySearch(cached, ids[i]) < 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < ids.length && Arrays.binarySearch(cached, ids[i]) >= 0) {
+                i++;
+            }
+            notifyItemRangeChanged(start, i - start);
+        }
+    }
+
+    /**
+     * New ids and the diff from the ids before them, computed off the main thread.
+     */
+    private static final class Update {
+        final int mGeneration;
+        final long mSequence;
+        final long[] mOld;
+        final long[] mIds;
+        final Diff mDiff;
+
+        Update(int generation, long sequence, long[] old, long[] ids, Diff diff) {
+            mGeneration = generation;
+            mSequence = sequence;
+            mOld = old;
+            mIds = ids;
+            mDiff = diff;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.mydemo.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.objectbox.Box;
+import io.objectbox.Property;
+import io.objectbox.query.Query;
+import io.objectbox.query.QueryBuilder;
+
+/**
+ * A query shape built once and run with new parameters, see {@link QueryRegistry}.
+ * <p>
+ * An ObjectBox {@link Query} must not be re-bound while another thread runs it, so each call
+ * borrows one from a small pool and returns it afterwards: concurrent readers never wait for
+ * each other, and after warm-up nothing is built. Bind every parameter of the shape on each
+ * call, a pooled query keeps whatever its last caller bound.
+ */
+public class PreparedQuery<T> {
+    private static final int MAX_IDLE = 4;
+
+    private final Class<T> mType;
+    private final Box<T> mBox;
+    private final QueryRegistry.Shape<T> mShape;
+    private final Queue<Query<T>> mIdle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mIdleCount = new AtomicInteger();
+
+    PreparedQuery(Class<T> type, Box<T> box, QueryRegistry.Shape<T> shape) {
+        mType = type;
+        mBox = box;
+        mShape = shape;
+    }
+
+    Class<T> getType() {
+        return mType;
+    }
+
+    public List<T> find(Parameters parameters) {
+        Query<T> query = acquire(parameters);
+        try {
+            return query.find();
+        } finally {
+            release(query);
+        }
+    }
+
+    public T findFirst(Parameters parameters) {
+        Query<T> query = acquire(parameters);
+        try {
+            return query.findFirst();
+        } finally {
+            release(query);
+        }
+    }
+
+    public long count(Parameters parameters) {
+        Query<T> query = acquire(parameters);
+        try {
+            return query.count();
+        } finally {
+            release(query);
+        }
+    }
+
+    public List<T> find(Property property, String value) {
+        return find(new Parameters().set(property, value));
+    }
+
+    public List<T> find(Property property, long value) {
+        return find(new Parameters().set(property, value));
+    }
+
+    public List<T> find(Property property, long from, long to) {
+        return find(new Parameters().set(property, from, to));
+    }
+
+    private Query<T> acquire(Parameters parameters) {
+        Query<T> query = mIdle.poll();
+        if (query != null) {
+            mIdleCount.decrementAndGet();
+        } else {
+            QueryBuilder<T> builder = mBox.query();
+            mShape.apply(builder);
+            query = builder.build();
+        }
+        try {
+            parameters.bind(query);
+        } catch (RuntimeException e) {
+            release(query);
+            throw e;
+        }
+        return query;
+    }
+
+    private void release(Query<T> query) {
+        if (mIdleCount.incrementAndGet() <= MAX_IDLE) {
+            mIdle.offer(query);
+        } else {
+            mIdleCount.decrementAndGet();
+            // Beyond MAX_IDLE the query is dropped, free its native part now instead of on finalization.
+            query.close();
+        }
+    }
+
+    /**
+     * 一次查询的参数
+     * <pre>
+     *     new Parameters().set(MyData2_.gender_new_now, "数据2222").set(MyData2_.id, 20, 23)
+     * </pre>
+     */
+    public static final class Parameters {
+        private final List<Binding> mBindings = new ArrayList<>(2);
+
+        public Parameters set(final Property property, final String value) {
+            mBindings.add(new Binding() {
+                @Override
+                void bind(Query<?> query) {
+                    query.setParameter(property, value);
+                }
+            });
+            return this;
+        }
+
+        public Parameters set(final Property property, final long value) {
+            mBindings.add(new Binding() {
+                @Override
+                void bind(Query<?> query) {
+                    query.setParameter(property, value);
+                }
+            });
+            return this;
+        }
+
+        public Parameters set(final Property property, final double value) {
+            mBindings.add(new Binding() {
+                @Override
+                void bind(Query<?> query) {
+                    query.setParameter(property, value);
+                }
+            });
+            return this;
+        }
+
+        public Parameters set(final Property property, final long from, final long to) {
+            mBindings.add(new Binding() {
+                @Override
+                void bind(Query<?> query) {
+                    query.setParameters(property, from, to);
+                }
+            });
+            return this;
+        }
+
+        public Parameters set(final Property property, final double from, final double to) {
+            mBindings.add(new Binding() {
+                @Override
+                void bind(Query<?> query) {
+                    query.setParameters(property, from, to);
+                }
+            });
+            return this;
+        }
+
+        void bind(Query<?> query) {
+            for (int i = 0; i < mBindings.size(); i++) {
+                mBindings.get(i).bind(query);
+            }
+        }
+    }
+
+    private abstract static class Binding {
+        abstract void bind(Query<?> query);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.mydemo.db;
+
+import com.example.mydemo.MyDemoApplication;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.objectbox.BoxStore;
+import io.objectbox.query.QueryBuilder;
+
+/**
+ * ObjectBox查询的注册表，每种查询只构建一次。
+ * <p>
+ * A query is registered under a name with its shape, the conditions with placeholder values.
+ * Callers then run it with their own values, bound through setParameter:
+ * <pre>
+ *     PreparedQuery&lt;MyData2&gt; byGender = QueryRegistry.get().prepare("MyData2.byGender", MyData2.class,
+ *             new QueryRegistry.Shape&lt;MyData2&gt;() {
+ *                 public void apply(QueryBuilder&lt;MyData2&gt; builder) {
+ *                     builder.equal(MyData2_.gender_new_now, "");
+ *                 }
+ *             });
+ *     List&lt;MyData2&gt; found = byGender.find(MyData2_.gender_new_now, "数据2222");
+ * </pre>
+ * Prepared queries are safe to run from any number of threads at once.
+ */
+public class QueryRegistry {
+    private static volatile QueryRegistry sDefault;
+
+    private final BoxStore mStore;
+    private final Map<String, PreparedQuery<?>> mQueries = new HashMap<>();
+
+    public interface Shape<T> {
+        /**
+         * Adds the conditions, with any values: they are replaced on every run.
+         */
+        void apply(QueryBuilder<T> builder);
+    }
+
+    public static QueryRegistry get() {
+        if (sDefault == null) {
+            synchronized (QueryRegistry.class) {
+                if (sDefault == null) {
+                    sDefault = new QueryRegistry(MyDemoApplication.getBoxStore());
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    public QueryRegistry(BoxStore store) {
+        mStore = store;
+    }
+
+    /**
+     * @return The query registered under this name, the shape is only used the first time.
+     * @throws IllegalArgumentException if the name is taken by a query of another entity.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> PreparedQuery<T> prepare(String name, Class<T> type, Shape<T> shape) {
+        PreparedQuery<?> query = mQueries.get(name);
+        if (query == null) {
+            query = new PreparedQuery<>(type, mStore.boxFor(type), shape);
+            mQueries.put(name, query);
+        } else if (query.getType() != type) {
+            throw new IllegalArgumentException(name + " is a query of " + query.getType().getSimpleName());
+        }
+        return (PreparedQuery<T>) query;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.mydemo.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.objectbox.Box;
+
+/**
+ * One box of a {@link WriteBehindQueue}.
+ * <p>
+ * Writes are queued and coalesced by id: a remove cancels a queued put of the same id and the
+ * other way round. New entities (id 0) get their id when the batch is written. {@link #get} and
+ * {@link #getAll} overlay the queued and in-flight writes on what is stored, so callers read
+ * their own writes. Queries on {@link #getBox()} only see committed data.
+ */
+public class WriteBehindBox<T> {
+    private final WriteBehindQueue mQueue;
+    private final Box<T> mBox;
+    // Guarded by mQueue.
+    private Batch<T> mPending = new Batch<>();
+    private Batch<T> mInFlight;
+    // Batches finished, so that getAll() notices one finishing while it reads the box.
+    private int mFinished;
+
+    WriteBehindBox(WriteBehindQueue queue, Box<T> box) {
+        mQueue = queue;
+        mBox = box;
+    }
+
+    public Box<T> getBox() {
+        return mBox;
+    }
+
+    public void put(T entity) {
+        synchronized (mQueue) {
+            long id = mBox.getId(entity);
+            if (id == 0) {
+                if (!mPending.addNew(entity)) {
+                    return;
+                }
+            } else {
+                mPending.mRemoves.remove(id);
+                mPending.mPuts.put(id, entity);
+            }
+        }
+        mQueue.onQueued();
+    }
+
+    public void remove(long id) {
+        synchronized (mQueue) {
+            mPending.mPuts.remove(id);
+            mPending.mRemoves.add(id);
+        }
+        mQueue.onQueued();
+    }
+
+    public void remove(T entity) {
+        long id = mBox.getId(entity);
+        if (id != 0) {
+            remove(id);
+            return;
+        }
+        synchronized (mQueue) {
+            mPending.removeNew(entity);
+        }
+    }
+
+    public void removeAll() {
+        synchronized (mQueue) {
+            mPending = new Batch<>();
+            mPending.mRemoveAll = true;
+        }
+        mQueue.onQueued();
+    }
+
+    /**
+     * @return The queued entity if there is one, else the stored one.
+     */
+    public T get(long id) {
+        synchronized (mQueue) {
+            for (Batch<T> batch : newestFirst()) {
+                T entity = batch.mPuts.get(id);
+                if (entity != null) {
+                    return entity;
+                }
+                if (batch.mRemoveAll || batch.mRemoves.contains(id)) {
+                    return null;
+                }
+            }
+        }
+        return mBox.get(id);
+    }
+
+    /**
+     * @return The stored entities with the queued writes applied, new ones last.
+     */
+    public List<T> getAll() {
+        int finished;
+        synchronized (mQueue) {
+            finished = mFinished;
+        }
+        List<T> stored = mBox.getAll();
+        Map<Long, T> puts = new LinkedHashMap<>();
+        Set<Long> removes = new HashSet<>();
+        List<T> added = new ArrayList<>();
+        boolean removeAll = false;
+        synchronized (mQueue) {
+            if (mFinished != finished) {
+                // A batch was committed and dropped from the overlay meanwhile, the read may
+                // predate it. Rare, so read again while no batch can finish.
+                stored = mBox.getAll();
+            }
+            // Oldest first, so that newer writes win.
+            List<Batch<T>> batches = newestFirst();
+            Collections.reverse(batches);
+            for (Batch<T> batch : batches) {
+                if (batch.mRemoveAll) {
+                    removeAll = true;
+                    puts.clear();
+                    added.clear();
+                }
+                for (Long id : batch.mRemoves) {
+                    puts.remove(id);
+                    removes.add(id);
+                }
+                for (Map.Entry<Long, T> put : batch.mPuts.entrySet()) {
+                    removes.remove(put.getKey());
+                    puts.put(put.getKey(), put.getValue());
+                }
+                // An in-flight entity may already have its id, and be in stored too.
+                for (T entity : batch.mNewEntities) {
+                    long id = mBox.getId(entity);
+                    if (id == 0) {
+                        added.add(entity);
+                    } else if (!removes.contains(id)) {
+                        puts.put(id, entity);
+                    }
+                }
+            }
+        }
+        List<T> all = new ArrayList<>(stored.size() + puts.size() + added.size());
+        if (!removeAll) {
+            for (T entity : stored) {
+                long id = mBox.getId(entity);
+                T put = puts.remove(id);
+                if (put != null) {
+                    all.add(put);
+                } else if (!removes.contains(id)) {
+                    all.add(entity);
+                }
+            }
+        }
+        all.addAll(puts.values());
+        all.addAll(added);
+        return all;
+    }
+
+    private List<Batch<T>> newestFirst() {
+        List<Batch<T>> batches = new ArrayList<>(2);
+        batches.add(mPending);
+        if (mInFlight != null) {
+            batches.add(mInFlight);
+        }
+        return batches;
+    }
+
+    /**
+     * Moves the queued writes in flight.
+     *
+     * @return false if nothing was queued.
+     */
+    boolean startBatch() {
+        if (mPending.isEmpty()) {
+            return false;
+        }
+        mInFlight = mPending;
+        mPending = new Batch<>();
+        return true;
+    }
+
+    /**
+     * Runs inside the batch transaction.
+     */
+    void writeBatch() {
+        Batch<T> batch = mInFlight;
+        if (batch.mRemoveAll) {
+            mBox.removeAll();
+        }
+        for (Long id : batch.mRemoves) {
+            mBox.remove(id);
+        }
+        List<T> puts = new ArrayList<>(batch.mPuts.size() + batch.mNewEntities.size());
+        puts.addAll(batch.mPuts.values());
+        puts.addAll(batch.mNewEntities);
+        mBox.put(puts);
+    }
+
+    void finishBatch() {
+        mInFlight = null;
+        mFinished++;
+    }
+
+    private static final class Batch<T> {
+        boolean mRemoveAll;
+        final Set<Long> mRemoves = new HashSet<>();
+        final Map<Long, T> mPuts = new LinkedHashMap<>();
+        // In the order they were put, so their ids are assigned in that order.
+        final List<T> mNewEntities = new ArrayList<>();
+        private final Map<T, Boolean> mNewSet = new IdentityHashMap<>();
+
+        boolean addNew(T entity) {
+            if (mNewSet.put(entity, Boolean.TRUE) != null) {
+                return false;
+            }
+            mNewEntities.add(entity);
+            return true;
+        }
+
+        void removeNew(T entity) {
+            if (mNewSet.remove(entity) != null) {
+                for (int i = 0; i < mNewEntities.size(); i++) {
+                    if (mNewEntities.get(i) == entity) {
+                        mNewEntities.remove(i);
+                        return;
+                    }
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return !mRemoveAll && mRemoves.isEmpty() && mPuts.isEmpty() && mNewEntities.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.mydemo.db;
+
+import com.example.mydemo.MyDemoApplication;
+import com.example.mydemo.utils.AppLog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.objectbox.BoxStore;
+import io.objectbox.TxCallback;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * ObjectBox的延迟批量写入。
+ * <p>
+ * Puts and removes are collected per box in memory and written together, in one
+ * {@link BoxStore#runInTxAsync} transaction per batch, once {@code maxBatch} operations are
+ * queued or {@code maxDelay} after the first one, whichever comes first. Only one batch is in
+ * flight at a time, so batches commit in order. Reads through {@link WriteBehindBox} see the
+ * queued writes before they are committed.
+ * <pre>
+ *     WriteBehindBox&lt;MyData2&gt; box = WriteBehindQueue.get().box(MyData2.class);
+ *     box.put(data); // Returns at once.
+ * </pre>
+ * Queued writes are lost if the process dies first: call {@link #flush()} when the page stops.
+ * The writes of a batch that fails are dropped; the failure is reported to the
+ * {@link OnBatchFailedListener} and thrown by {@link #flushAndWait}.
+ */
+public class WriteBehindQueue {
+    private static final String TAG = "WriteBehindQueue";
+    private static final int DEFAULT_MAX_BATCH = 256;
+    private static final long DEFAULT_MAX_DELAY_MS = 200;
+
+    private static volatile WriteBehindQueue sDefault;
+
+    private final BoxStore mStore;
+    private final int mMaxBatch;
+    private final long mMaxDelayMillis;
+    private final Scheduler mScheduler;
+    private final Map<Class<?>, WriteBehindBox<?>> mBoxes = new HashMap<>();
+    private final Runnable mFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    // Guarded by this.
+    private int mPendingOps;
+    private boolean mInFlight;
+    private boolean mFlushAgain;
+    private Disposable mTimer;
+    private int mBatches;
+    private int mFailures;
+    private Throwable mLastFailure;
+    private OnBatchFailedListener mOnBatchFailedListener;
+
+    public static WriteBehindQueue get() {
+        if (sDefault == null) {
+            synchronized (WriteBehindQueue.class) {
+                if (sDefault == null) {
+                    sDefault = new WriteBehindQueue(MyDemoApplication.getBoxStore(), DEFAULT_MAX_BATCH,
+                            DEFAULT_MAX_DELAY_MS, TimeUnit.MILLISECONDS, Schedulers.computation());
+                }
+            }
+        }
+        return sDefault;
+    }
+
+    /**
+     * @param scheduler Runs the delay timer, e.g. a TestScheduler.
+     */
+    public WriteBehindQueue(BoxStore store, int maxBatch, long maxDelay, TimeUnit unit, Scheduler scheduler) {
+        mStore = store;
+        mMaxBatch = maxBatch;
+        mMaxDelayMillis = unit.toMillis(maxDelay);
+        mScheduler = scheduler;
+    }
+
+    /**
+     * 批量写入失败的回调，在ObjectBox的事务线程调用
+     */
+    public interface OnBatchFailedListener {
+        void onBatchFailed(Throwable error);
+    }
+
+    public synchronized void setOnBatchFailedListener(OnBatchFailedListener listener) {
+        mOnBatchFailedListener = listener;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T> WriteBehindBox<T> box(Class<T> type) {
+        WriteBehindBox<T> box = (WriteBehindBox<T>) mBoxes.get(type);
+        if (box == null) {
+            box = new WriteBehindBox<>(this, mStore.boxFor(type));
+            mBoxes.put(type, box);
+        }
+        return box;
+    }
+
+    /**
+     * Start writing everything queued so far, without waiting for it.
+     */
+    public void flush() {
+        final List<WriteBehindBox<?>> boxes = new ArrayList<>();
+        synchronized (this) {
+            cancelTimer();
+            if (mInFlight) {
+                mFlushAgain = true;
+                return;
+            }
+            for (WriteBehindBox<?> box : mBoxes.values()) {
+                if (box.startBatch()) {
+                    boxes.add(box);
+                }
+            }
+            mPendingOps = 0;
+            if (boxes.isEmpty()) {
+                return;
+            }
+            mInFlight = true;
+        }
+        mStore.runInTxAsync(new Runnable() {
+            @Override
+            public void run() {
+                for (WriteBehindBox<?> box : boxes) {
+                    box.writeBatch();
+                }
+            }
+        }, new TxCallback<Void>() {
+            @Override
+            public void txFinished(Void result, Throwable error) {
+                if (error != null) {
+                    AppLog.e(TAG, "Batch failed, its writes are lost", error);
+                }
+                onBatchFinished(boxes, error);
+            }
+        });
+    }
+
+    /**
+     * Flush and wait until everything queued so far has been committed.
+     *
+     * @return false on timeout.
+     * @throws WriteFailedException If a batch failed while waiting, its writes are lost.
+     */
+    public boolean flushAndWait(long timeout, TimeUnit unit) throws InterruptedException {
+        int failures;
+        synchronized (this) {
+            failures = mFailures;
+        }
+        flush();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (mInFlight || mPendingOps > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+            if (mFailures != failures) {
+                throw new WriteFailedException(mLastFailure);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Batches written so far, committed or failed.
+     */
+    synchronized int getBatchCount() {
+        return mBatches;
+    }
+
+    /**
+     * Called by the boxes after queueing an operation.
+     */
+    void onQueued() {
+        boolean full;
+        synchronized (this) {
+            mPendingOps++;
+            full = mPendingOps >= mMaxBatch;
+            if (!full && mTimer == null && !mInFlight) {
+                mTimer = mScheduler.scheduleDirect(mFlushTask, mMaxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    private void onBatchFinished(List<WriteBehindBox<?>> boxes, Throwable error) {
+        if (error != null) {
+            // Before flushAndWait() is woken up.
+            OnBatchFailedListener listener;
+            synchronized (this) {
+                listener = mOnBatchFailedListener;
+            }
+            if (listener != null) {
+                listener.onBatchFailed(error);
+            }
+        }
+        boolean again;
+        synchronized (this) {
+            for (WriteBehindBox<?> box : boxes) {
+                box.finishBatch();
+            }
+            mBatches++;
+            if (error != null) {
+                mFailures++;
+                mLastFailure = error;
+            }
+            mInFlight = false;
+            again = mFlushAgain || mPendingOps >= mMaxBatch;
+            mFlushAgain = false;
+            if (!again && mPendingOps > 0 && mTimer == null) {
+                mTimer = mScheduler.scheduleDirect(mFlushTask, mMaxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            notifyAll();
+        }
+        if (again) {
+            flush();
+        }
+    }
+
+    private void cancelTimer() {
+        if (mTimer != null) {
+            mTimer.dispose();
+            mTimer = null;
+        }
+    }
+
+    /**
+     * 批量写入失败，这批写入已丢失
+     */
+    public static class WriteFailedException extends RuntimeException {
+        public WriteFailedException(Throwable cause) {
+            super("Write-behind batch failed, its writes are lost", cause);
+        }
+    }
+}
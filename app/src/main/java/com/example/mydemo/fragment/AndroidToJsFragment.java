@@ -17,6 +17,7 @@ import android.webkit.WebView;
 import android.webkit.WebViewClient;
 
 import com.example.mydemo.R;
+import com.example.mydemo.utils.AppLog;
 
 /**
  * author : 宋佳
@@ -114,7 +115,9 @@ public class AndroidToJsFragment extends Fragment {
                     @Override
                     public void onReceiveValue(String value) {
                         //此处为 js 返回的结果
-                        com.orhanobut.logger.Logger.d(value);
+                        if (AppLog.DEBUG) {
+                            AppLog.d("AndroidToJs", value);
+                        }
                     }
                 });
             }
@@ -11,14 +11,15 @@ import android.widget.TextView;
 
 import com.example.mydemo.R;
 import com.example.mydemo.bean.BankModel;
-import com.example.mydemo.bean.BankModelInfo;
-import com.example.mydemo.utils.GsonUtil;
+import com.example.mydemo.utils.AppLog;
+import com.example.mydemo.utils.BankInfoLoader;
 import com.example.mydemo.view.BankPickerView;
 import com.example.mydemo.view.BankPopupWindow;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
 
 /**
  * author : 宋佳
@@ -34,9 +35,10 @@ public class BankPickerFragment extends Fragment {
     int sampleLayoutRes;
     private BankPickerView mPickerView;
     private TextView mBankName1;
-    private ArrayList<BankModel> mData;
+    private List<BankModel> mData;
     private TextView mBankName2;
     private View view;
+    private Disposable mLoading;
 
     public static BankPickerFragment newInstance(@LayoutRes int sampleLayoutRes) {
         BankPickerFragment fragment = new BankPickerFragment();
@@ -55,8 +57,9 @@ public class BankPickerFragment extends Fragment {
         mPickerView = (BankPickerView) view.findViewById(R.id.bank_picker_view);
         mBankName1 = (TextView) view.findViewById(R.id.tv_bank_name);
         mBankName2 = (TextView) view.findViewById(R.id.tv_bank_name1);
+        //设置 第一个和最后一个的空白
+        mPickerView.setOffset(2);
         initData();
-        initPickerView();
         mPickerView.setOnBankSelectedListener(new BankPickerView.OnBankSelectedListener() {
             @Override
             public void onSelected(int selectedIndex, BankModel item) {
@@ -85,33 +88,37 @@ public class BankPickerFragment extends Fragment {
         view.findViewById(R.id.rl_bank_select).setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                if (mData == null) {
+                    return; //银行列表还在加载
+                }
                 popupWindow.show();
                 popupWindow.setData(mData);
             }
         });
     }
 
-    private void initPickerView() {
-        //设置 第一个和最后一个的空白
-        mPickerView.setOffset(2);
-        mPickerView.setData(mData);
-    }
-
     private void initData() {
-        try {
-            InputStream is = getActivity().getAssets().open("bankInfo.json");
-            int length = is.available();
-            byte[] bytes = new byte[length];
-            is.read(bytes);
-            String result = new String(bytes, "utf-8");
-
-            BankModelInfo bankModelInfo = GsonUtil.GsonToBean(result, BankModelInfo.class);
-            mData = bankModelInfo.getData();
-
+        //后台解析，之后直接读取内存缓存或快照
+        mLoading = BankInfoLoader.load(getActivity()).subscribe(new Consumer<List<BankModel>>() {
+            @Override
+            public void accept(List<BankModel> banks) throws Exception {
+                mData = banks;
+                mPickerView.setData(mData);
+            }
+        }, new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable e) throws Exception {
+                AppLog.e("BankPickerFragment", "Could not load the banks", e);
+            }
+        });
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    @Override
+    public void onDestroyView() {
+        if (mLoading != null) {
+            mLoading.dispose();
         }
+        super.onDestroyView();
     }
 
     @Override
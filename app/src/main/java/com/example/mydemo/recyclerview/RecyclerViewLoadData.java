@@ -3,11 +3,13 @@ package com.example.mydemo.recyclerview;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
-import android.util.Log;
 
+import com.example.mydemo.utils.AppLog;
 import com.example.mydemo.utils.RecyclerViewStateUtils;
 import com.example.mydemo.view.FooterView;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * author : 宋佳
  * time   : 2018/07/25
@@ -17,6 +19,9 @@ import com.example.mydemo.view.FooterView;
 
 public abstract class RecyclerViewLoadData extends RecyclerView.OnScrollListener {
 
+    private static final String TAG = "宋佳宾";
+    //onScrolled每帧都会回调，日志最多半秒一条
+    private static final AppLog.Sampler SCROLL_LOG = new AppLog.Sampler(500, TimeUnit.MILLISECONDS);
 
     private RecyclerView.LayoutManager layoutManager;
     private int lastVisibleItem;
@@ -38,13 +43,13 @@ public abstract class RecyclerViewLoadData extends RecyclerView.OnScrollListener
             //得到当前显示的第一个item的位置
             firstVisbleItem = ((LinearLayoutManager) layoutManager).findFirstVisibleItemPosition();
             //如果第一个可见的item为大于等于1则显示悬浮tab
-            Log.i("宋佳宾","firstVisbleItem--->"+firstVisbleItem);
+            if (AppLog.DEBUG && SCROLL_LOG.sample()) {
+                AppLog.d(TAG, "firstVisbleItem--->%d %s", firstVisbleItem, firstVisbleItem >= 1 ? "showTab" : "hideTab");
+            }
             if (firstVisbleItem >= 1) {
                 showTab();
-                Log.i("宋佳宾","showTab");
             } else {
                 hideTab();
-                Log.i("宋佳宾","hideTab");
             }
             getFirstVisiblePosition(firstVisbleItem);
         }
@@ -67,7 +72,9 @@ public abstract class RecyclerViewLoadData extends RecyclerView.OnScrollListener
             // 此处调用加载更多回调接口的回调方法
             int state = RecyclerViewStateUtils.getFooterViewState(recyclerView);
             if (state == FooterView.Loading || state == FooterView.TheEnd) {
-                Log.d("state not allow", "the state is Loading/The End, just wait..");
+                if (AppLog.DEBUG) {
+                    AppLog.d("state not allow", "the state is Loading/The End, just wait..");
+                }
                 return;
             }
             loadMoreData(recyclerView);
@@ -1,5 +1,7 @@
 package com.example.mydemo.rxjava;
 
+import com.example.mydemo.utils.GsonUtil;
+
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -30,11 +32,15 @@ public class Api {
 
     private Api() {
         Retrofit retrofit = new Retrofit.Builder()
+                .client(HttpClientProvider.get())//共享连接池和线程池
                 .baseUrl(Const.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())//将请求的结果转为实体
+                .addConverterFactory(NetworkMetrics.timing(GsonConverterFactory.create(GsonUtil.getGson())))//将请求的结果转为实体
+                .addCallAdapterFactory(NetworkMetrics.callAdapterFactory())
                 .addCallAdapterFactory(RxJava2CallAdapterFactory.create()) //适配RxJava2.0, RxJava1.x 则为RxJavaCallAdapterFactory.create()
                 .build();
-        apiService = retrofit.create(ApiService.class);
+        //失败重试、熔断，然后合并相同的并发请求
+        ApiService resilient = new Resilience().wrap(ApiService.class, retrofit.create(ApiService.class), null);
+        apiService = new RequestCoalescer().wrap(ApiService.class, resilient);
     }
 
 }
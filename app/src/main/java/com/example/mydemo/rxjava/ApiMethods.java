@@ -1,10 +1,23 @@
 package com.example.mydemo.rxjava;
 
+import android.arch.lifecycle.LifecycleOwner;
+
+import com.example.mydemo.MyDemoApplication;
 import com.example.mydemo.bean.Movie;
+import com.example.mydemo.bean.Subjects;
+import com.example.mydemo.utils.ConnectivityMonitor;
+
+import org.reactivestreams.Publisher;
 
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Observer;
-import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
 import io.reactivex.schedulers.Schedulers;
 
 /**
@@ -16,13 +29,50 @@ import io.reactivex.schedulers.Schedulers;
 
 public class ApiMethods {
 
+    private static final SubjectsStreamDecoder sStreamDecoder = new SubjectsStreamDecoder();
+
 
     public static void ApiSubscribe(Observable observable, Observer observer) {
+        ApiSubscribe(observable, observer, RequestScheduler.Priority.USER_BLOCKING);
+    }
+
+    /**
+     * @param priority 线程池有限，低优先级的请求让位于高优先级的请求
+     */
+    public static void ApiSubscribe(Observable observable, Observer observer, RequestScheduler.Priority priority) {
+        observeOnMainThread(observable, priority)
+                .subscribe(observer);
+    }
+
+    /**
+     * 绑定owner的生命周期，页面销毁时取消请求
+     */
+    public static void ApiSubscribe(Observable observable, Observer observer, LifecycleOwner owner,
+                                    RequestScheduler.Priority priority) {
+        observeOnMainThread(observable, priority)
+                .compose(RequestLifecycle.bindTo(owner))
+                .subscribe(observer);
+    }
+
+    private static Observable observeOnMainThread(Observable observable, RequestScheduler.Priority priority) {
         //上流
-        observable.
-                subscribeOn(Schedulers.io())//上流的线程
+        Observable upstream = observable.
+                subscribeOn(RequestScheduler.get(priority))//上流的线程，按优先级排队
+                .unsubscribeOn(Schedulers.io());//取消上流的线程
+        //下流的线程，启用NetworkMetrics时同时统计切换到主线程的耗时
+        return NetworkMetrics.observeOnMainThread(upstream);
+    }
+
+    /**
+     * 离线时先排队，网络恢复后再发出请求
+     */
+    public static void ApiSubscribeWhenConnected(Observable observable, Observer observer) {
+        //只占用一次线程：whenConnected()在请求的线程上订阅上流，等待网络本身不占线程
+        Observable upstream = observable
                 .unsubscribeOn(Schedulers.io())//取消上流的线程
-                .observeOn(AndroidSchedulers.mainThread())//下流的线程
+                .compose(ConnectivityMonitor.get(MyDemoApplication.getContextObject())
+                        .whenConnected(RequestScheduler.get(RequestScheduler.Priority.USER_BLOCKING)));
+        NetworkMetrics.observeOnMainThread(upstream)
                 .subscribe(observer);
     }
 
@@ -37,4 +87,80 @@ public class ApiMethods {
     }
 
 
+    /**
+     * 边下载边解析，下游请求多少就解析多少。
+     * <pre>
+     *     ApiMethods.getTopMovieStream(0, 250)
+     *             .observeOn(AndroidSchedulers.mainThread(), false, 20) // Parse at most 20 ahead.
+     *             .subscribe(subscriber);
+     * </pre>
+     */
+    public static Flowable<Subjects> getTopMovieStream(int start, int count) {
+        return streamOnRequestThread(sStreamDecoder.decode(Api.getApiService().getTopMovieStream(start, count)));
+    }
+
+
+    public static Flowable<Subjects> getTopMovieStreamReally(int start, int count) {
+        return streamOnRequestThread(sStreamDecoder.decode(ApiStrategy.getApiService().getTopMovieStream(start, count)));
+    }
+
+    // The call and every later read happen on the request threads, whichever thread requests.
+    private static Flowable<Subjects> streamOnRequestThread(Flowable<Subjects> stream) {
+        return stream.subscribeOn(RequestScheduler.get(RequestScheduler.Priority.USER_BLOCKING))
+                .unsubscribeOn(Schedulers.io());//取消上流的线程
+    }
+
+
+    /**
+     * 自动分页加载 top250。
+     * <p>
+     * Walks the pages of top250 and emits their subjects one by one. Page N+1 is requested as soon
+     * as page N has been handed downstream, so it loads while page N is being consumed; no page
+     * further ahead is requested until downstream asks for more items. Completes after the first
+     * page that is shorter than {@code pageSize}.
+     * <pre>
+     *     ApiMethods.getTopMoviePages(20)
+     *             .observeOn(AndroidSchedulers.mainThread(), false, 20) // Keep the look-ahead to one page.
+     *             .subscribe(subscriber);
+     * </pre>
+     *
+     * @param pageSize Subjects per request.
+     */
+    public static Flowable<Subjects> getTopMoviePages(int pageSize) {
+        return getPages(Api.getApiService(), pageSize);
+    }
+
+    public static Flowable<Subjects> getTopMoviePagesReally(int pageSize) {
+        return getPages(ApiStrategy.getApiService(), pageSize);
+    }
+
+    static Flowable<Subjects> getPages(final ApiService apiService, final int pageSize) {
+        return Flowable.range(0, Integer.MAX_VALUE)
+                // concatMap() subscribes to the next page once the current one has been delivered.
+                .concatMap(new Function<Integer, Publisher<Movie>>() {
+                    @Override
+                    public Publisher<Movie> apply(Integer page) throws Exception {
+                        //第一页是可见内容，之后的页都是预加载
+                        return apiService.getTopMovie(page * pageSize, pageSize)
+                                .subscribeOn(RequestScheduler.get(page == 0
+                                        ? RequestScheduler.Priority.VISIBLE : RequestScheduler.Priority.PREFETCH))
+                                .toFlowable(BackpressureStrategy.BUFFER);
+                    }
+                }, 1)
+                .takeUntil(new Predicate<Movie>() {
+                    @Override
+                    public boolean test(Movie movie) throws Exception {
+                        return movie.getSubjects() == null || movie.getSubjects().size() < pageSize;
+                    }
+                })
+                // Ask for the next page only after every subject of this one has been requested.
+                .concatMapIterable(new Function<Movie, Iterable<Subjects>>() {
+                    @Override
+                    public Iterable<Subjects> apply(Movie movie) throws Exception {
+                        List<Subjects> subjects = movie.getSubjects();
+                        return subjects == null ? Collections.<Subjects>emptyList() : subjects;
+                    }
+                }, 1);
+    }
+
 }
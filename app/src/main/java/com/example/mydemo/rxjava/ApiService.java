@@ -3,8 +3,11 @@ package com.example.mydemo.rxjava;
 import com.example.mydemo.bean.Movie;
 
 import io.reactivex.Observable;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 /**
  * author : 宋佳
@@ -19,4 +22,9 @@ public interface ApiService {
     @GET("top250")
     Observable<Movie> getTopMovie(@Query("start") int start, @Query("count") int count);
 
+    //不缓冲响应体，由SubjectsStreamDecoder边下载边解析
+    @Streaming
+    @GET("top250")
+    Call<ResponseBody> getTopMovieStream(@Query("start") int start, @Query("count") int count);
+
 }
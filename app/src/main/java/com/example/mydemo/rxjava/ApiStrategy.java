@@ -3,19 +3,22 @@ package com.example.mydemo.rxjava;
 import android.text.TextUtils;
 
 import com.example.mydemo.MyDemoApplication;
-import com.example.mydemo.utils.NetworkUtil;
+import com.example.mydemo.utils.AppLog;
+import com.example.mydemo.utils.ConnectivityMonitor;
+import com.example.mydemo.utils.GsonUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
+import io.reactivex.functions.BooleanSupplier;
+import io.reactivex.schedulers.Schedulers;
 import okhttp3.Cache;
 import okhttp3.CacheControl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -40,6 +43,22 @@ public class ApiStrategy {
      */
     private static final long CACHE_STALE_SEC = 60 * 60 * 24 * 2;
 
+    /**
+     * 内存缓存中的数据一分钟内视为新鲜，之后先返回旧数据再后台重新验证
+     */
+    private static final long MEMORY_FRESH_SEC = 60;
+
+    /**
+     * 调试日志中body最多预览4KB
+     */
+    private static final long LOG_PREVIEW_BYTES = 4 * 1024;
+
+    /**
+     * 内存缓存上限，按响应体字节数计算
+     */
+    private static final ResponseMemoryCache sMemoryCache = new ResponseMemoryCache(
+            (int) Math.min(Runtime.getRuntime().maxMemory() / 32, 8 * 1024 * 1024));
+
 
     public static ApiService apiService;
 
@@ -54,9 +73,14 @@ public class ApiStrategy {
         return apiService;
     }
 
+    /**
+     * 内存缓存，可读取命中/未命中/重新验证次数
+     */
+    public static ResponseMemoryCache getMemoryCache() {
+        return sMemoryCache;
+    }
+
     private ApiStrategy() {
-        HttpLoggingInterceptor logInterceptor = new HttpLoggingInterceptor();
-        logInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
         //缓存
         File cacheFile = new File(MyDemoApplication.getContextObject().getCacheDir(), "cache");
         Cache cache = new Cache(cacheFile, 1024 * 1024 * 100); //100Mb
@@ -72,30 +96,68 @@ public class ApiStrategy {
             }
         };
 
-        //创建一个OkHttpClient并设置超时时间
-        OkHttpClient client = new OkHttpClient.Builder()
+        //从共享的OkHttpClient派生，复用连接池和线程池，并设置超时时间
+        OkHttpClient.Builder builder = HttpClientProvider.newBuilder()
                 .readTimeout(READ_TIME_OUT, TimeUnit.MILLISECONDS)
                 .connectTimeout(CONNECT_TIME_OUT, TimeUnit.MILLISECONDS)
                 .addInterceptor(mRewriteCacheControlInterceptor)
                 .addNetworkInterceptor(mRewriteCacheControlInterceptor)
                 .addInterceptor(headerInterceptor)
-                .addInterceptor(logInterceptor)
-                .cache(cache)
-                .build();
+                .cache(cache);
+        if (AppLog.DEBUG) {
+            builder.addInterceptor(new HttpLogInterceptor(LOG_PREVIEW_BYTES));
+        }
+        OkHttpClient client = builder.build();
 
         Retrofit retrofit = new Retrofit.Builder()
                 .client(client)
                 .baseUrl(Const.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())//请求的结果转为实体类
+                .addConverterFactory(NetworkMetrics.timing(GsonConverterFactory.create(GsonUtil.getGson())))//请求的结果转为实体类
+                .addCallAdapterFactory(NetworkMetrics.callAdapterFactory())
+                //先查内存缓存，未命中再走OkHttp的磁盘缓存和网络
+                .addCallAdapterFactory(new MemoryCacheCallAdapterFactory(sMemoryCache,
+                        MEMORY_FRESH_SEC, CACHE_STALE_SEC, TimeUnit.SECONDS, Schedulers.computation(),
+                        new BooleanSupplier() {
+                            @Override
+                            public boolean getAsBoolean() {
+                                //离线时不做后台重新验证
+                                return ConnectivityMonitor.get(MyDemoApplication.getContextObject()).isConnected();
+                            }
+                        }))
                 //适配RxJava2.0,RxJava1.x则为RxJavaCallAdapterFactory.create()
                 .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
                 .build();
-        apiService = retrofit.create(ApiService.class);
+        //熔断时的降级：只读磁盘缓存
+        Retrofit cacheOnlyRetrofit = new Retrofit.Builder()
+                .client(client.newBuilder().addInterceptor(mForceCacheInterceptor).build())
+                .baseUrl(Const.BASE_URL)
+                .addConverterFactory(NetworkMetrics.timing(GsonConverterFactory.create(GsonUtil.getGson())))
+                .addCallAdapterFactory(NetworkMetrics.callAdapterFactory())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build();
+        //失败重试、熔断
+        ApiService resilient = new Resilience().wrap(ApiService.class, retrofit.create(ApiService.class),
+                cacheOnlyRetrofit.create(ApiService.class));
+        //合并相同的并发请求
+        apiService = new RequestCoalescer().wrap(ApiService.class, resilient);
 
 
     }
 
 
+    /**
+     * 强制读取缓存，没有缓存时返回504
+     */
+    private final Interceptor mForceCacheInterceptor = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            return chain.proceed(chain.request().newBuilder()
+                    .cacheControl(CacheControl.FORCE_CACHE)
+                    .build());
+        }
+    };
+
+
     /**
      * 云端响应头拦截器，用来配置缓存策略
      * Dangerous interceptor that rewrites the server's cache-control header.
@@ -105,14 +167,16 @@ public class ApiStrategy {
         public Response intercept(Chain chain) throws IOException {
             Request request = chain.request();
             String cacheControl = request.cacheControl().toString();
-            if (!NetworkUtil.isNetworkConnected(MyDemoApplication.getContextObject())) {
+            //读取缓存的网络状态，不在OkHttp线程上调用ConnectivityManager
+            boolean connected = ConnectivityMonitor.get(MyDemoApplication.getContextObject()).isConnected();
+            if (!connected) {
                 request = request.newBuilder()
                         .cacheControl(TextUtils.isEmpty(cacheControl) ? CacheControl
                                 .FORCE_NETWORK : CacheControl.FORCE_CACHE)
                         .build();
             }
             Response originalResponse = chain.proceed(request);
-            if (NetworkUtil.isNetworkConnected(MyDemoApplication.getContextObject())) {
+            if (connected) {
                 return originalResponse.newBuilder()
                         .header("Cache-Control", cacheControl)
                         .removeHeader("Pragma")
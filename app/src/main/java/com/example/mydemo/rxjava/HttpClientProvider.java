@@ -0,0 +1,313 @@
+package com.example.mydemo.rxjava;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * 全局共享的 OkHttpClient。
+ * <p>
+ * Every client of the app should come from here, either {@link #get()} or {@link #newBuilder()}
+ * for a feature that needs its own interceptors, cache or timeouts. Derived clients share the
+ * connection pool, the dispatcher and its threads, so connections are reused across features
+ * and the per-host limit applies to all of them.
+ * <p>
+ * The dispatcher only limits enqueued calls, while Retrofit's calls here are executed on the
+ * {@link RequestScheduler} threads. An interceptor applies the dispatcher's per-host limit to
+ * those executed calls: a call waits for a slot before it is sent and frees it when its response
+ * body is closed. The wait ends with an {@link InterruptedIOException} after the connect timeout
+ * (OkHttp 3.10 has no call timeout) and with an {@link IOException} once the call is canceled.
+ * Enqueued calls are not counted twice, the dispatcher has already limited them.
+ * <p>
+ * A single call can override the timeouts with the {@code X-*-Timeout} headers (milliseconds),
+ * e.g. in Retrofit {@code @Headers(HttpClientProvider.READ_TIMEOUT + ": 30000")}. The headers
+ * are not sent.
+ */
+public class HttpClientProvider {
+    public static final String CONNECT_TIMEOUT = "X-Connect-Timeout";
+    public static final String READ_TIMEOUT = "X-Read-Timeout";
+    public static final String WRITE_TIMEOUT = "X-Write-Timeout";
+
+    //默认超时，单位：毫秒
+    private static final int DEFAULT_TIMEOUT = 10000;
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 32;
+    private static final int MAX_REQUESTS_PER_HOST = 6;
+
+    private static volatile OkHttpClient sClient;
+
+    public static OkHttpClient get() {
+        if (sClient == null) {
+            synchronized (HttpClientProvider.class) {
+                if (sClient == null) {
+                    sClient = create();
+                }
+            }
+        }
+        return sClient;
+    }
+
+    /**
+     * 派生新的client，与共享client使用同一个连接池和线程池
+     */
+    public static OkHttpClient.Builder newBuilder() {
+        return get().newBuilder();
+    }
+
+    /**
+     * 每个host同时进行的请求数，对所有派生的client生效（包括execute的请求）
+     */
+    public static void setMaxRequestsPerHost(int maxRequestsPerHost) {
+        setMaxRequestsPerHost(get(), maxRequestsPerHost);
+    }
+
+    static void setMaxRequestsPerHost(OkHttpClient client, int maxRequestsPerHost) {
+        client.dispatcher().setMaxRequestsPerHost(maxRequestsPerHost);
+        for (Interceptor interceptor : client.interceptors()) {
+            if (interceptor instanceof HostLimitInterceptor) {
+                ((HostLimitInterceptor) interceptor).onLimitChanged();
+            }
+        }
+    }
+
+    /**
+     * A new base client with its own pool and dispatcher, for tests and benchmarks.
+     */
+    static OkHttpClient create() {
+        // The same pool as OkHttp's default, with threads the HostLimitInterceptor can recognize.
+        Dispatcher dispatcher = new Dispatcher(new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), DISPATCHER_THREADS));
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .connectTimeout(DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
+                .readTimeout(DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
+                .writeTimeout(DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
+                // First, so that X-Connect-Timeout also bounds the wait for a slot.
+                .addInterceptor(TIMEOUT_INTERCEPTOR)
+                .addInterceptor(new HostLimitInterceptor(dispatcher))
+                .eventListenerFactory(NetworkMetrics.eventListenerFactory())
+                .build();
+    }
+
+    private static final ThreadFactory DISPATCHER_THREADS = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new DispatcherThread(runnable);
+        }
+    };
+
+    /**
+     * 执行enqueue请求的线程
+     */
+    static final class DispatcherThread extends Thread {
+        DispatcherThread(Runnable runnable) {
+            super(runnable, "OkHttp Dispatcher");
+            setDaemon(false);
+        }
+    }
+
+    /**
+     * 按请求头覆盖单次请求的超时
+     */
+    private static final Interceptor TIMEOUT_INTERCEPTOR = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String connect = request.header(CONNECT_TIMEOUT);
+            String read = request.header(READ_TIMEOUT);
+            String write = request.header(WRITE_TIMEOUT);
+            if (connect == null && read == null && write == null) {
+                return chain.proceed(request);
+            }
+            if (connect != null) {
+                chain = chain.withConnectTimeout(parseTimeout(CONNECT_TIMEOUT, connect), TimeUnit.MILLISECONDS);
+            }
+            if (read != null) {
+                chain = chain.withReadTimeout(parseTimeout(READ_TIMEOUT, read), TimeUnit.MILLISECONDS);
+            }
+            if (write != null) {
+                chain = chain.withWriteTimeout(parseTimeout(WRITE_TIMEOUT, write), TimeUnit.MILLISECONDS);
+            }
+            return chain.proceed(request.newBuilder()
+                    .removeHeader(CONNECT_TIMEOUT)
+                    .removeHeader(READ_TIMEOUT)
+                    .removeHeader(WRITE_TIMEOUT)
+                    .build());
+        }
+    };
+
+    /**
+     * @throws IOException For a value that is not a non-negative int, so the call fails instead of
+     *                     throwing on the caller's thread.
+     */
+    private static int parseTimeout(String header, String value) throws IOException {
+        try {
+            int millis = Integer.parseInt(value.trim());
+            if (millis >= 0) {
+                return millis;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IOException("Invalid " + header + ": " + value);
+    }
+
+    /**
+     * 限制每个host同时进行的execute请求数，上限与dispatcher相同
+     * <p>
+     * A body that is never closed keeps its slot, just as it keeps its connection.
+     */
+    static final class HostLimitInterceptor implements Interceptor {
+        // How often a waiting call checks whether it was canceled, cancel() does not wake it up.
+        private static final long CANCEL_POLL_MS = 100;
+
+        private final Dispatcher mDispatcher;
+        private final Map<String, Integer> mRunning = new HashMap<>();
+
+        HostLimitInterceptor(Dispatcher dispatcher) {
+            mDispatcher = dispatcher;
+        }
+
+        synchronized void onLimitChanged() {
+            notifyAll();
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            if (Thread.currentThread() instanceof DispatcherThread) {
+                return chain.proceed(chain.request());
+            }
+            final String host = chain.request().url().host();
+            acquire(host, chain);
+            Response response;
+            try {
+                response = chain.proceed(chain.request());
+            } catch (IOException | RuntimeException | Error e) {
+                release(host);
+                throw e;
+            }
+            if (response.body() == null) {
+                release(host);
+                return response;
+            }
+            return response.newBuilder()
+                    .body(new SlotBody(response.body()) {
+                        @Override
+                        void onClosed() {
+                            release(host);
+                        }
+                    })
+                    .build();
+        }
+
+        private synchronized void acquire(String host, Chain chain) throws IOException {
+            long timeout = chain.connectTimeoutMillis();
+            long deadline = System.currentTimeMillis() + timeout;
+            try {
+                while (running(host) >= mDispatcher.getMaxRequestsPerHost()) {
+                    if (chain.call().isCanceled()) {
+                        throw new IOException("Canceled");
+                    }
+                    long wait = CANCEL_POLL_MS;
+                    if (timeout > 0) {
+                        long left = deadline - System.currentTimeMillis();
+                        if (left <= 0) {
+                            throw new InterruptedIOException("Timed out waiting for " + host);
+                        }
+                        wait = Math.min(wait, left);
+                    }
+                    wait(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for " + host);
+            }
+            mRunning.put(host, running(host) + 1);
+        }
+
+        private synchronized void release(String host) {
+            int running = running(host) - 1;
+            if (running == 0) {
+                mRunning.remove(host);
+            } else {
+                mRunning.put(host, running);
+            }
+            notifyAll();
+        }
+
+        private int running(String host) {
+            Integer running = mRunning.get(host);
+            return running == null ? 0 : running;
+        }
+    }
+
+    /**
+     * Calls {@link #onClosed()} once, when the body is closed directly or through its source.
+     */
+    private abstract static class SlotBody extends ResponseBody {
+        private final ResponseBody mDelegate;
+        private final BufferedSource mSource;
+        private boolean mClosed;
+
+        SlotBody(ResponseBody delegate) {
+            mDelegate = delegate;
+            mSource = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        closed();
+                    }
+                }
+            });
+        }
+
+        abstract void onClosed();
+
+        @Override
+        public MediaType contentType() {
+            return mDelegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mDelegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return mSource;
+        }
+
+        private void closed() {
+            synchronized (this) {
+                if (mClosed) {
+                    return;
+                }
+                mClosed = true;
+            }
+            onClosed();
+        }
+    }
+}
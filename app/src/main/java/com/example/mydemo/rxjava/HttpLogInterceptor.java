@@ -0,0 +1,102 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.utils.AppLog;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+/**
+ * 调试用的请求日志：请求行、状态码、耗时和body的前一部分。
+ * <p>
+ * HttpLoggingInterceptor at BODY level reads every body into memory before handing it on. Here
+ * the response is only peeked up to the preview limit, so large and streaming bodies reach the
+ * converter untouched, and bodies that are not text are not read at all. Add it as an
+ * application interceptor so that it sees decompressed bodies.
+ */
+public class HttpLogInterceptor implements Interceptor {
+    private static final String TAG = "OkHttp";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final long mMaxPreviewBytes;
+
+    public HttpLogInterceptor(long maxPreviewBytes) {
+        mMaxPreviewBytes = maxPreviewBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!AppLog.DEBUG) {
+            return chain.proceed(request);
+        }
+        AppLog.d(TAG, "--> %s %s%s", request.method(), request.url(), requestPreview(request.body()));
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            AppLog.w(TAG, "<-- HTTP FAILED " + request.url(), e);
+            throw e;
+        }
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        AppLog.d(TAG, "<-- %d %s (%dms)%s", response.code(), request.url(), tookMs, responsePreview(response));
+        return response;
+    }
+
+    private String requestPreview(RequestBody body) throws IOException {
+        if (body == null) {
+            return "";
+        }
+        long length = body.contentLength();
+        if (!isText(body.contentType()) || length < 0 || length > mMaxPreviewBytes) {
+            return " (" + length + "-byte body)";
+        }
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return "\n" + buffer.readString(charset(body.contentType()));
+    }
+
+    private String responsePreview(Response response) {
+        ResponseBody body = response.body();
+        if (body == null || response.header("Content-Encoding") != null) {
+            return "";
+        }
+        if (!isText(body.contentType())) {
+            return " (" + body.contentLength() + "-byte body)";
+        }
+        try {
+            //只读取预览的部分，body本身不受影响
+            ResponseBody preview = response.peekBody(mMaxPreviewBytes);
+            String text = new String(preview.bytes(), charset(body.contentType()));
+            boolean truncated = preview.contentLength() == mMaxPreviewBytes
+                    && body.contentLength() != mMaxPreviewBytes;
+            return "\n" + text + (truncated ? "…" : "");
+        } catch (IOException e) {
+            return " (body preview failed: " + e + ")";
+        }
+    }
+
+    private static boolean isText(MediaType type) {
+        if (type == null) {
+            return false;
+        }
+        if ("text".equals(type.type())) {
+            return true;
+        }
+        String subtype = type.subtype();
+        return subtype.contains("json") || subtype.contains("xml") || subtype.contains("x-www-form-urlencoded");
+    }
+
+    private static Charset charset(MediaType type) {
+        return type == null ? UTF_8 : type.charset(UTF_8);
+    }
+}
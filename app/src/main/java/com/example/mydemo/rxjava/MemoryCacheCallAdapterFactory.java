@@ -0,0 +1,274 @@
+package com.example.mydemo.rxjava;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.BooleanSupplier;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Converter;
+import retrofit2.HttpException;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.Result;
+
+/**
+ * 内存缓存的 CallAdapter，放在 RxJava2CallAdapterFactory 之前。
+ * <p>
+ * Serves {@code Observable<T>} GET requests from a {@link ResponseMemoryCache}:
+ * <ul>
+ * <li>fresh entry: emitted without touching the network or the disk cache;</li>
+ * <li>stale entry: emitted immediately, then revalidated in the background with
+ * If-None-Match / If-Modified-Since; a 304 only renews the entry, a 200 replaces it;</li>
+ * <li>miss: executed through OkHttp (and its disk cache), then stored.</li>
+ * </ul>
+ * Entries keep the body bytes, which are decoded for every subscriber, so the beans are never
+ * shared. An entry whose body no longer decodes is dropped. Disposing cancels the OkHttp call.
+ * Stale entries are not revalidated while offline. Other return types are left to the next factory.
+ */
+public class MemoryCacheCallAdapterFactory extends CallAdapter.Factory {
+    private static final String TAG = "MemoryCache";
+    private static final BooleanSupplier ALWAYS_ONLINE = new BooleanSupplier() {
+        @Override
+        public boolean getAsBoolean() {
+            return true;
+        }
+    };
+
+    private final ResponseMemoryCache mCache;
+    private final long mFreshMillis;
+    private final long mMaxStaleMillis;
+    private final Scheduler mClock;
+    private final BooleanSupplier mOnline;
+
+    public MemoryCacheCallAdapterFactory(ResponseMemoryCache cache, long freshTime, long maxStale, TimeUnit unit) {
+        this(cache, freshTime, maxStale, unit, Schedulers.computation());
+    }
+
+    public MemoryCacheCallAdapterFactory(ResponseMemoryCache cache, long freshTime, long maxStale, TimeUnit unit,
+                                         Scheduler clock) {
+        this(cache, freshTime, maxStale, unit, clock, ALWAYS_ONLINE);
+    }
+
+    /**
+     * @param freshTime Used when the response has no max-age.
+     * @param maxStale  How long after it became stale an entry may still be served.
+     * @param clock     Only used for {@link Scheduler#now(TimeUnit)}, e.g. a TestScheduler in tests.
+     * @param online    Checked before a background revalidation, which is skipped when false.
+     */
+    public MemoryCacheCallAdapterFactory(ResponseMemoryCache cache, long freshTime, long maxStale, TimeUnit unit,
+                                         Scheduler clock, BooleanSupplier online) {
+        mCache = cache;
+        mFreshMillis = unit.toMillis(freshTime);
+        mMaxStaleMillis = unit.toMillis(maxStale);
+        mClock = clock;
+        mOnline = online;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Observable.class || !(returnType instanceof ParameterizedType)) {
+            return null;
+        }
+        Type responseType = getParameterUpperBound(0, (ParameterizedType) returnType);
+        Class<?> rawResponseType = getRawType(responseType);
+        if (rawResponseType == Response.class || rawResponseType == Result.class) {
+            return null;
+        }
+        Converter<ResponseBody, Object> converter = retrofit.responseBodyConverter(responseType, annotations);
+        return new MemoryCacheCallAdapter(responseType, converter, retrofit.callFactory());
+    }
+
+    private final class MemoryCacheCallAdapter implements CallAdapter<Object, Observable<Object>> {
+        private final Type mResponseType;
+        private final Converter<ResponseBody, Object> mConverter;
+        private final okhttp3.Call.Factory mCallFactory;
+
+        MemoryCacheCallAdapter(Type responseType, Converter<ResponseBody, Object> converter,
+                               okhttp3.Call.Factory callFactory) {
+            mResponseType = responseType;
+            mConverter = converter;
+            mCallFactory = callFactory;
+        }
+
+        @Override
+        public Type responseType() {
+            return mResponseType;
+        }
+
+        @Override
+        public Observable<Object> adapt(final Call<Object> call) {
+            return Observable.create(new ObservableOnSubscribe<Object>() {
+                @Override
+                public void subscribe(ObservableEmitter<Object> emitter) throws Exception {
+                    // Each subscription runs its own call, like RxJava2CallAdapter.
+                    final Call<Object> current = call.clone();
+                    Request request = current.request();
+                    // GETs are executed here rather than by Retrofit, to keep their body bytes.
+                    final okhttp3.Call raw = "GET".equals(request.method()) ? mCallFactory.newCall(request) : null;
+                    emitter.setCancellable(new Cancellable() {
+                        @Override
+                        public void cancel() {
+                            current.cancel();
+                            if (raw != null) {
+                                raw.cancel();
+                            }
+                        }
+                    });
+                    Object value;
+                    try {
+                        value = raw == null ? body(current.execute()) : load(raw);
+                    } catch (Exception e) {
+                        if (!emitter.isDisposed()) {
+                            emitter.onError(e);
+                        }
+                        return;
+                    }
+                    emitter.onNext(value);
+                    emitter.onComplete();
+                }
+            });
+        }
+
+        private Object load(okhttp3.Call call) throws IOException {
+            Request request = call.request();
+            String key = request.url().toString();
+            ResponseMemoryCache.Entry entry = mCache.get(key);
+            long now = mClock.now(TimeUnit.MILLISECONDS);
+            if (entry != null && now < entry.mStaleAt) {
+                mCache.onHit();
+                return decode(key, request, entry);
+            }
+            if (entry != null && now < entry.mExpiresAt) {
+                mCache.onStaleHit();
+                revalidate(key, request, entry);
+                return decode(key, request, entry);
+            }
+            mCache.onMiss();
+            okhttp3.Response response = call.execute();
+            MediaType contentType = response.body().contentType();
+            byte[] bytes;
+            try {
+                bytes = response.body().bytes();
+            } finally {
+                response.close();
+            }
+            if (!response.isSuccessful()) {
+                throw new HttpException(Response.error(ResponseBody.create(contentType, bytes), response));
+            }
+            Object value = decode(request, contentType, bytes);
+            mCache.put(key, newEntry(bytes, contentType, response));
+            return value;
+        }
+
+        private Object decode(String key, Request request, ResponseMemoryCache.Entry entry) throws IOException {
+            try {
+                return decode(request, entry.mContentType, entry.mBody);
+            } catch (IOException | RuntimeException e) {
+                mCache.remove(key); // Fetched again by the next call.
+                throw e;
+            }
+        }
+
+        private Object decode(Request request, MediaType contentType, byte[] bytes) throws IOException {
+            Object value = mConverter.convert(ResponseBody.create(contentType, bytes));
+            if (value == null) {
+                throw new NullPointerException("Response body of " + request.url() + " is null");
+            }
+            return value;
+        }
+
+        private Object body(Response<Object> response) {
+            if (!response.isSuccessful()) {
+                throw new HttpException(response);
+            }
+            Object body = response.body();
+            if (body == null) {
+                throw new NullPointerException("Response body of " + response.raw().request().url() + " is null");
+            }
+            return body;
+        }
+
+        private void revalidate(final String key, final Request request, final ResponseMemoryCache.Entry entry) {
+            if (!isOnline()) {
+                return; // Revalidated on a later hit once online.
+            }
+            if (!entry.mRevalidating.compareAndSet(false, true)) {
+                return; // Already on its way.
+            }
+            Schedulers.io().scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    Request.Builder builder = request.newBuilder();
+                    if (entry.mETag != null) {
+                        builder.header("If-None-Match", entry.mETag);
+                    }
+                    if (entry.mLastModified != null) {
+                        builder.header("If-Modified-Since", entry.mLastModified);
+                    }
+                    okhttp3.Response response = null;
+                    try {
+                        response = mCallFactory.newCall(builder.build()).execute();
+                        if (response.code() == 304 && entry.hasValidators()) {
+                            mCache.put(key, newEntry(entry, response));
+                            mCache.onRevalidation(true);
+                        } else if (response.isSuccessful() && response.body() != null) {
+                            MediaType contentType = response.body().contentType();
+                            mCache.put(key, newEntry(response.body().bytes(), contentType, response));
+                            mCache.onRevalidation(false);
+                        }
+                    } catch (IOException e) {
+                        Log.w(TAG, "revalidate " + key, e); // Keep serving the stale entry.
+                    } finally {
+                        if (response != null) {
+                            response.close();
+                        }
+                        entry.mRevalidating.set(false);
+                    }
+                }
+            });
+        }
+
+        private boolean isOnline() {
+            try {
+                return mOnline.getAsBoolean();
+            } catch (Exception e) {
+                return true;
+            }
+        }
+
+        /**
+         * A 304 may omit the validators, keep the old ones then.
+         */
+        private ResponseMemoryCache.Entry newEntry(ResponseMemoryCache.Entry old, okhttp3.Response notModified) {
+            ResponseMemoryCache.Entry entry = newEntry(old.mBody, old.mContentType, notModified);
+            if (entry.hasValidators()) {
+                return entry;
+            }
+            return new ResponseMemoryCache.Entry(old.mBody, old.mContentType, old.mETag, old.mLastModified,
+                    entry.mStaleAt, entry.mExpiresAt);
+        }
+
+        private ResponseMemoryCache.Entry newEntry(byte[] body, MediaType contentType, okhttp3.Response response) {
+            long now = mClock.now(TimeUnit.MILLISECONDS);
+            int maxAge = response.cacheControl().maxAgeSeconds();
+            long staleAt = now + (maxAge > 0 ? TimeUnit.SECONDS.toMillis(maxAge) : mFreshMillis);
+            return new ResponseMemoryCache.Entry(body, contentType, response.header("ETag"),
+                    response.header("Last-Modified"), staleAt, staleAt + mMaxStaleMillis);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.mydemo.rxjava;
 
+import android.arch.lifecycle.LifecycleOwner;
 import android.content.Context;
-import android.util.Log;
+
+import com.example.mydemo.utils.AppLog;
 
 import io.reactivex.Observer;
 import io.reactivex.disposables.Disposable;
@@ -21,6 +23,7 @@ public class MyObserver<T> implements Observer<T>, ProgressCancelListener {
     private ObserverOnNextListener listener;
     private ProgressDialogHandler mProgressDialogHandler;
     private Disposable d;
+    private Disposable mLifecycleBinding;
 
     public MyObserver(Context context, ObserverOnNextListener listener) {
         this.context = context;
@@ -47,8 +50,14 @@ public class MyObserver<T> implements Observer<T>, ProgressCancelListener {
     @Override
     public void onSubscribe(Disposable d) {
         //当连接的时候
-        Log.d(TAG, "onSubscribe: ");
+        if (AppLog.DEBUG) {
+            AppLog.d(TAG, "onSubscribe: ");
+        }
         this.d = d;
+        //context是Activity/Fragment时，页面销毁即取消订阅
+        if (context instanceof LifecycleOwner) {
+            mLifecycleBinding = RequestLifecycle.disposeOnDestroy((LifecycleOwner) context, d);
+        }
         showProgressDialog();
     }
 
@@ -59,16 +68,27 @@ public class MyObserver<T> implements Observer<T>, ProgressCancelListener {
 
     @Override
     public void onError(Throwable e) {
-        Log.e(TAG, "onError: ", e);
+        AppLog.e(TAG, "onError: ", e);
         //添加业务处理
         dismissProgressDialog();
+        unbindLifecycle();
     }
 
     @Override
     public void onComplete() {
-        Log.d(TAG, "onComplete: ");
+        if (AppLog.DEBUG) {
+            AppLog.d(TAG, "onComplete: ");
+        }
         //添加业务处理
         dismissProgressDialog();
+        unbindLifecycle();
+    }
+
+    private void unbindLifecycle() {
+        if (mLifecycleBinding != null) {
+            mLifecycleBinding.dispose();
+            mLifecycleBinding = null;
+        }
     }
 
     @Override
@@ -79,5 +99,6 @@ public class MyObserver<T> implements Observer<T>, ProgressCancelListener {
         if (!d.isDisposed()) {
             d.dispose();
         }
+        unbindLifecycle();
     }
 }
@@ -0,0 +1,430 @@
+package com.example.mydemo.rxjava;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.CallAdapter;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * 网络请求各阶段耗时统计。
+ * <p>
+ * Records where the time of every call goes into a {@link LatencyHistogram} per endpoint
+ * ({@code "GET /v2/movie/top250"}) and {@link Phase}:
+ * <ul>
+ * <li>DNS to BODY and TOTAL (successful calls only) come from an OkHttp {@link EventListener},
+ * see {@link #eventListenerFactory()};</li>
+ * <li>DECODE wraps the Retrofit converter, see {@link #timing(Converter.Factory)}; Retrofit streams
+ * the body into the converter, so it overlaps BODY;</li>
+ * <li>DELIVERY is the wait from decoding to onNext on the main thread, see
+ * {@link #observeOnMainThread(Observable)}. The decoded value is handed over on the thread that
+ * emits it, and only for that same instance; {@link #callAdapterFactory()} clears it once the
+ * value has been emitted, so nothing is left on a pooled thread.</li>
+ * </ul>
+ * Disabled by default; while disabled calls get {@link EventListener#NONE} and nothing else is
+ * wrapped, so the cost is one volatile read per call. Query with {@link #getHistogram} or export
+ * everything with {@link #toJson()}.
+ */
+public class NetworkMetrics {
+
+    public enum Phase {
+        DNS, CONNECT, TLS, REQUEST, TTFB, BODY, DECODE, DELIVERY, TOTAL
+    }
+
+    private static volatile boolean sEnabled;
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<Phase, LatencyHistogram>> sHistograms =
+            new ConcurrentHashMap<>();
+    // The value last decoded on this thread, until it has been emitted.
+    private static final ThreadLocal<Decoded> sDecoded = new ThreadLocal<>();
+    private static final Consumer<Object> CLEAR_DECODED = new Consumer<Object>() {
+        @Override
+        public void accept(Object value) {
+            sDecoded.remove();
+        }
+    };
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * @return null if nothing was recorded for this endpoint and phase.
+     */
+    public static LatencyHistogram getHistogram(String endpoint, Phase phase) {
+        Map<Phase, LatencyHistogram> phases = sHistograms.get(endpoint);
+        return phases == null ? null : phases.get(phase);
+    }
+
+    public static void reset() {
+        sHistograms.clear();
+    }
+
+    /**
+     * <pre>
+     * {"GET /v2/movie/top250": {"TOTAL": {"count": 12, "mean": 812.5, "p50": 640, "p90": 1472,
+     *     "p99": 2048, "max": 2113}, ...}, ...}
+     * </pre>
+     * Values in microseconds.
+     */
+    public static String toJson() {
+        StringWriter out = new StringWriter();
+        try {
+            JsonWriter writer = new JsonWriter(out);
+            writer.beginObject();
+            for (Map.Entry<String, ConcurrentHashMap<Phase, LatencyHistogram>> endpoint
+                    : new TreeMap<>(sHistograms).entrySet()) {
+                writer.name(endpoint.getKey()).beginObject();
+                for (Map.Entry<Phase, LatencyHistogram> phase
+                        : new TreeMap<>(endpoint.getValue()).entrySet()) {
+                    LatencyHistogram histogram = phase.getValue();
+                    writer.name(phase.getKey().name()).beginObject()
+                            .name("count").value(histogram.getCount())
+                            .name("mean").value(histogram.getMean())
+                            .name("p50").value(histogram.getValueAtPercentile(50))
+                            .name("p90").value(histogram.getValueAtPercentile(90))
+                            .name("p99").value(histogram.getValueAtPercentile(99))
+                            .name("max").value(histogram.getMax())
+                            .endObject();
+                }
+                writer.endObject();
+            }
+            writer.endObject();
+            writer.close();
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringWriter does not throw.
+        }
+        return out.toString();
+    }
+
+    static void record(String endpoint, Phase phase, long startNanos, long endNanos) {
+        if (startNanos == 0 || endNanos < startNanos) {
+            return; // The phase did not happen, e.g. DNS on a pooled connection.
+        }
+        ConcurrentHashMap<Phase, LatencyHistogram> phases = sHistograms.get(endpoint);
+        if (phases == null) {
+            ConcurrentHashMap<Phase, LatencyHistogram> created = new ConcurrentHashMap<>();
+            phases = sHistograms.putIfAbsent(endpoint, created);
+            if (phases == null) {
+                phases = created;
+            }
+        }
+        LatencyHistogram histogram = phases.get(phase);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = phases.putIfAbsent(phase, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos));
+    }
+
+    static String endpointOf(Request request) {
+        return request.method() + " " + request.url().encodedPath();
+    }
+
+    /**
+     * 给OkHttpClient使用，未启用时返回{@link EventListener#NONE}
+     */
+    public static EventListener.Factory eventListenerFactory() {
+        return new EventListener.Factory() {
+            @Override
+            public EventListener create(Call call) {
+                return sEnabled ? new CallMetrics(endpointOf(call.request())) : EventListener.NONE;
+            }
+        };
+    }
+
+    /**
+     * 统计解析耗时
+     */
+    public static Converter.Factory timing(final Converter.Factory delegate) {
+        return new Converter.Factory() {
+            @Override
+            public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations,
+                                                                    Retrofit retrofit) {
+                final Converter<ResponseBody, ?> converter =
+                        delegate.responseBodyConverter(type, annotations, retrofit);
+                final String endpoint = endpointOf(annotations, retrofit);
+                if (converter == null || endpoint == null) {
+                    return converter;
+                }
+                return new Converter<ResponseBody, Object>() {
+                    @Override
+                    public Object convert(ResponseBody value) throws IOException {
+                        if (!sEnabled) {
+                            return converter.convert(value);
+                        }
+                        long start = System.nanoTime();
+                        Object result = converter.convert(value);
+                        record(endpoint, Phase.DECODE, start, System.nanoTime());
+                        sDecoded.set(new Decoded(endpoint, result));
+                        return result;
+                    }
+                };
+            }
+
+            @Override
+            public Converter<?, RequestBody> requestBodyConverter(Type type, Annotation[] parameterAnnotations,
+                                                                  Annotation[] methodAnnotations, Retrofit retrofit) {
+                return delegate.requestBodyConverter(type, parameterAnnotations, methodAnnotations, retrofit);
+            }
+
+            @Override
+            public Converter<?, String> stringConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+                return delegate.stringConverter(type, annotations, retrofit);
+            }
+        };
+    }
+
+    /**
+     * 放在所有CallAdapter.Factory之前，请求的值发出后清除本线程的解析记录
+     */
+    public static CallAdapter.Factory callAdapterFactory() {
+        return new CallAdapter.Factory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+                if (getRawType(returnType) != Observable.class) {
+                    return null;
+                }
+                final CallAdapter<Object, ?> delegate =
+                        (CallAdapter<Object, ?>) retrofit.nextCallAdapter(this, returnType, annotations);
+                return new CallAdapter<Object, Observable<?>>() {
+                    @Override
+                    public Type responseType() {
+                        return delegate.responseType();
+                    }
+
+                    @Override
+                    public Observable<?> adapt(retrofit2.Call<Object> call) {
+                        // Also after values this call did not decode.
+                        return ((Observable<?>) delegate.adapt(call)).doAfterNext(CLEAR_DECODED);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * observeOn(mainThread)，启用时同时统计从解析完到主线程收到数据的耗时
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Observable<T> observeOnMainThread(Observable<T> upstream) {
+        if (!sEnabled) {
+            return upstream.observeOn(AndroidSchedulers.mainThread());
+        }
+        return upstream
+                .map(new Function<T, Object>() {
+                    @Override
+                    public Object apply(T value) throws Exception {
+                        Decoded decoded = sDecoded.get();
+                        if (decoded == null || decoded.mValue != value) {
+                            return value;
+                        }
+                        sDecoded.remove();
+                        return new InFlight(decoded.mEndpoint, value, System.nanoTime());
+                    }
+                })
+                .observeOn(AndroidSchedulers.mainThread())
+                .map(new Function<Object, T>() {
+                    @Override
+                    public T apply(Object value) throws Exception {
+                        if (!(value instanceof InFlight)) {
+                            return (T) value;
+                        }
+                        InFlight inFlight = (InFlight) value;
+                        record(inFlight.mEndpoint, Phase.DELIVERY, inFlight.mStartNanos, System.nanoTime());
+                        return (T) inFlight.mValue;
+                    }
+                });
+    }
+
+    private static String endpointOf(Annotation[] annotations, Retrofit retrofit) {
+        for (Annotation annotation : annotations) {
+            String method;
+            String path;
+            if (annotation instanceof GET) {
+                method = "GET";
+                path = ((GET) annotation).value();
+            } else if (annotation instanceof POST) {
+                method = "POST";
+                path = ((POST) annotation).value();
+            } else if (annotation instanceof PUT) {
+                method = "PUT";
+                path = ((PUT) annotation).value();
+            } else if (annotation instanceof DELETE) {
+                method = "DELETE";
+                path = ((DELETE) annotation).value();
+            } else if (annotation instanceof PATCH) {
+                method = "PATCH";
+                path = ((PATCH) annotation).value();
+            } else if (annotation instanceof HEAD) {
+                method = "HEAD";
+                path = ((HEAD) annotation).value();
+            } else {
+                continue;
+            }
+            int query = path.indexOf('?');
+            if (query >= 0) {
+                path = path.substring(0, query);
+            }
+            return method + " " + retrofit.baseUrl().resolve(path).encodedPath();
+        }
+        return null;
+    }
+
+    /**
+     * Test hook: the endpoint decoded on this thread and not emitted yet, or null.
+     */
+    static String pendingEndpoint() {
+        Decoded decoded = sDecoded.get();
+        return decoded == null ? null : decoded.mEndpoint;
+    }
+
+    private static final class Decoded {
+        final String mEndpoint;
+        final Object mValue;
+
+        Decoded(String endpoint, Object value) {
+            mEndpoint = endpoint;
+            mValue = value;
+        }
+    }
+
+    private static final class InFlight {
+        final String mEndpoint;
+        final Object mValue;
+        final long mStartNanos;
+
+        InFlight(String endpoint, Object value, long startNanos) {
+            mEndpoint = endpoint;
+            mValue = value;
+            mStartNanos = startNanos;
+        }
+    }
+
+    /**
+     * One per call, events of a call never overlap.
+     */
+    private static final class CallMetrics extends EventListener {
+        private final String mEndpoint;
+        private long mCallStart;
+        private long mDnsStart;
+        private long mConnectStart;
+        private long mSecureConnectStart;
+        private long mRequestStart;
+        private long mRequestEnd;
+        private long mBodyStart;
+
+        CallMetrics(String endpoint) {
+            mEndpoint = endpoint;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            mCallStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            mDnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            record(mEndpoint, Phase.DNS, mDnsStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            mConnectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            mSecureConnectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            record(mEndpoint, Phase.TLS, mSecureConnectStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            record(mEndpoint, Phase.CONNECT, mConnectStart, System.nanoTime());
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            mRequestStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            mRequestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            mRequestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            long now = System.nanoTime();
+            record(mEndpoint, Phase.REQUEST, mRequestStart, mRequestEnd);
+            record(mEndpoint, Phase.TTFB, mRequestEnd, now);
+        }
+
+        @Override
+        public void responseBodyStart(Call call) {
+            mBodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            record(mEndpoint, Phase.BODY, mBodyStart, System.nanoTime());
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            record(mEndpoint, Phase.TOTAL, mCallStart, System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.mydemo.rxjava;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * 合并相同的请求。
+ * <p>
+ * Shares one upstream call among all concurrent subscribers of the same request, keyed by method
+ * and arguments, and replays its result to late subscribers for a short time.
+ */
+public class RequestCoalescer {
+
+    /**
+     * 默认结果缓存时间，单位：毫秒
+     */
+    public static final long DEFAULT_TTL = 3000;
+
+    private final long mTtlMillis;
+    private final Scheduler mClock;
+    private final Map<String, Entry<?>> mEntries = new HashMap<>();
+
+    public RequestCoalescer() {
+        this(DEFAULT_TTL, TimeUnit.MILLISECONDS, Schedulers.computation());
+    }
+
+    /**
+     * @param ttl   How long a completed result is replayed to new subscribers.
+     * @param clock Only used for {@link Scheduler#now(TimeUnit)}, e.g. a TestScheduler in tests.
+     */
+    public RequestCoalescer(long ttl, TimeUnit unit, Scheduler clock) {
+        mTtlMillis = unit.toMillis(ttl);
+        mClock = clock;
+    }
+
+    /**
+     * Coalesce every method of a Retrofit service that returns an {@link Observable}.
+     */
+    @SuppressWarnings("unchecked")
+    public <S> S wrap(Class<S> serviceClass, final S service) {
+        return (S) Proxy.newProxyInstance(serviceClass.getClassLoader(), new Class<?>[]{serviceClass},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, final Method method, final Object[] args) throws Throwable {
+                        if (method.getDeclaringClass() == Object.class || method.getReturnType() != Observable.class) {
+                            return invokeService(method, args);
+                        }
+                        String key = method.getName() + Arrays.deepToString(args);
+                        return coalesce(key, new Callable<Observable<Object>>() {
+                            @Override
+                            public Observable<Object> call() throws Exception {
+                                return (Observable<Object>) invokeService(method, args);
+                            }
+                        });
+                    }
+
+                    private Object invokeService(Method method, Object[] args) throws Throwable {
+                        try {
+                            return method.invoke(service, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * @param key      Identifies the request, e.g. method name and arguments.
+     * @param upstream Creates the real request when there is nothing to share.
+     * @return An Observable that joins the in-flight request or replays a fresh result.
+     */
+    public <T> Observable<T> coalesce(final String key, final Callable<? extends Observable<T>> upstream) {
+        return Observable.defer(new Callable<ObservableSource<T>>() {
+            @Override
+            public ObservableSource<T> call() throws Exception {
+                return obtain(key, upstream).mShared;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> Entry<T> obtain(final String key, Callable<? extends Observable<T>> upstream)
+            throws Exception {
+        long now = mClock.now(TimeUnit.MILLISECONDS);
+        Entry<T> entry = (Entry<T>) mEntries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            return entry;
+        }
+        pruneExpired(now);
+        final Entry<T> created = new Entry<>();
+        created.mShared = upstream.call()
+                .doOnNext(new Consumer<T>() {
+                    @Override
+                    public void accept(T value) throws Exception {
+                        created.mValue = value;
+                    }
+                })
+                .doOnComplete(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        onComplete(created);
+                    }
+                })
+                .doOnError(new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        remove(key, created); // Errors are never shared with later subscribers.
+                    }
+                })
+                .doOnDispose(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        removeIfInFlight(key, created); // Every subscriber left before the response arrived.
+                    }
+                })
+                .replay(1)
+                .refCount();
+        mEntries.put(key, created);
+        return created;
+    }
+
+    private synchronized <T> void onComplete(Entry<T> entry) {
+        entry.mExpiresAt = mClock.now(TimeUnit.MILLISECONDS) + mTtlMillis;
+        // Late subscribers get the value without reconnecting the refCount()ed upstream.
+        entry.mShared = entry.mValue == null ? Observable.<T>empty() : Observable.just(entry.mValue);
+    }
+
+    private synchronized void remove(String key, Entry<?> entry) {
+        if (mEntries.get(key) == entry) {
+            mEntries.remove(key);
+        }
+    }
+
+    /**
+     * refCount() also disposes the upstream after it completed, which must keep the cached result.
+     */
+    private synchronized void removeIfInFlight(String key, Entry<?> entry) {
+        if (entry.mExpiresAt == 0) {
+            remove(key, entry);
+        }
+    }
+
+    private void pruneExpired(long now) {
+        Iterator<Entry<?>> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+        Observable<T> mShared;
+        T mValue;
+        /** 0 while the request is in flight. */
+        long mExpiresAt;
+
+        boolean isExpired(long now) {
+            return mExpiresAt != 0 && now >= mExpiresAt;
+        }
+    }
+}
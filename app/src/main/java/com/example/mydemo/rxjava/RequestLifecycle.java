@@ -0,0 +1,98 @@
+package com.example.mydemo.rxjava;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
+import android.arch.lifecycle.LifecycleOwner;
+import android.arch.lifecycle.OnLifecycleEvent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+
+/**
+ * 把请求绑定到Activity/Fragment的生命周期，页面销毁时取消请求。
+ * <p>
+ * Must be used on the main thread, like {@link Lifecycle#addObserver}.
+ */
+public class RequestLifecycle {
+
+    /**
+     * @return Dispose to stop watching the lifecycle once the request has finished.
+     */
+    public static Disposable disposeOnDestroy(LifecycleOwner owner, Disposable request) {
+        Binding binding = new Binding(owner.getLifecycle(), request);
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            request.dispose();
+            return binding;
+        }
+        owner.getLifecycle().addObserver(binding);
+        return binding;
+    }
+
+    /**
+     * 放在observeOn(mainThread)之后，使订阅和结束都在主线程
+     */
+    public static <T> ObservableTransformer<T, T> bindTo(final LifecycleOwner owner) {
+        return new ObservableTransformer<T, T>() {
+            @Override
+            public ObservableSource<T> apply(final Observable<T> upstream) {
+                return Observable.defer(new Callable<ObservableSource<T>>() {
+                    @Override
+                    public ObservableSource<T> call() throws Exception {
+                        final Disposable[] binding = new Disposable[1];
+                        return upstream
+                                .doOnSubscribe(new Consumer<Disposable>() {
+                                    @Override
+                                    public void accept(Disposable request) throws Exception {
+                                        binding[0] = disposeOnDestroy(owner, request);
+                                    }
+                                })
+                                .doFinally(new Action() {
+                                    @Override
+                                    public void run() throws Exception {
+                                        if (binding[0] != null) {
+                                            binding[0].dispose();
+                                        }
+                                    }
+                                });
+                    }
+                });
+            }
+        };
+    }
+
+    static final class Binding implements LifecycleObserver, Disposable {
+        private final Lifecycle mLifecycle;
+        private final Disposable mRequest;
+        private final AtomicBoolean mDisposed = new AtomicBoolean();
+
+        Binding(Lifecycle lifecycle, Disposable request) {
+            mLifecycle = lifecycle;
+            mRequest = request;
+        }
+
+        @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+        void onDestroy() {
+            mRequest.dispose();
+            dispose();
+        }
+
+        @Override
+        public void dispose() {
+            if (mDisposed.compareAndSet(false, true)) {
+                mLifecycle.removeObserver(this);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return mDisposed.get();
+        }
+    }
+}
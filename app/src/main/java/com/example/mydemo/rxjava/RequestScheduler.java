@@ -0,0 +1,223 @@
+package com.example.mydemo.rxjava;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * 按优先级执行网络请求的线程池。
+ * <p>
+ * A fixed number of threads shared by three lanes. Queued work is picked by lane, then in
+ * submission order, so prefetching never delays a request the user is waiting for once a thread
+ * frees up. Running work is not preempted; instead the lower lanes may only occupy part of the
+ * threads: {@link Priority#PREFETCH} half of them, and {@link Priority#VISIBLE} and
+ * {@link Priority#PREFETCH} together all but one, which is always left for
+ * {@link Priority#USER_BLOCKING}.
+ * <pre>
+ *     observable.subscribeOn(RequestScheduler.get(RequestScheduler.Priority.PREFETCH))
+ * </pre>
+ */
+public class RequestScheduler {
+
+    public enum Priority {
+        /**
+         * 用户正在等待的请求，例如显示了进度框
+         */
+        USER_BLOCKING,
+        /**
+         * 当前页面可见内容的请求
+         */
+        VISIBLE,
+        /**
+         * 预加载
+         */
+        PREFETCH
+    }
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile RequestScheduler sDefault;
+    private static final ThreadLocal<Scheduler> sCurrent = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor mExecutor;
+    private final Map<Priority, Scheduler> mSchedulers = new EnumMap<>(Priority.class);
+    private final AtomicLong mSequence = new AtomicLong();
+    // In priority order. The counters below and those of the lanes are guarded by mLanes.
+    private final Lane[] mLanes;
+    private final int mThreads;
+    private final int mMaxNonBlocking;
+    private int mTotalRunning;
+    private int mNonBlockingRunning;
+
+    public static Scheduler get(Priority priority) {
+        if (sDefault == null) {
+            synchronized (RequestScheduler.class) {
+                if (sDefault == null) {
+                    sDefault = new RequestScheduler(DEFAULT_THREADS);
+                }
+            }
+        }
+        return sDefault.scheduler(priority);
+    }
+
+    public RequestScheduler(int threads) {
+        mExecutor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new RequestThreadFactory());
+        mExecutor.allowCoreThreadTimeOut(true);
+        mThreads = threads;
+        mMaxNonBlocking = Math.max(1, threads - 1);
+        mLanes = new Lane[]{
+                new Lane(Priority.USER_BLOCKING, threads),
+                new Lane(Priority.VISIBLE, mMaxNonBlocking),
+                new Lane(Priority.PREFETCH, Math.max(1, threads / 2))
+        };
+        for (Lane lane : mLanes) {
+            mSchedulers.put(lane.mPriority, Schedulers.from(lane));
+        }
+    }
+
+    public Scheduler scheduler(Priority priority) {
+        return mSchedulers.get(priority);
+    }
+
+    /**
+     * The lane running the calling thread's work, e.g. to continue a request on it later; null if
+     * called from elsewhere.
+     */
+    public static Scheduler current() {
+        return sCurrent.get();
+    }
+
+    /**
+     * Hands work of one priority to the shared pool, holding it back while the lane is full or,
+     * below {@link Priority#USER_BLOCKING}, while the non-blocking lanes hold all they may. No
+     * more work than threads is handed over, so held back work is started in lane order.
+     */
+    private final class Lane implements Executor {
+        private final Priority mPriority;
+        private final int mMaxRunning;
+        private final ArrayDeque<Runnable> mWaiting = new ArrayDeque<>();
+        private int mRunning;
+
+        Lane(Priority priority, int maxRunning) {
+            mPriority = priority;
+            mMaxRunning = maxRunning;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            synchronized (mLanes) {
+                if (!canStart()) {
+                    mWaiting.add(command);
+                    return;
+                }
+                start();
+            }
+            submit(command);
+        }
+
+        private boolean isNonBlocking() {
+            return mPriority != Priority.USER_BLOCKING;
+        }
+
+        private boolean canStart() {
+            return mTotalRunning < mThreads && mRunning < mMaxRunning
+                    && (!isNonBlocking() || mNonBlockingRunning < mMaxNonBlocking);
+        }
+
+        private void start() {
+            mTotalRunning++;
+            mRunning++;
+            if (isNonBlocking())
+                mNonBlockingRunning++;
+        }
+
+        private void submit(final Runnable command) {
+            mExecutor.execute(new PrioritizedTask(mPriority, mSequence.getAndIncrement(), new Runnable() {
+                @Override
+                public void run() {
+                    sCurrent.set(mSchedulers.get(mPriority));
+                    try {
+                        command.run();
+                    } finally {
+                        sCurrent.remove();
+                        finished();
+                    }
+                }
+            }));
+        }
+
+        /**
+         * Frees the slot, then starts whatever it lets through, this lane or another.
+         */
+        private void finished() {
+            List<Lane> lanes = new ArrayList<>(1);
+            List<Runnable> commands = new ArrayList<>(1);
+            synchronized (mLanes) {
+                mTotalRunning--;
+                mRunning--;
+                if (isNonBlocking())
+                    mNonBlockingRunning--;
+                for (Lane lane : mLanes) {
+                    while (!lane.mWaiting.isEmpty() && lane.canStart()) {
+                        lane.start();
+                        lanes.add(lane);
+                        commands.add(lane.mWaiting.poll());
+                    }
+                }
+            }
+            for (int i = 0; i < commands.size(); i++) {
+                lanes.get(i).submit(commands.get(i));
+            }
+        }
+    }
+
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final Priority mPriority;
+        private final long mSequence;
+        private final Runnable mRunnable;
+
+        PrioritizedTask(Priority priority, long sequence, Runnable runnable) {
+            mPriority = priority;
+            mSequence = sequence;
+            mRunnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            mRunnable.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            if (mPriority != other.mPriority) {
+                return mPriority.compareTo(other.mPriority);
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+
+    private static final class RequestThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "api-request-" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.mydemo.rxjava;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import retrofit2.HttpException;
+
+/**
+ * 重试、退避与熔断。
+ * <p>
+ * Per endpoint (service method name):
+ * <ul>
+ * <li>network errors, 5xx and 429 are retried after an exponential backoff with full jitter;</li>
+ * <li>retries draw from a budget that successful calls refill, so a failing backend is not hit
+ * with several times its normal load;</li>
+ * <li>consecutive failures open a circuit breaker: calls fail fast with
+ * {@link CircuitOpenException}, or go to the fallback service (e.g. one that only reads the disk
+ * cache), until a single trial call after the open period succeeds.</li>
+ * </ul>
+ * Wrap the service below {@link RequestCoalescer} so that coalesced callers share one protected
+ * call.
+ */
+public class Resilience {
+    private static final int DEFAULT_MAX_RETRIES = 3;
+    private static final long DEFAULT_BASE_DELAY = 500;
+    private static final long DEFAULT_MAX_DELAY = 8000;
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final long DEFAULT_OPEN_TIME = 30000;
+    // Every success earns a tenth of a retry, with at most MAX_RETRY_TOKENS saved up.
+    private static final double RETRY_TOKENS_PER_SUCCESS = 0.1;
+    private static final double MAX_RETRY_TOKENS = 10;
+
+    private final Scheduler mScheduler;
+    private final Random mRandom;
+    private final Map<String, Endpoint> mEndpoints = new HashMap<>();
+    private int mMaxRetries = DEFAULT_MAX_RETRIES;
+    private long mBaseDelayMillis = DEFAULT_BASE_DELAY;
+    private long mMaxDelayMillis = DEFAULT_MAX_DELAY;
+    private int mFailureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private long mOpenMillis = DEFAULT_OPEN_TIME;
+
+    public Resilience() {
+        this(Schedulers.io(), new Random());
+    }
+
+    /**
+     * @param scheduler Runs the backoff timers and is the clock of the breakers, e.g. a TestScheduler.
+     *                  A request subscribed on a {@link RequestScheduler} lane is retried on that
+     *                  lane, any other from the timer's thread, which must then allow blocking calls.
+     */
+    public Resilience(Scheduler scheduler, Random random) {
+        mScheduler = scheduler;
+        mRandom = random;
+    }
+
+    public Resilience setMaxRetries(int maxRetries) {
+        mMaxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * The n-th retry waits a random time between 0 and min(maxDelay, baseDelay * 2^(n-1)).
+     */
+    public Resilience setBackoff(long baseDelay, long maxDelay, TimeUnit unit) {
+        mBaseDelayMillis = unit.toMillis(baseDelay);
+        mMaxDelayMillis = unit.toMillis(maxDelay);
+        return this;
+    }
+
+    /**
+     * @param failureThreshold Consecutive failures that open the breaker.
+     * @param openTime         How long calls fail fast before a trial call is let through.
+     */
+    public Resilience setCircuitBreaker(int failureThreshold, long openTime, TimeUnit unit) {
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = unit.toMillis(openTime);
+        return this;
+    }
+
+    /**
+     * Protect every method of a Retrofit service that returns an {@link Observable}.
+     *
+     * @param fallback Called with the same arguments while the breaker is open, may be null.
+     */
+    @SuppressWarnings("unchecked")
+    public <S> S wrap(Class<S> serviceClass, final S service, final S fallback) {
+        return (S) Proxy.newProxyInstance(serviceClass.getClassLoader(), new Class<?>[]{serviceClass},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, final Method method, final Object[] args) throws Throwable {
+                        if (method.getDeclaringClass() == Object.class || method.getReturnType() != Observable.class) {
+                            return invoke(service, method, args);
+                        }
+                        Observable<Object> upstream = (Observable<Object>) invoke(service, method, args);
+                        Observable<Object> fallbackUpstream = fallback == null
+                                ? null : (Observable<Object>) invoke(fallback, method, args);
+                        return protect(method.getName(), upstream, fallbackUpstream);
+                    }
+
+                    private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * @param upstream Resubscribed for every retry.
+     * @param fallback Used while the breaker is open, may be null.
+     */
+    public <T> Observable<T> protect(String endpoint, final Observable<T> upstream, final Observable<T> fallback) {
+        final Endpoint state = endpoint(endpoint);
+        final Observable<T> attempt = Observable.defer(new Callable<ObservableSource<T>>() {
+            @Override
+            public ObservableSource<T> call() throws Exception {
+                final CircuitState granted = state.allowRequest(now());
+                if (granted == CircuitState.OPEN) {
+                    return Observable.error(new CircuitOpenException(state.mName));
+                }
+                return upstream
+                        .doOnComplete(new Action() {
+                            @Override
+                            public void run() throws Exception {
+                                state.onSuccess();
+                            }
+                        })
+                        .doOnError(new Consumer<Throwable>() {
+                            @Override
+                            public void accept(Throwable error) throws Exception {
+                                if (isRetryable(error)) {
+                                    state.onFailure(now());
+                                } else {
+                                    state.onSuccess(); // The backend answered.
+                                }
+                            }
+                        })
+                        .doOnDispose(new Action() {
+                            @Override
+                            public void run() throws Exception {
+                                if (granted == CircuitState.HALF_OPEN) {
+                                    state.onTrialCancelled();
+                                }
+                            }
+                        });
+            }
+        });
+        return Observable.defer(new Callable<ObservableSource<T>>() {
+            @Override
+            public ObservableSource<T> call() throws Exception {
+                return retrying(attempt, state, RequestScheduler.current());
+            }
+        })
+                .onErrorResumeNext(new Function<Throwable, ObservableSource<T>>() {
+                    @Override
+                    public ObservableSource<T> apply(Throwable error) throws Exception {
+                        if (fallback == null || !(error instanceof CircuitOpenException)) {
+                            return Observable.error(error);
+                        }
+                        return fallback.onErrorResumeNext(Observable.<T>error(error));
+                    }
+                });
+    }
+
+    /**
+     * @param lane Where a retry is subscribed after its backoff, so that it waits for a thread of
+     *             the request's priority; null to retry from the timer's thread.
+     */
+    private <T> Observable<T> retrying(Observable<T> attempt, final Endpoint state, final Scheduler lane) {
+        return attempt.retryWhen(new Function<Observable<Throwable>, ObservableSource<?>>() {
+            @Override
+            public ObservableSource<?> apply(Observable<Throwable> errors) throws Exception {
+                return errors.flatMap(new Function<Throwable, ObservableSource<?>>() {
+                    private int mRetries;
+
+                    @Override
+                    public ObservableSource<?> apply(Throwable error) throws Exception {
+                        if (!isRetryable(error) || mRetries >= mMaxRetries || !state.withdrawRetry()) {
+                            return Observable.error(error);
+                        }
+                        mRetries++;
+                        Observable<Long> timer = Observable.timer(backoff(mRetries), TimeUnit.MILLISECONDS, mScheduler);
+                        return lane == null ? timer : timer.observeOn(lane);
+                    }
+                });
+            }
+        });
+    }
+
+    public CircuitState getState(String endpoint) {
+        return endpoint(endpoint).getState(now());
+    }
+
+    long backoff(int retry) {
+        long ceiling = Math.min(mMaxDelayMillis, mBaseDelayMillis << Math.min(retry - 1, 30));
+        return (long) (mRandom.nextDouble() * ceiling);
+    }
+
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof CircuitOpenException) {
+            return false;
+        }
+        if (error instanceof HttpException) {
+            int code = ((HttpException) error).code();
+            return code >= 500 || code == 429;
+        }
+        return error instanceof IOException;
+    }
+
+    private long now() {
+        return mScheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized Endpoint endpoint(String name) {
+        Endpoint endpoint = mEndpoints.get(name);
+        if (endpoint == null) {
+            endpoint = new Endpoint(name);
+            mEndpoints.put(name, endpoint);
+        }
+        return endpoint;
+    }
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 熔断中，请求没有发出
+     */
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException(String endpoint) {
+            super("Circuit breaker of " + endpoint + " is open");
+        }
+    }
+
+    private final class Endpoint {
+        private final String mName;
+        private int mFailures;
+        private long mOpenUntil;
+        private boolean mTrialInFlight;
+        private double mRetryTokens = MAX_RETRY_TOKENS;
+
+        Endpoint(String name) {
+            mName = name;
+        }
+
+        synchronized CircuitState getState(long now) {
+            if (mFailures < mFailureThreshold) {
+                return CircuitState.CLOSED;
+            }
+            return now < mOpenUntil || mTrialInFlight ? CircuitState.OPEN : CircuitState.HALF_OPEN;
+        }
+
+        /**
+         * @return OPEN if the request must not be made, HALF_OPEN if it is the trial.
+         */
+        synchronized CircuitState allowRequest(long now) {
+            CircuitState state = getState(now);
+            if (state == CircuitState.HALF_OPEN) {
+                mTrialInFlight = true;
+            }
+            return state;
+        }
+
+        synchronized void onSuccess() {
+            mFailures = 0;
+            mTrialInFlight = false;
+            mRetryTokens = Math.min(MAX_RETRY_TOKENS, mRetryTokens + RETRY_TOKENS_PER_SUCCESS);
+        }
+
+        synchronized void onFailure(long now) {
+            mFailures++;
+            mTrialInFlight = false;
+            if (mFailures >= mFailureThreshold) {
+                mOpenUntil = now + mOpenMillis;
+            }
+        }
+
+        synchronized void onTrialCancelled() {
+            mTrialInFlight = false;
+        }
+
+        synchronized boolean withdrawRetry() {
+            if (mRetryTokens < 1) {
+                return false;
+            }
+            mRetryTokens--;
+            return true;
+        }
+    }
+}
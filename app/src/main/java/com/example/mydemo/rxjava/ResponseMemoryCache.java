@@ -0,0 +1,133 @@
+package com.example.mydemo.rxjava;
+
+import android.util.LruCache;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.MediaType;
+
+/**
+ * 内存缓存，保存响应体的原始字节。
+ * <p>
+ * LRU of HTTP response bodies bounded by their byte size, filled by
+ * {@link MemoryCacheCallAdapterFactory}. The bodies are decoded again for every caller, so no
+ * two callers share a bean and each may modify what it gets.
+ */
+public class ResponseMemoryCache {
+
+    private final LruCache<String, Entry> mEntries;
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mStaleHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mRevalidationCount = new AtomicLong();
+    private final AtomicLong mNotModifiedCount = new AtomicLong();
+
+    /**
+     * @param maxBytes Sum of the body sizes of all entries.
+     */
+    public ResponseMemoryCache(int maxBytes) {
+        mEntries = new LruCache<String, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Entry entry) {
+                return entry.mBody.length;
+            }
+        };
+    }
+
+    Entry get(String key) {
+        return mEntries.get(key);
+    }
+
+    void put(String key, Entry entry) {
+        mEntries.put(key, entry);
+    }
+
+    void remove(String key) {
+        mEntries.remove(key);
+    }
+
+    public void evictAll() {
+        mEntries.evictAll();
+    }
+
+    /**
+     * 命中，且未过期
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * 命中过期数据，同时在后台重新验证
+     */
+    public long getStaleHitCount() {
+        return mStaleHitCount.get();
+    }
+
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    public long getRevalidationCount() {
+        return mRevalidationCount.get();
+    }
+
+    /**
+     * 重新验证时服务器返回304的次数
+     */
+    public long getNotModifiedCount() {
+        return mNotModifiedCount.get();
+    }
+
+    void onHit() {
+        mHitCount.incrementAndGet();
+    }
+
+    void onStaleHit() {
+        mStaleHitCount.incrementAndGet();
+    }
+
+    void onMiss() {
+        mMissCount.incrementAndGet();
+    }
+
+    void onRevalidation(boolean notModified) {
+        mRevalidationCount.incrementAndGet();
+        if (notModified) {
+            mNotModifiedCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseMemoryCache{size=" + mEntries.size() + "/" + mEntries.maxSize()
+                + ", hit=" + getHitCount() + ", staleHit=" + getStaleHitCount()
+                + ", miss=" + getMissCount() + ", revalidation=" + getRevalidationCount()
+                + ", notModified=" + getNotModifiedCount() + "}";
+    }
+
+    static final class Entry {
+        final byte[] mBody;
+        final MediaType mContentType;
+        final String mETag;
+        final String mLastModified;
+        final long mStaleAt;
+        final long mExpiresAt;
+        final AtomicBoolean mRevalidating = new AtomicBoolean();
+
+        Entry(byte[] body, MediaType contentType, String eTag, String lastModified, long staleAt,
+              long expiresAt) {
+            mBody = body;
+            mContentType = contentType;
+            mETag = eTag;
+            mLastModified = lastModified;
+            mStaleAt = staleAt;
+            mExpiresAt = expiresAt;
+        }
+
+        boolean hasValidators() {
+            return mETag != null || mLastModified != null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.bean.Subjects;
+import com.example.mydemo.utils.GsonUtil;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.reactivestreams.Publisher;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * 流式解析 top250 的 subjects。
+ * <p>
+ * Reads a {@code @Streaming} top250 body with a {@link JsonReader} and emits every
+ * {@link Subjects} as soon as it has been parsed, so the first rows can be shown while the
+ * rest of the body is still downloading. Items are parsed on demand: the reader only moves on
+ * as far as downstream has requested, and a slow consumer leaves the rest of the body in the
+ * socket instead of in memory.
+ */
+public class SubjectsStreamDecoder {
+    private static final String SUBJECTS = "subjects";
+
+    private final TypeAdapter<Subjects> mAdapter;
+
+    public SubjectsStreamDecoder() {
+        this(GsonUtil.getGson());
+    }
+
+    public SubjectsStreamDecoder(Gson gson) {
+        mAdapter = gson.getAdapter(Subjects.class);
+    }
+
+    /**
+     * @param call Executed on the first request, on the thread that requests; cancelled on cancel.
+     */
+    public Flowable<Subjects> decode(final Call<ResponseBody> call) {
+        return Flowable.using(new Callable<Call<ResponseBody>>() {
+            @Override
+            public Call<ResponseBody> call() throws Exception {
+                return call.isExecuted() ? call.clone() : call;
+            }
+        }, new Function<Call<ResponseBody>, Publisher<Subjects>>() {
+            @Override
+            public Publisher<Subjects> apply(final Call<ResponseBody> request) throws Exception {
+                return Flowable.generate(new Callable<Stream>() {
+                    @Override
+                    public Stream call() throws Exception {
+                        return new Stream(request);
+                    }
+                }, new BiFunction<Stream, Emitter<Subjects>, Stream>() {
+                    @Override
+                    public Stream apply(Stream stream, Emitter<Subjects> emitter) throws Exception {
+                        // One item per call, only while there is demand.
+                        Subjects subjects = stream.next();
+                        if (subjects == null) {
+                            emitter.onComplete();
+                        } else {
+                            emitter.onNext(subjects);
+                        }
+                        return stream;
+                    }
+                }, new Consumer<Stream>() {
+                    @Override
+                    public void accept(Stream stream) throws Exception {
+                        stream.close();
+                    }
+                });
+            }
+        }, new Consumer<Call<ResponseBody>>() {
+            @Override
+            public void accept(Call<ResponseBody> request) throws Exception {
+                // Unblocks a read in progress on another thread.
+                request.cancel();
+            }
+        });
+    }
+
+    /**
+     * The body being read, positioned after the last emitted item.
+     */
+    private final class Stream {
+        private final Call<ResponseBody> mCall;
+        private ResponseBody mBody;
+        private JsonReader mReader;
+        private boolean mInSubjects;
+
+        Stream(Call<ResponseBody> call) {
+            mCall = call;
+        }
+
+        /**
+         * @return null at the end of the body, or once the call was cancelled.
+         */
+        Subjects next() throws IOException {
+            try {
+                if (mReader == null && !open()) {
+                    return null;
+                }
+                return read();
+            } catch (IOException e) {
+                if (mCall.isCanceled()) {
+                    return null; // Cancelled while reading, nobody is listening.
+                }
+                throw e;
+            }
+        }
+
+        private boolean open() throws IOException {
+            Response<ResponseBody> response = mCall.execute();
+            if (!response.isSuccessful()) {
+                throw new HttpException(response);
+            }
+            mBody = response.body();
+            if (mBody == null) {
+                return false;
+            }
+            mReader = new JsonReader(mBody.charStream());
+            mReader.beginObject();
+            return true;
+        }
+
+        private Subjects read() throws IOException {
+            while (true) {
+                if (mInSubjects) {
+                    if (mReader.hasNext()) {
+                        Subjects subjects = mAdapter.read(mReader);
+                        if (subjects != null) {
+                            return subjects;
+                        }
+                        continue;
+                    }
+                    mReader.endArray();
+                    mInSubjects = false;
+                }
+                if (!mReader.hasNext()) {
+                    mReader.endObject();
+                    return null;
+                }
+                if (SUBJECTS.equals(mReader.nextName()) && mReader.peek() == JsonToken.BEGIN_ARRAY) {
+                    mReader.beginArray();
+                    mInSubjects = true;
+                } else {
+                    mReader.skipValue();
+                }
+            }
+        }
+
+        void close() {
+            if (mBody != null) {
+                mBody.close();
+            }
+        }
+    }
+}
@@ -31,6 +31,8 @@ interface CRUD<T> {
 
     void set(int location, T item);
 
+    void set(int location, T item, int changedFields);
+
     void replaceAll(List<T> items);
 
     boolean contains(T item);
@@ -40,4 +42,6 @@ interface CRUD<T> {
     void clear();
 
     void diff(DefaultDiffCallback<T> callback);
+
+    void diff(DefaultDiffCallback<T> callback, OnDiffCommittedListener<T> listener);
 }
@@ -50,9 +50,42 @@ public abstract class DefaultDiffCallback<T> extends DiffUtil.Callback {
 
     public abstract boolean areContentsTheSame(int oldItemPosition, int newItemPosition);
 
+    /**
+     * Report which fields of an item changed, called only when
+     * {@link #areItemsTheSame(int, int)} is true and {@link #areContentsTheSame(int, int)} is false.
+     *
+     * @return Bitmask of your own field flags, or 0 to rebind the whole item.
+     */
+    public int getChangedFields(int oldItemPosition, int newItemPosition) {
+        return 0;
+    }
+
+    /**
+     * Wraps {@link #getChangedFields(int, int)} so that the adapter receives it in
+     * {@link IViewBindData#onBind(Object, int, int, Object, List)}.
+     */
     @Nullable
     @Override
     public Object getChangePayload(int oldItemPosition, int newItemPosition) {
-        return super.getChangePayload(oldItemPosition, newItemPosition);
+        int changedFields = getChangedFields(oldItemPosition, newItemPosition);
+        return changedFields == 0 ? null : changedFields;
+    }
+
+    /**
+     * Merge all field flags delivered to a partial bind.
+     *
+     * @param payloads Payloads passed to {@link IViewBindData#onBind(Object, int, int, Object, List)}.
+     * @return Union of the bitmasks, or 0 if any payload asks for a full rebind.
+     */
+    public static int mergeChangedFields(List<Object> payloads) {
+        int fields = 0;
+        for (int i = 0, size = payloads.size(); i < size; i++) {
+            Object payload = payloads.get(i);
+            if (!(payload instanceof Integer)) {
+                return 0;
+            }
+            fields |= (Integer) payload;
+        }
+        return fields;
     }
 }
@@ -20,6 +20,8 @@ interface IAnimation {
 
     void setOnlyOnce(boolean onlyOnce);
 
+    void setAnimationVelocityThreshold(int pixelsPerSecond);
+
     void addLoadAnimation(RecyclerView.ViewHolder holder);
 
 }
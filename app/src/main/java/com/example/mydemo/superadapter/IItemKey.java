@@ -0,0 +1,14 @@
+package com.example.mydemo.superadapter;
+
+/**
+ * Extracts a stable key from an item, used as the RecyclerView stable id and by the keyed
+ * {@link SuperAdapter#replaceAll(java.util.List)}.
+ */
+public interface IItemKey<T> {
+
+    /**
+     * @param item model item
+     * @return A key that is unique within the list and does not change when the item is refreshed.
+     */
+    long getItemKey(T item);
+}
@@ -0,0 +1,27 @@
+package com.example.mydemo.superadapter;
+
+import java.util.List;
+
+/**
+ * Loads fixed-size pages for a {@link PagedList}.
+ */
+public interface IPageLoader<T> {
+
+    /**
+     * Start loading a page, usually asynchronously.
+     *
+     * @param page     Zero-based page index.
+     * @param pageSize Number of items requested.
+     * @param callback Must be called exactly once, from any thread.
+     */
+    void loadPage(int page, int pageSize, Callback<T> callback);
+
+    interface Callback<T> {
+        /**
+         * @param items Loaded items, fewer than pageSize means this is the last page.
+         */
+        void onPageLoaded(List<T> items);
+
+        void onPageFailed(Throwable throwable);
+    }
+}
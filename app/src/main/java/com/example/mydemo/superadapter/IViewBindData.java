@@ -4,6 +4,8 @@ import android.support.annotation.Nullable;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.List;
+
 /**
  * Create and bind data to item view.
  * <p>
@@ -28,4 +30,17 @@ interface IViewBindData<T, VH> {
      * @param item           data
      */
     void onBind(VH holder, int viewType, int layoutPosition, T item);
+
+    /**
+     * Method for partial binding, only called with a non-empty payload list, e.g. the changed
+     * fields reported by {@link DefaultDiffCallback#getChangedFields(int, int)}. Update only the
+     * affected child views here; the default implementation falls back to a full bind.
+     *
+     * @param holder         ViewHolder
+     * @param viewType       {@link RecyclerSupportAdapter#getItemViewType(int)}
+     * @param layoutPosition position
+     * @param item           data
+     * @param payloads       Non-empty payloads, see {@link DefaultDiffCallback#mergeChangedFields(List)}.
+     */
+    void onBind(VH holder, int viewType, int layoutPosition, T item, List<Object> payloads);
 }
@@ -0,0 +1,294 @@
+package com.example.mydemo.superadapter;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keyed reconciliation between two lists, used instead of {@link android.support.v7.util.DiffUtil}
+ * when every item has a unique key.
+ * <p>
+ * Removes, inserts and changes are found with hash lookups in O(N), on primitive keys so that
+ * nothing is boxed; the temporary arrays take under 100 bytes per item. Items that keep their relative
+ * order are the longest increasing subsequence of their new positions, so only the rest are moved,
+ * which is the minimal number of moves; this step and the position bookkeeping are O(N log N).
+ * Adjacent removes, inserts and changes are merged into range notifications.
+ */
+final class KeyedDiff {
+
+    private KeyedDiff() {
+    }
+
+    /**
+     * @return false without dispatching anything if either list contains a duplicated key.
+     */
+    static <T> boolean dispatch(List<T> oldList, List<T> newList, IItemKey<T> itemKey,
+                                ListUpdateCallback callback) {
+        return dispatch(keys(oldList, itemKey), keys(newList, itemKey), oldList, newList, callback);
+    }
+
+    /**
+     * Same for bare keys, e.g. entity ids: removes, moves and inserts only, no changes.
+     *
+     * @return false without dispatching anything if either array contains a duplicated key.
+     */
+    static boolean dispatch(long[] oldKeys, long[] newKeys, ListUpdateCallback callback) {
+        return dispatch(oldKeys, newKeys, null, null, callback);
+    }
+
+    private static <T> long[] keys(List<T> list, IItemKey<T> itemKey) {
+        long[] keys = new long[list.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = itemKey.getItemKey(list.get(i));
+        }
+        return keys;
+    }
+
+    /**
+     * @param oldList Items of oldKeys to find changes, null to skip them.
+     */
+    private static <T> boolean dispatch(long[] oldKeys, long[] newKeys, @Nullable List<T> oldList,
+                                        @Nullable List<T> newList, ListUpdateCallback callback) {
+        final int oldSize = oldKeys.length;
+        final int newSize = newKeys.length;
+
+        KeyIndex newIndexOf = new KeyIndex(newSize);
+        for (int i = 0; i < newSize; i++) {
+            if (!newIndexOf.put(newKeys[i], i)) {
+                return false;
+            }
+        }
+        // Target index of every old item, -1 if removed.
+        int[] targetOf = new int[oldSize];
+        // Old index of every new item, -1 if inserted.
+        int[] sourceOf = new int[newSize];
+        Arrays.fill(sourceOf, -1);
+        int commonSize = 0;
+        for (int i = 0; i < oldSize; i++) {
+            int target = newIndexOf.get(oldKeys[i]);
+            if (target == -1) {
+                targetOf[i] = -1;
+            } else if (sourceOf[target] != -1) {
+                return false;
+            } else {
+                targetOf[i] = target;
+                sourceOf[target] = i;
+                commonSize++;
+            }
+        }
+
+        // 1. Removes, from the end so that earlier positions stay valid.
+        for (int i = oldSize - 1; i >= 0; ) {
+            if (targetOf[i] != -1) {
+                i--;
+                continue;
+            }
+            int end = i;
+            while (i >= 0 && targetOf[i] == -1) {
+                i--;
+            }
+            callback.onRemoved(i + 1, end - i);
+        }
+
+        // 2. Kept items in old order, described by their target index.
+        int[] common = new int[commonSize];
+        for (int i = 0, c = 0; i < oldSize; i++) {
+            if (targetOf[i] != -1) {
+                common[c++] = targetOf[i];
+            }
+        }
+        boolean[] stable = longestIncreasing(common, newSize);
+
+        // 3. Lay out slots: within each gap between stable items, old positions of moved items
+        // come first, then the new positions of moved and inserted items, then the stable item.
+        int[] oldSlot = new int[newSize];
+        int[] newSlot = new int[newSize];
+        int slot = 0;
+        int ci = 0;
+        int ni = 0;
+        while (ci < commonSize || ni < newSize) {
+            while (ci < commonSize && !stable[common[ci]]) {
+                oldSlot[common[ci++]] = slot++;
+            }
+            while (ni < newSize && !stable[ni]) {
+                newSlot[ni++] = slot++;
+            }
+            if (ci < commonSize) { // common[ci] == ni, the stable item closing this gap
+                newSlot[ni++] = slot++;
+                ci++;
+            }
+        }
+        Presence presence = new Presence(slot);
+        for (int t = 0; t < newSize; t++) {
+            if (stable[t]) {
+                presence.add(newSlot[t], 1);
+            } else if (sourceOf[t] != -1) {
+                presence.add(oldSlot[t], 1);
+            }
+        }
+
+        // 4. Moves and inserts, last target first, each right before its already placed successor.
+        for (int t = newSize - 1; t >= 0; ) {
+            if (stable[t]) {
+                t--;
+            } else if (sourceOf[t] != -1) {
+                int from = presence.countBefore(oldSlot[t]);
+                presence.add(oldSlot[t], -1);
+                int to = presence.countBefore(newSlot[t]);
+                presence.add(newSlot[t], 1);
+                if (from != to) {
+                    callback.onMoved(from, to);
+                }
+                t--;
+            } else {
+                int end = t;
+                while (t >= 0 && !stable[t] && sourceOf[t] == -1) {
+                    presence.add(newSlot[t], 1);
+                    t--;
+                }
+                callback.onInserted(presence.countBefore(newSlot[t + 1]), end - t);
+            }
+        }
+
+        // 5. Changes at their final positions.
+        if (oldList == null || newList == null) {
+            return true;
+        }
+        for (int t = 0; t < newSize; ) {
+            if (!isChanged(oldList, newList, sourceOf[t], t)) {
+                t++;
+                continue;
+            }
+            int start = t;
+            while (t < newSize && isChanged(oldList, newList, sourceOf[t], t)) {
+                t++;
+            }
+            callback.onChanged(start, t - start, null);
+        }
+        return true;
+    }
+
+    private static <T> boolean isChanged(List<T> oldList, List<T> newList, int source, int target) {
+        if (source == -1) {
+            return false;
+        }
+        T oldItem = oldList.get(source);
+        T newItem = newList.get(target);
+        return oldItem != newItem && (oldItem == null || !oldItem.equals(newItem));
+    }
+
+    /**
+     * @param sequence Distinct values in [0, range).
+     * @return Flags indexed by value, true for the values of one longest increasing subsequence.
+     */
+    private static boolean[] longestIncreasing(int[] sequence, int range) {
+        int n = sequence.length;
+        int[] tails = new int[n]; // index into sequence of the smallest tail for each length
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sequence[tails[mid]] < sequence[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        boolean[] stable = new boolean[range];
+        for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = previous[i]) {
+            stable[sequence[i]] = true;
+        }
+        return stable;
+    }
+
+    /**
+     * Open addressing map from key to index, without boxing.
+     */
+    private static final class KeyIndex {
+        private final long[] keys;
+        private final int[] indexes; // index + 1, 0 for a free slot
+        private final int mask;
+
+        KeyIndex(int size) {
+            int capacity = 2;
+            while (capacity < size * 2) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            indexes = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * @return false if the key is already there.
+         */
+        boolean put(long key, int index) {
+            for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+                if (indexes[slot] == 0) {
+                    keys[slot] = key;
+                    indexes[slot] = index + 1;
+                    return true;
+                }
+                if (keys[slot] == key) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * @return -1 if the key is not there.
+         */
+        int get(long key) {
+            for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+                if (indexes[slot] == 0) {
+                    return -1;
+                }
+                if (keys[slot] == key) {
+                    return indexes[slot] - 1;
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            // Sequential ids would fill neighbouring slots, spread them.
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+
+    /**
+     * Fenwick tree counting the slots currently holding an item.
+     */
+    private static final class Presence {
+        private final int[] tree;
+
+        Presence(int size) {
+            tree = new int[size + 1];
+        }
+
+        void add(int slot, int delta) {
+            for (int i = slot + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        int countBefore(int slot) {
+            int count = 0;
+            for (int i = slot; i > 0; i -= i & -i) {
+                count += tree[i];
+            }
+            return count;
+        }
+    }
+}
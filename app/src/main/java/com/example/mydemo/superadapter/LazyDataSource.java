@@ -0,0 +1,131 @@
+package com.example.mydemo.superadapter;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.AbstractList;
+
+/**
+ * Read-only list whose items are materialized as they are bound, e.g. {@link PagedList}.
+ * <p>
+ * Pass it to {@link RecyclerSupportAdapter#setDataSource(LazyDataSource)}. The adapter reports
+ * every bound position through {@link #loadAround(int)} and forwards the changes a subclass
+ * notifies, offset by the header. Subclasses start and stop listening to their source in
+ * {@link #onAttached()} and {@link #onDetached()}. All methods must be called on the main thread.
+ */
+public abstract class LazyDataSource<T> extends AbstractList<T> {
+    private ListUpdateCallback mCallback;
+    // Target of precomputed diffs, whichever callback is set when they are notified.
+    private final ListUpdateCallback mForwarder = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifyItemRangeChanged(position, count);
+        }
+    };
+
+    /**
+     * Prefetch hook, called for every bound position.
+     */
+    public void loadAround(int index) {
+    }
+
+    /**
+     * Connects the list to an adapter, or to a recorder in tests; null disconnects it.
+     */
+    public final void setCallback(ListUpdateCallback callback) {
+        boolean wasAttached = mCallback != null;
+        mCallback = callback;
+        if (callback != null && !wasAttached) {
+            onAttached();
+        } else if (callback == null && wasAttached) {
+            onDetached();
+        }
+    }
+
+    public final boolean isAttached() {
+        return mCallback != null;
+    }
+
+    protected void onAttached() {
+    }
+
+    protected void onDetached() {
+    }
+
+    protected final void notifyItemRangeInserted(int start, int count) {
+        if (mCallback != null)
+            mCallback.onInserted(start, count);
+    }
+
+    protected final void notifyItemRangeRemoved(int start, int count) {
+        if (mCallback != null)
+            mCallback.onRemoved(start, count);
+    }
+
+    protected final void notifyItemRangeChanged(int start, int count) {
+        if (mCallback != null)
+            mCallback.onChanged(start, count, null);
+    }
+
+    protected final void notifyItemMoved(int from, int to) {
+        if (mCallback != null)
+            mCallback.onMoved(from, to);
+    }
+
+    /**
+     * Notify the minimal removes, moves and inserts turning oldKeys into newKeys, see {@link KeyedDiff}.
+     * Call after the list already reflects newKeys.
+     *
+     * @return false without notifying anything if a key is duplicated.
+     */
+    protected final boolean notifyKeyedDiff(long[] oldKeys, long[] newKeys) {
+        if (mCallback == null)
+            return true;
+        return KeyedDiff.dispatch(oldKeys, newKeys, mCallback);
+    }
+
+    /**
+     * {@link #notifyKeyedDiff(long[], long[])} in two steps, so the diff of a large list can be computed
+     * on the thread that loaded the keys. Unlike the other methods this one is safe on any thread.
+     *
+     * @return The notifications for {@link #notifyDiff(Diff)}, null if a key is duplicated.
+     */
+    protected final Diff diffKeys(long[] oldKeys, long[] newKeys) {
+        MutationBatch batch = new MutationBatch(mForwarder);
+        if (!KeyedDiff.dispatch(oldKeys, newKeys, batch.recorder()))
+            return null;
+        return new Diff(batch);
+    }
+
+    /**
+     * Notify a diff from {@link #diffKeys(long[], long[])}, after the list already reflects its new keys.
+     */
+    protected final void notifyDiff(Diff diff) {
+        diff.mBatch.dispatch(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes, moves and inserts computed by {@link #diffKeys(long[], long[])}.
+     */
+    protected static final class Diff {
+        private final MutationBatch mBatch;
+
+        private Diff(MutationBatch batch) {
+            mBatch = batch;
+        }
+    }
+}
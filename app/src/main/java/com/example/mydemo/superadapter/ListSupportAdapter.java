@@ -64,6 +64,7 @@ abstract class ListSupportAdapter<T> extends RecyclerSupportAdapter<T>
         mDataSetObservable.unregisterObserver(observer);
     }
 
+    @Override
     public void notifyDataSetHasChanged() {
         if (mRecyclerView == null) {
             mDataSetObservable.notifyChanged();
@@ -112,6 +113,7 @@ abstract class ListSupportAdapter<T> extends RecyclerSupportAdapter<T>
             mAbsListView = (AbsListView) parent;
         }
         SuperViewHolder holder = onCreate(convertView, parent, getItemViewType(position));
+        onItemBound(position);
         T item = getItem(position);
         onBind(holder, getItemViewType(position), position, item);
         addLoadAnimation(holder); // Load animation
@@ -0,0 +1,108 @@
+package com.example.mydemo.superadapter;
+
+import android.support.v7.util.BatchingListUpdateCallback;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notifications recorded between {@link SuperAdapter#beginBatch()} and
+ * {@link SuperAdapter#commitBatch()}. Adjacent operations of the same kind are merged by
+ * {@link BatchingListUpdateCallback} before they are stored.
+ */
+final class MutationBatch {
+    private static final int INSERTED = 0;
+    private static final int REMOVED = 1;
+    private static final int MOVED = 2;
+    private static final int CHANGED = 3;
+
+    private final ListUpdateCallback mTarget;
+    private final List<Op> mOps = new ArrayList<>();
+    private final BatchingListUpdateCallback mRecorder = new BatchingListUpdateCallback(new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            mOps.add(new Op(INSERTED, position, count, null));
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mOps.add(new Op(REMOVED, position, count, null));
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mOps.add(new Op(MOVED, fromPosition, toPosition, null));
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mOps.add(new Op(CHANGED, position, count, payload));
+        }
+    });
+    private boolean mInvalidated;
+
+    /**
+     * @param target Where the merged operations are dispatched on commit.
+     */
+    MutationBatch(ListUpdateCallback target) {
+        mTarget = target;
+    }
+
+    ListUpdateCallback recorder() {
+        return mRecorder;
+    }
+
+    /**
+     * Some mutation can not be described by ranges, the whole list must be refreshed.
+     */
+    void invalidate() {
+        mInvalidated = true;
+    }
+
+    boolean isEmpty() {
+        mRecorder.dispatchLastEvent();
+        return !mInvalidated && mOps.isEmpty();
+    }
+
+    /**
+     * @return false without dispatching anything if a full refresh is needed instead.
+     */
+    boolean dispatch(int threshold) {
+        mRecorder.dispatchLastEvent();
+        if (mInvalidated || mOps.size() > threshold) {
+            return false;
+        }
+        for (Op op : mOps) {
+            switch (op.type) {
+                case INSERTED:
+                    mTarget.onInserted(op.first, op.second);
+                    break;
+                case REMOVED:
+                    mTarget.onRemoved(op.first, op.second);
+                    break;
+                case MOVED:
+                    mTarget.onMoved(op.first, op.second);
+                    break;
+                default:
+                    mTarget.onChanged(op.first, op.second, op.payload);
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private static final class Op {
+        final int type;
+        final int first;
+        final int second;
+        final Object payload;
+
+        Op(int type, int first, int second, Object payload) {
+            this.type = type;
+            this.first = first;
+            this.second = second;
+            this.payload = payload;
+        }
+    }
+}
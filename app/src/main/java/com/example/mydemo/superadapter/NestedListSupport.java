@@ -0,0 +1,97 @@
+package com.example.mydemo.superadapter;
+
+import android.os.Parcelable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+/**
+ * State shared by the nested RecyclerViews of one adapter, see
+ * {@link RecyclerSupportAdapter#enableNestedListSupport(int)}.
+ * <p>
+ * Nested lists with the same view id share one {@link RecyclerView.RecycledViewPool}, and their
+ * scroll position is kept per parent item, keyed by stable id or by position. Only the positions
+ * of the {@link #MAX_STATES} most recently used items are kept per view id.
+ */
+final class NestedListSupport {
+    static final int MAX_STATES = 100;
+
+    private final int mInitialPrefetchItemCount;
+    private final SparseArray<RecyclerView.RecycledViewPool> mPools = new SparseArray<>();
+    private final SparseArray<LruCache<Long, Parcelable>> mStates = new SparseArray<>();
+
+    NestedListSupport(int initialPrefetchItemCount) {
+        mInitialPrefetchItemCount = initialPrefetchItemCount;
+    }
+
+    /**
+     * Prepare a nested list before its adapter is set.
+     */
+    void attach(RecyclerView view, int viewId) {
+        RecyclerView.RecycledViewPool pool = mPools.get(viewId);
+        if (pool == null) {
+            pool = new RecyclerView.RecycledViewPool();
+            mPools.put(viewId, pool);
+        }
+        if (view.getRecycledViewPool() != pool) {
+            view.setRecycledViewPool(pool);
+        }
+        RecyclerView.LayoutManager layoutManager = view.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+            // Give the children back to the shared pool when the row is recycled.
+            linearLayoutManager.setRecycleChildrenOnDetach(true);
+            if (mInitialPrefetchItemCount > 0) {
+                linearLayoutManager.setInitialPrefetchItemCount(mInitialPrefetchItemCount);
+            }
+        }
+    }
+
+    /**
+     * Restore the scroll position saved for this parent item, or go back to the start.
+     */
+    void restore(RecyclerView view, int viewId, long itemKey) {
+        RecyclerView.LayoutManager layoutManager = view.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        LruCache<Long, Parcelable> states = mStates.get(viewId);
+        Parcelable state = states == null ? null : states.get(itemKey);
+        if (state != null) {
+            layoutManager.onRestoreInstanceState(state);
+        } else {
+            layoutManager.scrollToPosition(0);
+        }
+    }
+
+    void save(RecyclerView view, int viewId, long itemKey) {
+        RecyclerView.LayoutManager layoutManager = view.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        LruCache<Long, Parcelable> states = mStates.get(viewId);
+        if (states == null) {
+            states = new LruCache<>(MAX_STATES);
+            mStates.put(viewId, states);
+        }
+        Parcelable state = layoutManager.onSaveInstanceState();
+        if (state != null) {
+            states.put(itemKey, state);
+        } else {
+            states.remove(itemKey);
+        }
+    }
+
+    int stateCount(int viewId) {
+        LruCache<Long, Parcelable> states = mStates.get(viewId);
+        return states == null ? 0 : states.size();
+    }
+
+    /**
+     * Forget saved positions, e.g. after the parent data was replaced.
+     */
+    void clearStates() {
+        mStates.clear();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.mydemo.superadapter;
+
+import java.util.List;
+
+/**
+ * Callback invoked on the main thread once an asynchronous diff has been applied.
+ */
+public interface OnDiffCommittedListener<T> {
+    void onDiffCommitted(List<T> newList);
+}
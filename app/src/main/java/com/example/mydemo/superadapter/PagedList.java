@@ -0,0 +1,167 @@
+package com.example.mydemo.superadapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.util.List;
+
+/**
+ * Read-only list that loads pages on demand and keeps only a window of them in memory.
+ * <p>
+ * Pass it to {@link RecyclerSupportAdapter#setPagedList(PagedList)}. The adapter reports every
+ * bound position through {@link #loadAround(int)}, which loads pages near that position and
+ * evicts pages outside the window. Positions of pages that are not resident return null, so
+ * {@link IViewBindData#onBind(Object, int, int, Object)} must draw a placeholder for a null item.
+ * All methods must be called on the main thread.
+ */
+public class PagedList<T> extends LazyDataSource<T> {
+    private static final String TAG = "PagedList";
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final IPageLoader<T> mLoader;
+    private final int mPageSize;
+    private final int mPrefetchDistance;
+    private final int mWindowPages;
+
+    private final SparseArray<List<T>> mPages = new SparseArray<>();
+    private final SparseArray<Boolean> mLoading = new SparseArray<>();
+    private int mSize;
+    private boolean mEndReached;
+    private int mGeneration; // Bumped by refresh() to drop in-flight loads.
+
+    /**
+     * @param loader           Page loader.
+     * @param pageSize         Items per page.
+     * @param prefetchDistance Load the next or previous page when a bound position is this close to it.
+     * @param windowPages      Maximum resident pages, at least 3.
+     */
+    public PagedList(IPageLoader<T> loader, int pageSize, int prefetchDistance, int windowPages) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive.");
+        mLoader = loader;
+        mPageSize = pageSize;
+        mPrefetchDistance = Math.max(0, prefetchDistance);
+        mWindowPages = Math.max(3, windowPages);
+    }
+
+    /**
+     * Item count, including placeholders for evicted pages. Grows as pages are appended.
+     */
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return The item, or null if its page is not resident.
+     */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= mSize)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        List<T> page = mPages.get(index / mPageSize);
+        return page == null ? null : page.get(index % mPageSize);
+    }
+
+    public boolean isPlaceholder(int index) {
+        return mPages.get(index / mPageSize) == null;
+    }
+
+    public boolean isEndReached() {
+        return mEndReached;
+    }
+
+    @Override
+    public void loadAround(int index) {
+        int page = index / mPageSize;
+        int offset = index % mPageSize;
+        loadPage(page);
+        if (offset >= mPageSize - mPrefetchDistance)
+            loadPage(page + 1);
+        if (offset < mPrefetchDistance && page > 0)
+            loadPage(page - 1);
+        evictOutside(page);
+    }
+
+    /**
+     * Drop all pages and start again from the first one, e.g. for pull to refresh.
+     */
+    public void refresh() {
+        int oldSize = mSize;
+        mPages.clear();
+        mLoading.clear();
+        mSize = 0;
+        mEndReached = false;
+        mGeneration++;
+        if (oldSize > 0)
+            notifyItemRangeRemoved(0, oldSize);
+        loadPage(0);
+    }
+
+    private void loadPage(final int page) {
+        int loadedPages = (mSize + mPageSize - 1) / mPageSize;
+        if (page > loadedPages || (page == loadedPages && mEndReached))
+            return; // Pages are appended in order.
+        if (mPages.get(page) != null || mLoading.get(page) != null)
+            return;
+        mLoading.put(page, Boolean.TRUE);
+        final int generation = mGeneration;
+        mLoader.loadPage(page, mPageSize, new IPageLoader.Callback<T>() {
+            @Override
+            public void onPageLoaded(final List<T> items) {
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration)
+                            return; // Refreshed meanwhile.
+                        mLoading.remove(page);
+                        onLoaded(page, items);
+                    }
+                });
+            }
+
+            @Override
+            public void onPageFailed(Throwable throwable) {
+                Log.w(TAG, "Failed to load page " + page, throwable);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration)
+                            mLoading.remove(page); // Retried on the next bind.
+                    }
+                });
+            }
+        });
+    }
+
+    private void onLoaded(int page, List<T> items) {
+        int start = page * mPageSize;
+        int count = Math.min(items.size(), mPageSize);
+        boolean appended = start >= mSize;
+        if (!appended && count < mPageSize && start + count < mSize) {
+            Log.w(TAG, "Page " + page + " shrank, the source changed.");
+            return;
+        }
+        mPages.put(page, items);
+        if (count < mPageSize)
+            mEndReached = true;
+        if (appended)
+            mSize = start + count;
+        if (appended) {
+            if (count > 0)
+                notifyItemRangeInserted(start, count);
+        } else {
+            notifyItemRangeChanged(start, count); // Placeholders replaced.
+        }
+    }
+
+    private void evictOutside(int page) {
+        int half = mWindowPages / 2;
+        for (int i = mPages.size() - 1; i >= 0; i--) {
+            if (Math.abs(mPages.keyAt(i) - page) > half)
+                mPages.removeAt(i);
+        }
+    }
+}
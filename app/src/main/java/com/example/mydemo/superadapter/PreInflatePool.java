@@ -0,0 +1,141 @@
+package com.example.mydemo.superadapter;
+
+import android.support.annotation.LayoutRes;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Item views inflated ahead of time on a background thread, handed out per view type.
+ * <p>
+ * Layouts whose views need a Looper in their constructors (e.g. WebView) can not be inflated
+ * here; a failure disables pre-inflation for that type and {@link #obtain(int)} keeps
+ * returning null, so callers fall back to synchronous inflation.
+ */
+public class PreInflatePool {
+    private static final String TAG = "PreInflatePool";
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private static final ExecutorService INFLATE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "SuperAdapter-inflate");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // Only used on the inflate thread. LayoutInflater is not thread-safe, so this is a clone.
+    private final LayoutInflater mInflater;
+    private final SparseArray<ArrayDeque<View>> mPool = new SparseArray<>();
+    private final SparseIntArray mCapacity = new SparseIntArray();
+    /** Views requested but not inflated yet, per type. */
+    private final SparseIntArray mPending = new SparseIntArray();
+    private final SparseIntArray mFailed = new SparseIntArray();
+
+    /**
+     * @param inflater Cloned for the inflate thread, with its context and factories.
+     */
+    public PreInflatePool(LayoutInflater inflater) {
+        mInflater = inflater.cloneInContext(inflater.getContext());
+    }
+
+    /**
+     * @param viewType View type.
+     * @param capacity Maximum idle views kept for this type, 8 by default.
+     */
+    public synchronized void setCapacity(int viewType, int capacity) {
+        mCapacity.put(viewType, Math.max(0, capacity));
+        ArrayDeque<View> views = mPool.get(viewType);
+        while (views != null && views.size() > capacity) {
+            views.pollLast();
+        }
+    }
+
+    /**
+     * Inflate up to {@code count} views of a type in the background, bounded by its capacity.
+     *
+     * @param layoutResId Layout of the view type.
+     * @param viewType    View type.
+     * @param parent      The list the views are created for, used to generate layout params.
+     * @param count       Number of views wanted.
+     */
+    public void preInflate(@LayoutRes final int layoutResId, final int viewType, final ViewGroup parent, int count) {
+        final int scheduled;
+        synchronized (this) {
+            if (mFailed.get(viewType) != 0)
+                return;
+            int available = size(viewType) + mPending.get(viewType);
+            scheduled = Math.min(count, capacity(viewType) - available);
+            if (scheduled <= 0)
+                return;
+            mPending.put(viewType, mPending.get(viewType) + scheduled);
+        }
+        INFLATE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < scheduled; i++) {
+                    View view;
+                    try {
+                        view = mInflater.inflate(layoutResId, parent, false);
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Can not inflate view type " + viewType + " off the main thread.", e);
+                        synchronized (PreInflatePool.this) {
+                            mFailed.put(viewType, 1);
+                            mPending.put(viewType, 0);
+                        }
+                        return;
+                    }
+                    synchronized (PreInflatePool.this) {
+                        mPending.put(viewType, mPending.get(viewType) - 1);
+                        if (size(viewType) < capacity(viewType))
+                            pool(viewType).offerLast(view);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return A pre-inflated view, or null if none is ready.
+     */
+    @Nullable
+    public synchronized View obtain(int viewType) {
+        ArrayDeque<View> views = mPool.get(viewType);
+        return views == null ? null : views.pollFirst();
+    }
+
+    /**
+     * Drop idle views, e.g. when the screen is destroyed.
+     */
+    public synchronized void clear() {
+        mPool.clear();
+    }
+
+    private int size(int viewType) {
+        ArrayDeque<View> views = mPool.get(viewType);
+        return views == null ? 0 : views.size();
+    }
+
+    private int capacity(int viewType) {
+        return mCapacity.get(viewType, DEFAULT_CAPACITY);
+    }
+
+    private ArrayDeque<View> pool(int viewType) {
+        ArrayDeque<View> views = mPool.get(viewType);
+        if (views == null) {
+            views = new ArrayDeque<>();
+            mPool.put(viewType, views);
+        }
+        return views;
+    }
+}
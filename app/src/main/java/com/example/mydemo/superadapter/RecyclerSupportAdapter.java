@@ -3,12 +3,15 @@ package com.example.mydemo.superadapter;
 import android.animation.Animator;
 import android.content.Context;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.LayoutRes;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
@@ -51,7 +54,32 @@ abstract class RecyclerSupportAdapter<T> extends RecyclerView.Adapter<SuperViewH
     private boolean mLoadAnimationEnabled;
     private boolean mOnlyOnce = true;
     private BaseAnimation mLoadAnimation;
+    private final BaseAnimation mDefaultLoadAnimation = new AlphaInAnimation();
     private int mLastPosition = -1;
+    private int mAnimationVelocityThreshold;
+    private float mScrollVelocity; // px/s, while the RecyclerView is scrolling.
+    private long mLastScrollTime;
+    private final RecyclerView.OnScrollListener mVelocityTracker = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                mScrollVelocity = 0;
+                mLastScrollTime = 0;
+            }
+        }
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            long now = SystemClock.uptimeMillis();
+            if (mLastScrollTime != 0 && now > mLastScrollTime) {
+                mScrollVelocity = (Math.abs(dx) + Math.abs(dy)) * 1000f / (now - mLastScrollTime);
+            }
+            mLastScrollTime = now;
+        }
+    };
+
+    private LazyDataSource<T> mDataSource;
+    private NestedListSupport mNestedListSupport;
 
     /**
      * Constructor for single item view type.
@@ -65,6 +93,7 @@ abstract class RecyclerSupportAdapter<T> extends RecyclerView.Adapter<SuperViewH
         this.mData = list == null ? new ArrayList<T>() : list;
         this.mLayoutResId = layoutResId;
         this.mMulItemViewType = null;
+        this.mAnimationVelocityThreshold = defaultVelocityThreshold(context);
     }
 
     /**
@@ -78,6 +107,11 @@ abstract class RecyclerSupportAdapter<T> extends RecyclerView.Adapter<SuperViewH
         this.mContext = context;
         this.mData = list == null ? new ArrayList<T>() : list;
         this.mMulItemViewType = mulItemViewType == null ? offerMultiItemViewType() : mulItemViewType;
+        this.mAnimationVelocityThreshold = defaultVelocityThreshold(context);
+    }
+
+    private static int defaultVelocityThreshold(Context context) {
+        return ViewConfiguration.get(context).getScaledMaximumFlingVelocity() / 4;
     }
 
     public Context getContext() {
@@ -100,6 +134,115 @@ abstract class RecyclerSupportAdapter<T> extends RecyclerView.Adapter<SuperViewH
         mData = data;
     }
 
+    /**
+     * Back this adapter with a {@link PagedList}. Items are loaded as they are bound and
+     * {@link IViewBindData#onBind(Object, int, int, Object)} receives null for placeholders.
+     * CRUD methods are not supported while a paged list is set.
+     *
+     * @param pagedList Paged data, null to detach it and go back to an empty list.
+     */
+    public void setPagedList(PagedList<T> pagedList) {
+        setDataSource(pagedList);
+        if (pagedList != null && pagedList.isEmpty())
+            pagedList.loadAround(0);
+    }
+
+    public PagedList<T> getPagedList() {
+        return mDataSource instanceof PagedList ? (PagedList<T>) mDataSource : null;
+    }
+
+    /**
+     * Back this adapter with a {@link LazyDataSource}, whose changes are forwarded to the adapter
+     * for as long as it is set. CRUD methods are not supported while a data source is set.
+     * Without a RecyclerView, e.g. in a ListView, every change is one {@link #notifyDataSetHasChanged()}.
+     *
+     * @param dataSource Lazy data, null to detach it and go back to an empty list.
+     */
+    public void setDataSource(LazyDataSource<T> dataSource) {
+        if (mDataSource != null)
+            mDataSource.setCallback(null);
+        mDataSource = dataSource;
+        if (dataSource == null) {
+            mData = new ArrayList<>();
+        } else {
+            mData = dataSource;
+            dataSource.setCallback(new ListUpdateCallback() {
+                @Override
+                public void onInserted(int position, int count) {
+                    if (mRecyclerView == null)
+                        notifyDataSetHasChanged(); // AdapterView, getCount() changed
+                    else
+                        notifyItemRangeInserted(hasHeaderView() ? position + 1 : position, count);
+                }
+
+                @Override
+                public void onRemoved(int position, int count) {
+                    if (mRecyclerView == null)
+                        notifyDataSetHasChanged();
+                    else
+                        notifyItemRangeRemoved(hasHeaderView() ? position + 1 : position, count);
+                }
+
+                @Override
+                public void onMoved(int fromPosition, int toPosition) {
+                    int offset = hasHeaderView() ? 1 : 0;
+                    if (mRecyclerView == null)
+                        notifyDataSetHasChanged();
+                    else
+                        notifyItemMoved(fromPosition + offset, toPosition + offset);
+                }
+
+                @Override
+                public void onChanged(int position, int count, Object payload) {
+                    if (mRecyclerView == null)
+                        notifyDataSetHasChanged();
+                    else
+                        notifyItemRangeChanged(hasHeaderView() ? position + 1 : position, count, payload);
+                }
+            });
+        }
+        notifyDataSetHasChanged();
+    }
+
+    /**
+     * Notify a RecyclerView, or the AdapterView observers when there is none.
+     */
+    public abstract void notifyDataSetHasChanged();
+
+    public LazyDataSource<T> getDataSource() {
+        return mDataSource;
+    }
+
+    /**
+     * Prefetch hook for the data position being bound.
+     */
+    void onItemBound(int position) {
+        if (mDataSource != null)
+            mDataSource.loadAround(position);
+    }
+
+    /**
+     * For rows hosting a horizontal RecyclerView bound through
+     * {@link SuperViewHolder#setAdapter(int, RecyclerView.Adapter)}: nested lists with the same view
+     * id share one RecycledViewPool, and each keeps its scroll position per parent item (by stable
+     * id if {@link #hasStableIds()}, otherwise by position) for the last 100 items it was shown in.
+     * Call before the adapter is set.
+     *
+     * @param initialPrefetchItemCount Items prefetched when a nested LinearLayoutManager comes into
+     *                                 view, usually the number of visible children; 0 keeps the default.
+     */
+    public void enableNestedListSupport(int initialPrefetchItemCount) {
+        mNestedListSupport = new NestedListSupport(initialPrefetchItemCount);
+    }
+
+    /**
+     * Forget the saved scroll positions of nested lists, e.g. after replacing position-keyed data.
+     */
+    public void clearNestedListStates() {
+        if (mNestedListSupport != null)
+            mNestedListSupport.clearStates();
+    }
+
     public void setOnItemClickListener(OnItemClickListener onItemClickListener) {
         this.mOnItemClickListener = onItemClickListener;
     }
@@ -158,6 +301,7 @@ abstract class RecyclerSupportAdapter<T> extends RecyclerView.Adapter<SuperViewH
             return new SuperViewHolder(getFooterView());
         } else {
             holder = onCreate(null, parent, viewType);
+            holder.setNestedListSupport(mNestedListSupport);
         }
         if (!(holder.itemView instanceof AdapterView) && !(holder.itemView instanceof RecyclerView)) {
             holder.itemView.setOnClickListener(new View.OnClickListener() {
@@ -186,11 +330,31 @@ abstract class RecyclerSupportAdapter<T> extends RecyclerView.Adapter<SuperViewH
     public void onBindViewHolder(SuperViewHolder holder, int position) {
         int viewType = getItemViewType(position);
         if (viewType != TYPE_HEADER && viewType != TYPE_FOOTER) {
-            onBind(holder, viewType, position, mData.get(hasHeaderView() ? --position : position));
+            int dataPosition = hasHeaderView() ? position - 1 : position;
+            onItemBound(dataPosition);
+            onBind(holder, viewType, position, mData.get(dataPosition));
             addLoadAnimation(holder); // Load animation
         }
     }
 
+    @Override
+    public void onBindViewHolder(SuperViewHolder holder, int position, List<Object> payloads) {
+        if (payloads == null || payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        int viewType = getItemViewType(position);
+        if (viewType != TYPE_HEADER && viewType != TYPE_FOOTER) {
+            // Partial update of a bound item, no load animation.
+            onBind(holder, viewType, position, mData.get(hasHeaderView() ? --position : position), payloads);
+        }
+    }
+
+    @Override
+    public void onBind(SuperViewHolder holder, int viewType, int layoutPosition, T item, List<Object> payloads) {
+        onBind(holder, viewType, layoutPosition, item);
+    }
+
     /**
      * ------------------------------------ Header / Footer ------------------------------------
      */
@@ -202,13 +366,22 @@ abstract class RecyclerSupportAdapter<T> extends RecyclerView.Adapter<SuperViewH
         mRecyclerView = recyclerView;
         // Ensure a situation that add header or footer before setAdapter().
         ifGridLayoutManager();
+        recyclerView.addOnScrollListener(mVelocityTracker);
     }
 
     @Override
     public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(mVelocityTracker);
+        mScrollVelocity = 0;
         mRecyclerView = null;
     }
 
+    @Override
+    public void onViewRecycled(SuperViewHolder holder) {
+        holder.endLoadAnimators();
+        holder.saveNestedStates();
+    }
+
     @Override
     public void onViewAttachedToWindow(SuperViewHolder holder) {
         if (isHeaderView(holder.getLayoutPosition()) || isFooterView(holder.getLayoutPosition())) {
@@ -368,14 +541,36 @@ abstract class RecyclerSupportAdapter<T> extends RecyclerView.Adapter<SuperViewH
         mOnlyOnce = onlyOnce;
     }
 
+    /**
+     * Load animations are skipped while the RecyclerView scrolls faster than this, and run at half
+     * duration above half of it. Defaults to a quarter of the maximum fling velocity.
+     */
+    @Override
+    public void setAnimationVelocityThreshold(int pixelsPerSecond) {
+        mAnimationVelocityThreshold = pixelsPerSecond;
+    }
+
     @Override
     public void addLoadAnimation(RecyclerView.ViewHolder holder) {
         if (mLoadAnimationEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
             if (!mOnlyOnce || holder.getLayoutPosition() > mLastPosition) {
-                BaseAnimation animation = mLoadAnimation == null ? new AlphaInAnimation() : mLoadAnimation;
-                for (Animator anim : animation.getAnimators(holder.itemView)) {
-                    anim.setInterpolator(mInterpolator);
-                    anim.setDuration(mDuration).start();
+                long duration = mDuration;
+                if (mScrollVelocity > mAnimationVelocityThreshold) {
+                    duration = 0; // The row is only on screen for a frame or two.
+                } else if (mScrollVelocity > mAnimationVelocityThreshold / 2) {
+                    duration /= 2;
+                }
+                if (duration > 0) {
+                    BaseAnimation animation = mLoadAnimation == null ? mDefaultLoadAnimation : mLoadAnimation;
+                    Animator[] animators = holder instanceof SuperViewHolder
+                            ? ((SuperViewHolder) holder).obtainLoadAnimators(animation)
+                            : animation.getAnimators(holder.itemView);
+                    for (Animator anim : animators) {
+                        anim.setInterpolator(mInterpolator);
+                        anim.setDuration(duration).start();
+                    }
+                } else if (holder instanceof SuperViewHolder) {
+                    ((SuperViewHolder) holder).endLoadAnimators();
                 }
                 mLastPosition = holder.getLayoutPosition();
             }
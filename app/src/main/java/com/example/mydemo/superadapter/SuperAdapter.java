@@ -1,17 +1,24 @@
 package com.example.mydemo.superadapter;
 
 import android.content.Context;
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.CallSuper;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.Nullable;
 import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * The adapter you need to implement.
@@ -19,7 +26,38 @@ import java.util.List;
  * Created by Cheney on 16/3/30.
  */
 public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements CRUD<T> {
+    /**
+     * Shared worker for {@link #diff(DefaultDiffCallback)}. A single thread is enough because
+     * stale requests are dropped by generation before they are computed.
+     */
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "SuperAdapter-diff");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static final long HEADER_ID = Long.MIN_VALUE;
+    private static final long FOOTER_ID = Long.MIN_VALUE + 1;
+
     private LayoutInflater mLayoutInflater;
+    private PreInflatePool mPreInflatePool;
+    private SparseArray<ViewIndex> mViewIndexes;
+    private IItemKey<T> mItemKey;
+    private final ListUpdateCallback mHeaderOffsetCallback = new HeaderOffsetCallback();
+    private MutationBatch mBatch;
+    private int mBatchDepth;
+    private int mBatchThreshold = 16;
+    /**
+     * Incremented for every diff request; only the result of the latest one is applied.
+     * Written and compared on the main thread, read by the worker to skip outdated work.
+     */
+    private volatile int mDiffGeneration;
 
     /**
      * Constructor for single itemView type.
@@ -41,35 +79,179 @@ public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements C
     @Override
     public SuperViewHolder onCreate(@Nullable View convertView, ViewGroup parent, int viewType) {
         if (convertView == null) {
-            View itemView = mLayoutInflater.inflate(mMulItemViewType == null ?
-                    mLayoutResId : mMulItemViewType.getLayoutId(viewType), parent, false);
-            return SuperViewHolder.get(null, itemView);
+            View itemView = mPreInflatePool == null ? null : mPreInflatePool.obtain(viewType);
+            if (itemView == null) {
+                itemView = mLayoutInflater.inflate(getLayoutResId(viewType), parent, false);
+            }
+            SuperViewHolder holder = SuperViewHolder.get(null, itemView);
+            if (mViewIndexes != null) {
+                ViewIndex viewIndex = mViewIndexes.get(viewType);
+                if (viewIndex == null) {
+                    viewIndex = new ViewIndex(itemView);
+                    mViewIndexes.put(viewType, viewIndex);
+                }
+                holder.setViewIndex(viewIndex);
+            }
+            return holder;
         } else { // When convertView != null, parent must be an AbsListView.
             return SuperViewHolder.get(convertView, null);
         }
     }
 
+    /**
+     * Index each item layout once per view type, so that view holders look up children by their
+     * child-index path instead of a tree search. Worth it for layouts with many ids; the layout
+     * of a view type must not change structurally between item views.
+     */
+    public void enableViewIndex() {
+        if (mViewIndexes == null) {
+            mViewIndexes = new SparseArray<>();
+        }
+    }
+
+    /**
+     * Opt-in warm-up: inflate item views of a type on a background thread while the screen is
+     * being set up, so that the first frames can take them from a pool instead of inflating.
+     * Falls back to synchronous inflation once the pool runs dry.
+     *
+     * @param parent   The ListView or RecyclerView this adapter will be set to.
+     * @param viewType View type, 0 for single-type adapters.
+     * @param count    Number of views, bounded by {@link #getPreInflatePool()} capacity.
+     */
+    public void preInflate(ViewGroup parent, int viewType, int count) {
+        getPreInflatePool().preInflate(getLayoutResId(viewType), viewType, parent, count);
+    }
+
+    /**
+     * @return The pool used by {@link #preInflate(ViewGroup, int, int)}, e.g. to set per-type capacity.
+     */
+    public PreInflatePool getPreInflatePool() {
+        if (mPreInflatePool == null) {
+            mPreInflatePool = new PreInflatePool(mLayoutInflater);
+        }
+        return mPreInflatePool;
+    }
+
+    @LayoutRes
+    private int getLayoutResId(int viewType) {
+        return mMulItemViewType == null ? mLayoutResId : mMulItemViewType.getLayoutId(viewType);
+    }
+
+    /**
+     * Enable stable ids and keyed {@link #replaceAll(List)}. Must be called before the adapter
+     * is set to a RecyclerView.
+     *
+     * @param itemKey Key extractor, null to go back to position based ids.
+     */
+    public void setItemKey(@Nullable IItemKey<T> itemKey) {
+        setHasStableIds(itemKey != null);
+        mItemKey = itemKey;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (mItemKey == null) {
+            return super.getItemId(position);
+        }
+        if (mRecyclerView != null) { // Header and footer are only part of the positions here.
+            if (isHeaderView(position))
+                return HEADER_ID;
+            if (isFooterView(position))
+                return FOOTER_ID;
+            if (hasHeaderView())
+                position--;
+        }
+        return mItemKey.getItemKey(mData.get(position));
+    }
+
     /**
      * ------------------------------------ CRUD ------------------------------------
      */
 
+    /**
+     * Start recording CRUD notifications instead of dispatching them. Batches nest; the outermost
+     * {@link #commitBatch()} merges adjacent ranges and dispatches them at once, or a single full
+     * refresh if more than {@link #setBatchThreshold(int)} ranges are left after merging.
+     * <pre>
+     *     mAdapter.beginBatch();
+     *     try {
+     *         for (Event event : events) mAdapter.set(event.position, event.item);
+     *     } finally {
+     *         mAdapter.commitBatch();
+     *     }
+     * </pre>
+     */
+    public void beginBatch() {
+        if (mBatchDepth++ == 0) {
+            mBatch = new MutationBatch(mHeaderOffsetCallback);
+        }
+    }
+
+    /**
+     * Dispatch everything recorded since the outermost {@link #beginBatch()}.
+     */
+    public void commitBatch() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("commitBatch() without beginBatch().");
+        }
+        if (--mBatchDepth > 0) {
+            return;
+        }
+        MutationBatch batch = mBatch;
+        mBatch = null;
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (mRecyclerView == null) {
+            notifyDataSetHasChanged(); // AdapterView
+        } else if (!batch.dispatch(mBatchThreshold)) {
+            notifyDataSetChanged(); // Too scattered, cheaper to rebind once.
+        }
+    }
+
+    /**
+     * @param threshold Maximum merged ranges a batch dispatches one by one, 16 by default.
+     */
+    public void setBatchThreshold(int threshold) {
+        mBatchThreshold = threshold;
+    }
+
+    private ListUpdateCallback updateCallback() {
+        return mBatch != null ? mBatch.recorder() : mHeaderOffsetCallback;
+    }
+
+    /**
+     * The RecyclerView only needs the range notification; AdapterView observers get one change.
+     */
+    private void dispatchListChanged() {
+        if (mBatch == null && mRecyclerView == null) {
+            notifyDataSetHasChanged();
+        }
+    }
+
+    private void dispatchFullChange() {
+        if (mBatch != null) {
+            mBatch.invalidate();
+        } else {
+            notifyDataSetChanged(); // RecyclerView
+            notifyDataSetHasChanged(); // AdapterView
+        }
+    }
+
     @Override
     public final void add(T item) {
+        cancelDiff();
         mData.add(item);
-        int location = mData.size() - 1;
-        if (hasHeaderView())
-            location++;
-        notifyItemInserted(location);
-        notifyDataSetHasChanged();
+        updateCallback().onInserted(mData.size() - 1, 1);
+        dispatchListChanged();
     }
 
     @Override
     public void add(int location, T item) {
+        cancelDiff();
         mData.add(location, item);
-        if (hasHeaderView())
-            location++;
-        notifyItemInserted(location);
-        notifyDataSetHasChanged();
+        updateCallback().onInserted(location, 1);
+        dispatchListChanged();
     }
 
     @Override
@@ -84,12 +266,11 @@ public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements C
             Log.w(TAG, "addAll: The list you passed contains no elements.");
             return;
         }
+        cancelDiff();
         int location = getCount();
         mData.addAll(items);
-        if (hasHeaderView())
-            location++;
-        notifyItemRangeInserted(location, items.size());
-        notifyDataSetHasChanged();
+        updateCallback().onInserted(location, items.size());
+        dispatchListChanged();
     }
 
     @Override
@@ -102,11 +283,10 @@ public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements C
             Log.w(TAG, "addAll: IndexOutOfBoundsException");
             return;
         }
+        cancelDiff();
         mData.addAll(location, items);
-        if (hasHeaderView())
-            location++;
-        notifyItemRangeInserted(location, items.size());
-        notifyDataSetHasChanged();
+        updateCallback().onInserted(location, items.size());
+        dispatchListChanged();
     }
 
     @Override
@@ -118,25 +298,24 @@ public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements C
 
     @Override
     public final void remove(int location) {
+        cancelDiff();
         mData.remove(location);
-        if (hasHeaderView())
-            location++;
-        notifyItemRemoved(location);
-        notifyDataSetHasChanged();
+        updateCallback().onRemoved(location, 1);
+        dispatchListChanged();
     }
 
     @Override
     public void removeAll(List<T> items) {
+        cancelDiff();
         mData.removeAll(items);
-        notifyDataSetChanged(); // RecyclerView
-        notifyDataSetHasChanged(); // AdapterView
+        dispatchFullChange();
     }
 
     @Override
     public void retainAll(List<T> items) {
+        cancelDiff();
         mData.retainAll(items);
-        notifyDataSetChanged(); // RecyclerView
-        notifyDataSetHasChanged(); // AdapterView
+        dispatchFullChange();
     }
 
     @Override
@@ -146,18 +325,35 @@ public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements C
 
     @Override
     public final void set(int location, T item) {
+        cancelDiff();
+        mData.set(location, item);
+        updateCallback().onChanged(location, 1, null);
+        dispatchListChanged();
+    }
+
+    /**
+     * Replace an item and rebind only the given fields, which arrive in
+     * {@link #onBind(SuperViewHolder, int, int, Object, List)} as an Integer payload.
+     *
+     * @param changedFields Bitmask of your own field flags, 0 means a full rebind.
+     */
+    @Override
+    public final void set(int location, T item, int changedFields) {
+        if (changedFields == 0) {
+            set(location, item);
+            return;
+        }
+        cancelDiff();
         mData.set(location, item);
-        if (hasHeaderView())
-            location++;
-        notifyItemChanged(location);
-        notifyDataSetHasChanged();
+        updateCallback().onChanged(location, 1, changedFields);
+        dispatchListChanged();
     }
 
     @Override
     public final void replaceAll(List<T> items) {
+        cancelDiff();
         if (mData == items) {
-            notifyDataSetChanged();
-            notifyDataSetHasChanged();
+            dispatchFullChange();
             return;
         }
         if (items == null || items.isEmpty()) {
@@ -166,22 +362,30 @@ public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements C
         }
         if (mData.isEmpty()) {
             addAll(items);
+        } else if (mItemKey != null && mRecyclerView != null) {
+            List<T> oldList = new ArrayList<>(mData);
+            mData.clear();
+            mData.addAll(items);
+            if (!KeyedDiff.dispatch(oldList, mData, mItemKey, updateCallback())) {
+                Log.w(TAG, "replaceAll: Duplicated item keys, fall back to a full refresh.");
+                dispatchFullChange();
+            }
         } else {
-            int start = hasHeaderView() ? 1 : 0;
             int originalSize = getCount();
             int newSize = items.size();
             mData.clear();
             mData.addAll(items);
+            ListUpdateCallback callback = updateCallback();
             if (originalSize > newSize) {
-                notifyItemRangeChanged(start, newSize);
-                notifyItemRangeRemoved(start + newSize, originalSize - newSize);
+                callback.onChanged(0, newSize, null);
+                callback.onRemoved(newSize, originalSize - newSize);
             } else if (originalSize == newSize) {
-                notifyItemRangeChanged(start, newSize);
+                callback.onChanged(0, newSize, null);
             } else {
-                notifyItemRangeChanged(start, originalSize);
-                notifyItemRangeInserted(start + originalSize, newSize - originalSize);
+                callback.onChanged(0, originalSize, null);
+                callback.onInserted(originalSize, newSize - originalSize);
             }
-            notifyDataSetHasChanged();
+            dispatchListChanged();
         }
     }
 
@@ -197,44 +401,87 @@ public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements C
 
     @Override
     public final void clear() {
+        cancelDiff();
         int count = getCount();
         if (count > 0) {
             mData.clear();
-            notifyItemRangeRemoved(hasHeaderView() ? 1 : 0, count);
-            notifyDataSetHasChanged();
+            updateCallback().onRemoved(0, count);
+            dispatchListChanged();
         }
     }
 
+    @Override
+    public void setDataSource(LazyDataSource<T> dataSource) {
+        cancelDiff();
+        super.setDataSource(dataSource);
+    }
+
     /**
      * Calculate the difference between two lists and output a list of update operations
      * that converts the first list into the second one.
      * <pre>
-     *     List oldList = mAdapter.getData();
-     *     DefaultDiffCallback<T> callback = new DefaultDiffCallback(oldList, newList);
+     *     DefaultDiffCallback<T> callback = new DefaultDiffCallback(mAdapter.getData(), newList);
      *     mAdapter.diff(callback);
      * </pre>
+     * The old list is copied into the callback before this returns, so the adapter may be changed
+     * while the diff runs; such a change cancels the diff. Do not change the new list afterwards.
      * Note: This method only works on revision 24.2.0 or above.
      *
      * @param callback {@link DefaultDiffCallback}
      */
     @Override
     public void diff(final DefaultDiffCallback<T> callback) {
-        if (checkDiff(callback)) {
-            new AsyncTask<Void, Void, DiffUtil.DiffResult>() {
-                @Override
-                protected DiffUtil.DiffResult doInBackground(Void... params) {
-                    return DiffUtil.calculateDiff(callback);
-                }
+        diff(callback, null);
+    }
 
-                @Override
-                protected void onPostExecute(DiffUtil.DiffResult diffResult) {
-                    setData(callback.getNewList());
-                    if (diffResult != null) {
-                        diffResult.dispatchUpdatesTo(SuperAdapter.this);
-                    }
-                }
-            }.execute();
+    /**
+     * Same as {@link #diff(DefaultDiffCallback)}, the diff is calculated on a worker thread and
+     * dispatched on the main thread. If another diff is requested before this one finishes,
+     * this result is dropped and the listener is not called.
+     *
+     * @param callback {@link DefaultDiffCallback}
+     * @param listener Called on the main thread after the new list has been committed, nullable.
+     */
+    @Override
+    public void diff(final DefaultDiffCallback<T> callback, @Nullable final OnDiffCommittedListener<T> listener) {
+        if (!checkDiff(callback)) {
+            return;
         }
+        // The worker must not read the live list while CRUD methods change it on this thread.
+        if (callback.getOldList() != null) {
+            callback.setOldList(new ArrayList<>(callback.getOldList()));
+        }
+        final int generation = ++mDiffGeneration;
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mDiffGeneration) {
+                    return; // A newer list arrived while this one was queued.
+                }
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(callback);
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mDiffGeneration) {
+                            return;
+                        }
+                        setData(callback.getNewList());
+                        diffResult.dispatchUpdatesTo(updateCallback());
+                        if (listener != null) {
+                            listener.onDiffCommitted(callback.getNewList());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Drop any diff that is still being calculated. Every CRUD method calls it, so a diff computed
+     * from an older list never overwrites a later mutation.
+     */
+    public void cancelDiff() {
+        mDiffGeneration++;
     }
 
     private boolean checkDiff(DiffUtil.Callback callback) {
@@ -249,4 +496,32 @@ public abstract class SuperAdapter<T> extends ListSupportAdapter<T> implements C
         return true;
     }
 
+    /**
+     * Forwards CRUD, {@link KeyedDiff} and {@link DiffUtil} updates shifted by the header.
+     */
+    private class HeaderOffsetCallback implements ListUpdateCallback {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(offset(position), count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(offset(position), count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(offset(fromPosition), offset(toPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifyItemRangeChanged(offset(position), count, payload);
+        }
+
+        private int offset(int position) {
+            return hasHeaderView() ? position + 1 : position;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.mydemo.superadapter;
 
+import android.animation.Animator;
 import android.content.res.ColorStateList;
 import android.graphics.Bitmap;
 import android.graphics.ColorFilter;
@@ -22,6 +23,9 @@ import android.widget.ProgressBar;
 import android.widget.RatingBar;
 import android.widget.TextView;
 
+import com.example.mydemo.superadapter.animation.BaseAnimation;
+import com.example.mydemo.superadapter.animation.ReusableAnimation;
+
 
 /**
  * Universal view holder.
@@ -31,6 +35,12 @@ import android.widget.TextView;
 public class SuperViewHolder extends RecyclerView.ViewHolder implements ChainSetter<SuperViewHolder> {
 
     private SparseArray<View> childViews = new SparseArray<>();
+    private ViewIndex viewIndex;
+    private BaseAnimation loadAnimation;
+    private Animator[] loadAnimators;
+    private NestedListSupport nestedListSupport;
+    private int[] nestedViewIds;
+    private long nestedItemKey;
 
     SuperViewHolder(View itemView) {
         super(itemView);
@@ -48,6 +58,57 @@ public class SuperViewHolder extends RecyclerView.ViewHolder implements ChainSet
         return holder;
     }
 
+    /**
+     * Share the child paths of this holder's layout, see {@link ViewIndex}.
+     */
+    void setViewIndex(ViewIndex viewIndex) {
+        this.viewIndex = viewIndex;
+    }
+
+    void setNestedListSupport(NestedListSupport nestedListSupport) {
+        this.nestedListSupport = nestedListSupport;
+    }
+
+    /**
+     * Save the scroll position of the nested lists bound through {@link #setAdapter(int, RecyclerView.Adapter)}.
+     */
+    void saveNestedStates() {
+        if (nestedListSupport != null && nestedViewIds != null) {
+            for (int viewId : nestedViewIds) {
+                RecyclerView view = findViewById(viewId);
+                nestedListSupport.save(view, viewId, nestedItemKey);
+            }
+        }
+    }
+
+    /**
+     * @return Load animators for this holder, reused if the animation is a {@link ReusableAnimation}.
+     */
+    Animator[] obtainLoadAnimators(BaseAnimation animation) {
+        if (loadAnimators != null && loadAnimation == animation && animation instanceof ReusableAnimation) {
+            endLoadAnimators();
+            ((ReusableAnimation) animation).resetAnimators(loadAnimators, itemView);
+        } else {
+            endLoadAnimators();
+            loadAnimators = animation.getAnimators(itemView);
+            loadAnimation = animation;
+        }
+        return loadAnimators;
+    }
+
+    /**
+     * Jump running load animators to their end values, so a recycled view is never left half faded.
+     */
+    void endLoadAnimators() {
+        if (loadAnimators != null) {
+            for (Animator animator : loadAnimators) {
+                if (animator.isStarted()) {
+                    animator.end();
+                }
+            }
+        }
+    }
+
     /**
      * Deprecated. Use {@link #findViewById(int)} instead for a better understanding.
      * It will be removed in a future release!
@@ -67,7 +128,7 @@ public class SuperViewHolder extends RecyclerView.ViewHolder implements ChainSet
     public <T extends View> T findViewById(int id) {
         View childView = childViews.get(id);
         if (childView == null) {
-            childView = itemView.findViewById(id);
+            childView = viewIndex == null ? itemView.findViewById(id) : viewIndex.find(itemView, id);
             if (childView != null)
                 childViews.put(id, childView);
             else
@@ -244,10 +305,33 @@ public class SuperViewHolder extends RecyclerView.ViewHolder implements ChainSet
     @Override
     public SuperViewHolder setAdapter(int viewId, RecyclerView.Adapter adapter) {
         RecyclerView view = findViewById(viewId);
+        if (nestedListSupport == null) {
+            view.setAdapter(adapter);
+            return this;
+        }
+        nestedListSupport.attach(view, viewId);
         view.setAdapter(adapter);
+        nestedItemKey = getItemId() != RecyclerView.NO_ID ? getItemId() : getLayoutPosition();
+        nestedListSupport.restore(view, viewId, nestedItemKey);
+        if (nestedViewIds == null) {
+            nestedViewIds = new int[]{viewId};
+        } else if (!containsNestedViewId(viewId)) {
+            int[] viewIds = new int[nestedViewIds.length + 1];
+            System.arraycopy(nestedViewIds, 0, viewIds, 0, nestedViewIds.length);
+            viewIds[nestedViewIds.length] = viewId;
+            nestedViewIds = viewIds;
+        }
         return this;
     }
 
+    private boolean containsNestedViewId(int viewId) {
+        for (int id : nestedViewIds) {
+            if (id == viewId)
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public SuperViewHolder setChecked(int viewId, boolean checked) {
         Checkable view = findViewById(viewId);
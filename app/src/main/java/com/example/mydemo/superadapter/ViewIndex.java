@@ -0,0 +1,61 @@
+package com.example.mydemo.superadapter;
+
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Child-index paths of every view id in one item layout, built once per view type.
+ * <p>
+ * {@link SuperViewHolder#findViewById(int)} follows the path with {@link ViewGroup#getChildAt(int)}
+ * instead of searching the whole tree. A path that no longer leads to the id (e.g. an inflated
+ * ViewStub or children added at runtime) falls back to {@link View#findViewById(int)}.
+ */
+final class ViewIndex {
+    private final SparseArray<int[]> mPaths = new SparseArray<>();
+
+    /**
+     * @param itemView Root of a freshly inflated item layout.
+     */
+    ViewIndex(View itemView) {
+        index(itemView, new int[0]);
+    }
+
+    private void index(View view, int[] path) {
+        int id = view.getId();
+        // Pre-order and first wins, same as View.findViewById().
+        if (id != View.NO_ID && mPaths.get(id) == null) {
+            mPaths.put(id, path);
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0, count = group.getChildCount(); i < count; i++) {
+                int[] childPath = new int[path.length + 1];
+                System.arraycopy(path, 0, childPath, 0, path.length);
+                childPath[path.length] = i;
+                index(group.getChildAt(i), childPath);
+            }
+        }
+    }
+
+    int size() {
+        return mPaths.size();
+    }
+
+    /**
+     * @return The child with this id, or null if it is not there.
+     */
+    View find(View itemView, int id) {
+        int[] path = mPaths.get(id);
+        if (path != null) {
+            View view = itemView;
+            for (int i = 0; i < path.length && view != null; i++) {
+                view = view instanceof ViewGroup ? ((ViewGroup) view).getChildAt(path[i]) : null;
+            }
+            if (view != null && view.getId() == id) {
+                return view;
+            }
+        }
+        return itemView.findViewById(id);
+    }
+}
@@ -8,7 +8,7 @@ import android.view.View;
  * @Author: chenenyu
  * @Created: 16/6/28 16:01.
  */
-public class AlphaInAnimation implements BaseAnimation {
+public class AlphaInAnimation implements ReusableAnimation {
     private final float mFrom;
 
     public AlphaInAnimation() {
@@ -23,4 +23,9 @@ public class AlphaInAnimation implements BaseAnimation {
     public Animator[] getAnimators(View view) {
         return new Animator[]{ObjectAnimator.ofFloat(view, "alpha", mFrom, 1f)};
     }
+
+    @Override
+    public void resetAnimators(Animator[] animators, View view) {
+        // Values do not depend on the view.
+    }
 }
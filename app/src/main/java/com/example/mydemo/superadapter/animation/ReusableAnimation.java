@@ -0,0 +1,20 @@
+package com.example.mydemo.superadapter.animation;
+
+import android.animation.Animator;
+import android.view.View;
+
+/**
+ * A {@link BaseAnimation} whose animators can be started again on the same view,
+ * so that a view holder creates them only once.
+ */
+public interface ReusableAnimation extends BaseAnimation {
+
+    /**
+     * Refresh values that depend on the view before the animators are started again.
+     *
+     * @param animators Animators previously returned by {@link #getAnimators(View)} for this view.
+     * @param view      Item view.
+     */
+    void resetAnimators(Animator[] animators, View view);
+
+}
@@ -8,7 +8,7 @@ import android.view.View;
  * @Author: chenenyu
  * @Created: 16/6/28 17:01.
  */
-public class ScaleInAnimation implements BaseAnimation {
+public class ScaleInAnimation implements ReusableAnimation {
 
     private static final float DEFAULT_SCALE_FROM = .5f;
     private final float mFrom;
@@ -27,4 +27,9 @@ public class ScaleInAnimation implements BaseAnimation {
         ObjectAnimator scaleY = ObjectAnimator.ofFloat(view, "scaleY", mFrom, 1f);
         return new ObjectAnimator[]{scaleX, scaleY};
     }
+
+    @Override
+    public void resetAnimators(Animator[] animators, View view) {
+        // Values do not depend on the view.
+    }
 }
@@ -8,11 +8,16 @@ import android.view.View;
  * @Author: chenenyu
  * @Created: 16/6/28 17:23.
  */
-public class SlideInBottomAnimation implements BaseAnimation {
+public class SlideInBottomAnimation implements ReusableAnimation {
     @Override
     public Animator[] getAnimators(View view) {
         return new Animator[]{
                 ObjectAnimator.ofFloat(view, "translationY", view.getMeasuredHeight(), 0)
         };
     }
+
+    @Override
+    public void resetAnimators(Animator[] animators, View view) {
+        ((ObjectAnimator) animators[0]).setFloatValues(view.getMeasuredHeight(), 0);
+    }
 }
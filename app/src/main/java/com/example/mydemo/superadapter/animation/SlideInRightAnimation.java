@@ -8,11 +8,16 @@ import android.view.View;
  * @Author: chenenyu
  * @Created: 16/6/28 17:28.
  */
-public class SlideInRightAnimation implements BaseAnimation {
+public class SlideInRightAnimation implements ReusableAnimation {
     @Override
     public Animator[] getAnimators(View view) {
         return new Animator[]{
                 ObjectAnimator.ofFloat(view, "translationX", view.getRootView().getWidth(), 0)
         };
     }
+
+    @Override
+    public void resetAnimators(Animator[] animators, View view) {
+        ((ObjectAnimator) animators[0]).setFloatValues(view.getRootView().getWidth(), 0);
+    }
 }
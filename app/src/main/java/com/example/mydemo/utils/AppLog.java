@@ -0,0 +1,154 @@
+package com.example.mydemo.utils;
+
+import android.util.Log;
+
+import com.example.mydemo.BuildConfig;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志门面，代替直接调用Log/Logger。
+ * <p>
+ * Messages are queued in a lock-free ring buffer and written to logcat by one background
+ * thread, so the caller only pays for claiming a slot; format arguments are formatted on the
+ * writer thread too. {@link #DEBUG} and {@link #INFO} are compile-time constants: wrap calls in
+ * {@code if (AppLog.DEBUG)} and javac drops them, message building included, from release
+ * builds. Warnings and errors are always kept.
+ * <pre>
+ *     if (AppLog.DEBUG) {
+ *         AppLog.d(TAG, "loaded %d items", count);
+ *     }
+ * </pre>
+ * Call sites that run every frame should also go through a {@link Sampler}.
+ */
+public final class AppLog {
+    public static final boolean DEBUG = BuildConfig.DEBUG;
+    public static final boolean INFO = BuildConfig.DEBUG;
+
+    static final String TAG = "AppLog";
+    private static final int CAPACITY = 1024;
+    // logcat truncates longer entries.
+    private static final int MAX_LOGCAT_LENGTH = 4000;
+
+    private static volatile LogRingBuffer sBuffer;
+
+    private AppLog() {
+    }
+
+    /**
+     * Where the writer thread delivers the messages, logcat by default.
+     */
+    public interface Sink {
+        void write(int priority, String tag, String message, Throwable throwable);
+    }
+
+    public static void d(String tag, String message) {
+        if (DEBUG) {
+            buffer().offer(Log.DEBUG, tag, message, null, null);
+        }
+    }
+
+    public static void d(String tag, String format, Object... args) {
+        if (DEBUG) {
+            buffer().offer(Log.DEBUG, tag, format, args, null);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (INFO) {
+            buffer().offer(Log.INFO, tag, message, null, null);
+        }
+    }
+
+    public static void i(String tag, String format, Object... args) {
+        if (INFO) {
+            buffer().offer(Log.INFO, tag, format, args, null);
+        }
+    }
+
+    public static void w(String tag, String message) {
+        buffer().offer(Log.WARN, tag, message, null, null);
+    }
+
+    public static void w(String tag, String message, Throwable throwable) {
+        buffer().offer(Log.WARN, tag, message, null, throwable);
+    }
+
+    public static void e(String tag, String message) {
+        buffer().offer(Log.ERROR, tag, message, null, null);
+    }
+
+    public static void e(String tag, String message, Throwable throwable) {
+        buffer().offer(Log.ERROR, tag, message, null, throwable);
+    }
+
+    public static void setSink(Sink sink) {
+        buffer().setSink(sink);
+    }
+
+    /**
+     * Wait until everything logged so far has been written, e.g. before the process is killed.
+     *
+     * @return false on timeout.
+     */
+    public static boolean flush(long timeout, TimeUnit unit) {
+        return buffer().flush(timeout, unit);
+    }
+
+    /**
+     * @return Messages dropped because the writer fell behind.
+     */
+    public static long getDropped() {
+        return buffer().getDropped();
+    }
+
+    private static LogRingBuffer buffer() {
+        if (sBuffer == null) {
+            synchronized (AppLog.class) {
+                if (sBuffer == null) {
+                    sBuffer = new LogRingBuffer(CAPACITY, new LogcatSink());
+                }
+            }
+        }
+        return sBuffer;
+    }
+
+    /**
+     * 限制高频调用点（如滑动回调）的日志频率
+     * <pre>
+     *     if (AppLog.DEBUG &amp;&amp; SCROLL_LOG.sample()) { ... }
+     * </pre>
+     */
+    public static final class Sampler {
+        private final long mIntervalNanos;
+        private final AtomicLong mNext;
+
+        public Sampler(long interval, TimeUnit unit) {
+            mIntervalNanos = unit.toNanos(interval);
+            mNext = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * @return true at most once per interval.
+         */
+        public boolean sample() {
+            long now = System.nanoTime();
+            long next = mNext.get();
+            return now - next >= 0 && mNext.compareAndSet(next, now + mIntervalNanos);
+        }
+    }
+
+    private static final class LogcatSink implements Sink {
+        @Override
+        public void write(int priority, String tag, String message, Throwable throwable) {
+            if (throwable != null) {
+                message = message + '\n' + Log.getStackTraceString(throwable);
+            }
+            for (int start = 0; start < message.length(); start += MAX_LOGCAT_LENGTH) {
+                Log.println(priority, tag, message.substring(start,
+                        Math.min(message.length(), start + MAX_LOGCAT_LENGTH)));
+            }
+        }
+    }
+}
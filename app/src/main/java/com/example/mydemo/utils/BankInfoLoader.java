@@ -0,0 +1,217 @@
+package com.example.mydemo.utils;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+
+import com.example.mydemo.bean.BankModel;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * 加载assets中的银行列表bankInfo.json
+ * <p>
+ * The list is parsed once per process, off the main thread, straight from the asset stream.
+ * It is then kept in memory and saved as a binary snapshot in the files dir. The snapshot is
+ * keyed by the install time of the APK, the only way the asset can change, so later launches
+ * read the snapshot without opening the asset. After an install or update it is parsed again.
+ */
+public class BankInfoLoader {
+    private static final String TAG = "BankInfoLoader";
+    private static final String ASSET = "bankInfo.json";
+    private static final String SNAPSHOT = "bankInfo.snapshot";
+    private static final int MAGIC = 0x42494e46; // "BINF"
+    private static final int VERSION = 2;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile List<BankModel> sCache;
+
+    /**
+     * assets中的文件，测试时可换成本地文件
+     */
+    interface Asset {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Emits the cached list right away, or loads it on the io scheduler; delivered on the main thread.
+     */
+    public static Observable<List<BankModel>> load(Context context) {
+        List<BankModel> cached = sCache;
+        if (cached != null) {
+            return Observable.just(cached);
+        }
+        final Context appContext = context.getApplicationContext();
+        return Observable.fromCallable(new Callable<List<BankModel>>() {
+            @Override
+            public List<BankModel> call() throws Exception {
+                return loadCached(appContext);
+            }
+        }).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread());
+    }
+
+    private static synchronized List<BankModel> loadCached(final Context context) throws IOException {
+        if (sCache == null) {
+            sCache = load(new Asset() {
+                @Override
+                public InputStream open() throws IOException {
+                    return context.getAssets().open(ASSET);
+                }
+            }, installTime(context), new File(context.getFilesDir(), SNAPSHOT));
+        }
+        return sCache;
+    }
+
+    private static long installTime(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            throw new IllegalStateException("Own package not found", e);
+        }
+    }
+
+    /**
+     * @param key Changes whenever the asset may have changed.
+     * @return An unmodifiable list.
+     */
+    static List<BankModel> load(Asset asset, long key, File snapshot) throws IOException {
+        List<BankModel> models = readSnapshot(snapshot, key);
+        if (models != null) {
+            return models;
+        }
+        Reader reader = new InputStreamReader(asset.open(), UTF_8);
+        try {
+            models = parse(reader);
+        } finally {
+            reader.close();
+        }
+        try {
+            writeSnapshot(snapshot, key, models);
+        } catch (IOException e) {
+            AppLog.w(TAG, "Could not write " + snapshot, e);
+        }
+        return models;
+    }
+
+    /**
+     * Reads the "data" array of the asset one bank at a time, with the generated BankModel adapter.
+     */
+    static List<BankModel> parse(Reader reader) throws IOException {
+        TypeAdapter<BankModel> adapter = GsonUtil.getGson().getAdapter(BankModel.class);
+        List<BankModel> models = new ArrayList<>();
+        JsonReader json = new JsonReader(reader);
+        json.beginObject();
+        while (json.hasNext()) {
+            if ("data".equals(json.nextName())) {
+                json.beginArray();
+                while (json.hasNext()) {
+                    models.add(adapter.read(json));
+                }
+                json.endArray();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return Collections.unmodifiableList(models);
+    }
+
+    /**
+     * @return null if there is no snapshot of this key, or it can not be read.
+     */
+    static List<BankModel> readSnapshot(File file, long key) {
+        if (!file.exists()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != key) {
+                return null;
+            }
+            int count = in.readInt();
+            List<BankModel> models = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                BankModel model = new BankModel();
+                model.bankDesc = readString(in);
+                model.bankName = readString(in);
+                model.bankLogo = readString(in);
+                model.bankCode = readString(in);
+                models.add(model);
+            }
+            return Collections.unmodifiableList(models);
+        } catch (IOException e) {
+            AppLog.w(TAG, "Ignoring unreadable " + file, e);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Written to a temporary file first, so a crash never leaves half a snapshot behind.
+     */
+    static void writeSnapshot(File file, long key, List<BankModel> models) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(key);
+            out.writeInt(models.size());
+            for (BankModel model : models) {
+                writeString(out, model.bankDesc);
+                writeString(out, model.bankName);
+                writeString(out, model.bankLogo);
+                writeString(out, model.bankCode);
+            }
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not rename " + temp + " to " + file);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // Nothing was written.
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.mydemo.utils;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * 网络状态监听
+ * <p>
+ * Tracks connectivity through system callbacks (a {@link ConnectivityManager.NetworkCallback}
+ * from API 21, the CONNECTIVITY_ACTION broadcast before that) so that readers get a cached
+ * snapshot instead of a binder call into ConnectivityManager. Register it early with
+ * {@link #get(Context)} from the Application.
+ */
+public class ConnectivityMonitor {
+
+    private static volatile ConnectivityMonitor sInstance;
+
+    private final ConnectivityManager mConnectivityManager;
+    private final Subject<State> mStates;
+    private volatile State mState;
+    // Networks with internet reported by the NetworkCallback, and their TYPE_*. Guarded by this.
+    private final Map<Network, Integer> mNetworks = new HashMap<>();
+
+    public static ConnectivityMonitor get(Context context) {
+        if (sInstance == null) {
+            synchronized (ConnectivityMonitor.class) {
+                if (sInstance == null) {
+                    sInstance = new ConnectivityMonitor(context.getApplicationContext());
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    // Package-private for tests, which need a fresh monitor per ConnectivityManager state.
+    ConnectivityMonitor(Context context) {
+        mConnectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        mState = readState();
+        mStates = BehaviorSubject.createDefault(mState).toSerialized();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            registerNetworkCallback();
+        } else {
+            context.registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    refresh();
+                }
+            }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void registerNetworkCallback() {
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+        mConnectivityManager.registerNetworkCallback(request, new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                NetworkInfo info = mConnectivityManager.getNetworkInfo(network);
+                onNetwork(network, info == null ? -1 : info.getType());
+            }
+
+            @Override
+            public void onLost(Network network) {
+                // getActiveNetworkInfo() may still report the lost network here.
+                synchronized (ConnectivityMonitor.this) {
+                    mNetworks.remove(network);
+                    publish(networksState());
+                }
+            }
+
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                onNetwork(network, typeOf(capabilities));
+            }
+        });
+    }
+
+    private synchronized void onNetwork(Network network, int type) {
+        Integer known = mNetworks.get(network);
+        mNetworks.put(network, type == -1 && known != null ? known : type);
+        publish(networksState());
+    }
+
+    /**
+     * Wi-Fi if any network is Wi-Fi, like the system prefers it, else any other.
+     */
+    private State networksState() {
+        if (mNetworks.isEmpty()) {
+            return State.OFFLINE;
+        }
+        if (mNetworks.containsValue(ConnectivityManager.TYPE_WIFI)) {
+            return new State(true, ConnectivityManager.TYPE_WIFI);
+        }
+        return new State(true, mNetworks.values().iterator().next());
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static int typeOf(NetworkCapabilities capabilities) {
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return ConnectivityManager.TYPE_WIFI;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            return ConnectivityManager.TYPE_MOBILE;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            return ConnectivityManager.TYPE_ETHERNET;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_VPN)) {
+            return ConnectivityManager.TYPE_VPN;
+        }
+        return -1;
+    }
+
+    /**
+     * 当前网络状态，不会访问ConnectivityManager
+     */
+    public State getState() {
+        return mState;
+    }
+
+    public boolean isConnected() {
+        return mState.isConnected();
+    }
+
+    /**
+     * 当前状态以及之后的每次变化
+     */
+    public Observable<State> observe() {
+        return mStates.distinctUntilChanged();
+    }
+
+    /**
+     * 离线时把请求排队，网络恢复后按订阅顺序发出。
+     * <p>
+     * Subscribes upstream right away when connected; otherwise the subscription waits for the
+     * next connected state. Disposing a waiting subscription removes it from the queue.
+     *
+     * @param scheduler Upstream is subscribed on it, never on the thread reporting connectivity.
+     */
+    public <T> ObservableTransformer<T, T> whenConnected(final Scheduler scheduler) {
+        return new ObservableTransformer<T, T>() {
+            @Override
+            public ObservableSource<T> apply(final Observable<T> upstream) {
+                return observe()
+                        .filter(new Predicate<State>() {
+                            @Override
+                            public boolean test(State state) throws Exception {
+                                return state.isConnected();
+                            }
+                        })
+                        .take(1)
+                        .flatMap(new Function<State, ObservableSource<T>>() {
+                            @Override
+                            public ObservableSource<T> apply(State state) throws Exception {
+                                return upstream.subscribeOn(scheduler);
+                            }
+                        });
+            }
+        };
+    }
+
+    private void refresh() {
+        publish(readState());
+    }
+
+    private synchronized void publish(State state) {
+        if (!state.equals(mState)) {
+            mState = state;
+            mStates.onNext(state);
+        }
+    }
+
+    private State readState() {
+        NetworkInfo info = mConnectivityManager == null ? null : mConnectivityManager.getActiveNetworkInfo();
+        if (info == null || !info.isConnected()) {
+            return State.OFFLINE;
+        }
+        return new State(true, info.getType());
+    }
+
+    /**
+     * 网络状态快照
+     */
+    public static final class State {
+        public static final State OFFLINE = new State(false, -1);
+
+        private final boolean mConnected;
+        private final int mType;
+
+        State(boolean connected, int type) {
+            mConnected = connected;
+            mType = type;
+        }
+
+        public boolean isConnected() {
+            return mConnected;
+        }
+
+        /**
+         * @return ConnectivityManager.TYPE_*，未连接时为-1
+         */
+        public int getType() {
+            return mType;
+        }
+
+        public boolean isWifi() {
+            return mConnected && mType == ConnectivityManager.TYPE_WIFI;
+        }
+
+        public boolean isMobile() {
+            return mConnected && mType == ConnectivityManager.TYPE_MOBILE;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof State)) {
+                return false;
+            }
+            State state = (State) o;
+            return mConnected == state.mConnected && mType == state.mType;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (mConnected ? 1 : 0) + mType;
+        }
+
+        @Override
+        public String toString() {
+            return "State{connected=" + mConnected + ", type=" + mType + "}";
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.mydemo.utils;
 
+import com.example.mydemo.bean.BeanTypeAdapterFactory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
@@ -12,14 +13,11 @@ import java.util.Map;
  * Created by h_vk on 16/4/16.
  */
 public class GsonUtil {
-     //gson
-    private static Gson gson = null;
-    //gson为空创建序列化
-    static {
-        if (gson == null) {
-            gson = new GsonBuilder().serializeNulls().create();
-        }
-    }
+    //共享的gson，bean包中的类使用编译时生成的TypeAdapter，不走反射
+    private static final Gson gson = new GsonBuilder()
+            .serializeNulls()
+            .registerTypeAdapterFactory(new BeanTypeAdapterFactory())
+            .create();
 
     /***
      * gson构建
@@ -27,6 +25,15 @@ public class GsonUtil {
     private GsonUtil() {
     }
 
+    /**
+     * 共享的Gson，Retrofit等处都应使用它，不要再new Gson()
+     *
+     * @return gson
+     */
+    public static Gson getGson() {
+        return gson;
+    }
+
     /***
      * 转换数组
      * @param s
@@ -35,8 +42,8 @@ public class GsonUtil {
      * @return Arrays
      */
     public static <T> List<T> stringToArray(String s, Class<T[]> clazz) {
-        T[] arr = new Gson().fromJson(s, clazz);
-        return Arrays.asList(arr); //or return Arrays.asList(new Gson().fromJson(s, clazz)); for a one-liner
+        T[] arr = gson.fromJson(s, clazz);
+        return Arrays.asList(arr);
     }
     /**
      * 转成json
@@ -77,8 +84,8 @@ public class GsonUtil {
     public static <T> List<T> GsonToList(String gsonString, Class<T> cls) {
         List<T> list = null;
         if (gson != null) {
-            list = gson.fromJson(gsonString, new TypeToken<List<T>>() {
-            }.getType());
+            //TypeToken<List<T>>会被擦除成List<Object>，元素变成LinkedTreeMap，这里用cls构造完整类型
+            list = gson.fromJson(gsonString, TypeToken.getParameterized(List.class, cls).getType());
         }
         return list;
     }
@@ -0,0 +1,203 @@
+package com.example.mydemo.utils;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多线程写入、单个后台线程输出的定长环形缓冲区，写入时不加锁。
+ * <p>
+ * A producer claims a slot with a CAS on the head sequence, fills it and publishes it by
+ * writing the slot's sequence; the writer thread takes the slots strictly in order, formats the
+ * messages and hands them to the {@link AppLog.Sink}. When the writer is a whole buffer behind,
+ * new messages are dropped and counted instead of blocking the caller.
+ */
+final class LogRingBuffer {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Slot[] mSlots;
+    private final int mMask;
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicLong mDropped = new AtomicLong();
+    private final Thread mWriter;
+    private volatile AppLog.Sink mSink;
+    private volatile boolean mWriterIdle;
+    // Only used by the writer thread.
+    private long mReportedDrops;
+
+    /**
+     * @param capacity A power of two.
+     */
+    LogRingBuffer(int capacity, AppLog.Sink sink) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        mSlots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            mSlots[i] = new Slot(i);
+        }
+        mMask = capacity - 1;
+        mSink = sink;
+        mWriter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "app-log-writer");
+        mWriter.setDaemon(true);
+        mWriter.setPriority(Thread.MIN_PRIORITY);
+        mWriter.start();
+    }
+
+    void setSink(AppLog.Sink sink) {
+        mSink = sink;
+    }
+
+    /**
+     * @param args Formatted later on the writer thread, so pass values that will not change.
+     * @return false if the buffer was full and the message was dropped.
+     */
+    boolean offer(int priority, String tag, String message, Object[] args, Throwable throwable) {
+        Slot slot;
+        long position;
+        while (true) {
+            position = mHead.get();
+            slot = mSlots[(int) position & mMask];
+            long available = slot.mSequence - position;
+            if (available < 0) {
+                // The writer has not freed this slot since the last lap.
+                mDropped.incrementAndGet();
+                return false;
+            }
+            if (available == 0 && mHead.compareAndSet(position, position + 1)) {
+                break;
+            }
+        }
+        slot.mPriority = priority;
+        slot.mTag = tag;
+        slot.mMessage = message;
+        slot.mArgs = args;
+        slot.mThrowable = throwable;
+        slot.mSequence = position + 1;
+        if (mWriterIdle) {
+            LockSupport.unpark(mWriter);
+        }
+        return true;
+    }
+
+    long getDropped() {
+        return mDropped.get();
+    }
+
+    /**
+     * Wait until the messages offered so far have been written.
+     *
+     * @return false on timeout.
+     */
+    boolean flush(long timeout, TimeUnit unit) {
+        long target = mHead.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (mTail.get() < target) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.unpark(mWriter);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            if (drain()) {
+                continue;
+            }
+            mWriterIdle = true;
+            if (!hasPending()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            mWriterIdle = false;
+        }
+    }
+
+    /**
+     * @return true if anything was written.
+     */
+    private boolean drain() {
+        boolean wrote = false;
+        while (hasPending()) {
+            long position = mTail.get();
+            Slot slot = mSlots[(int) position & mMask];
+            int priority = slot.mPriority;
+            String tag = slot.mTag;
+            String message = slot.mMessage;
+            Object[] args = slot.mArgs;
+            Throwable throwable = slot.mThrowable;
+            slot.mTag = null;
+            slot.mMessage = null;
+            slot.mArgs = null;
+            slot.mThrowable = null;
+            slot.mSequence = position + mSlots.length;
+
+            write(priority, tag, format(message, args), throwable);
+            reportDrops();
+            mTail.set(position + 1);
+            wrote = true;
+        }
+        return wrote;
+    }
+
+    private void reportDrops() {
+        long dropped = mDropped.get();
+        if (dropped != mReportedDrops) {
+            write(Log.WARN, AppLog.TAG, (dropped - mReportedDrops) + " log messages dropped", null);
+            mReportedDrops = dropped;
+        }
+    }
+
+    private boolean hasPending() {
+        long position = mTail.get();
+        return mSlots[(int) position & mMask].mSequence == position + 1;
+    }
+
+    private void write(int priority, String tag, String message, Throwable throwable) {
+        try {
+            mSink.write(priority, tag, message, throwable);
+        } catch (RuntimeException e) {
+            // A broken sink must not stop the writer.
+        }
+    }
+
+    static String format(String message, Object[] args) {
+        if (args == null || args.length == 0) {
+            return message;
+        }
+        try {
+            return String.format(Locale.US, message, args);
+        } catch (IllegalFormatException e) {
+            return message + " " + Arrays.toString(args);
+        }
+    }
+
+    private static final class Slot {
+        /**
+         * position + 1 once published, position + capacity once free for the next lap.
+         */
+        volatile long mSequence;
+        int mPriority;
+        String mTag;
+        String mMessage;
+        Object[] mArgs;
+        Throwable mThrowable;
+
+        Slot(long sequence) {
+            mSequence = sequence;
+        }
+    }
+}
@@ -2,12 +2,10 @@ package com.example.mydemo.utils;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.os.Build;
 
 /***
- * 网络工具类
+ * 网络工具类，状态来自 {@link ConnectivityMonitor} 的缓存
  */
 public class NetworkUtil {
 
@@ -17,16 +15,7 @@ public class NetworkUtil {
 	 * @return boolean
      */
 	public static boolean isNetworkConnected(Context context) {
-		if (context != null) {
-			ConnectivityManager mConnectivityManager = (ConnectivityManager) context
-					.getSystemService(Context.CONNECTIVITY_SERVICE);
-			NetworkInfo mNetworkInfo = mConnectivityManager
-					.getActiveNetworkInfo();
-			if (mNetworkInfo != null) {
-				return mNetworkInfo.isAvailable();
-			}
-		}
-		return false;
+		return context != null && ConnectivityMonitor.get(context).isConnected();
 	}
 
 	/**
@@ -35,16 +24,7 @@ public class NetworkUtil {
 	 * @return boolean
      */
 	public static boolean isWifiConnected(Context context) {
-		if (context != null) {
-			ConnectivityManager mConnectivityManager = (ConnectivityManager) context
-					.getSystemService(Context.CONNECTIVITY_SERVICE);
-			NetworkInfo mWiFiNetworkInfo = mConnectivityManager
-					.getNetworkInfo(ConnectivityManager.TYPE_WIFI);
-			if (mWiFiNetworkInfo != null) {
-				return mWiFiNetworkInfo.isAvailable();
-			}
-		}
-		return false;
+		return context != null && ConnectivityMonitor.get(context).getState().isWifi();
 	}
 
 	/**
@@ -53,16 +33,7 @@ public class NetworkUtil {
 	 * @return boolean
      */
 	public static boolean isMobileConnected(Context context) {
-		if (context != null) {
-			ConnectivityManager mConnectivityManager = (ConnectivityManager) context
-					.getSystemService(Context.CONNECTIVITY_SERVICE);
-			NetworkInfo mMobileNetworkInfo = mConnectivityManager
-					.getNetworkInfo(ConnectivityManager.TYPE_MOBILE);
-			if (mMobileNetworkInfo != null) {
-				return mMobileNetworkInfo.isAvailable();
-			}
-		}
-		return false;
+		return context != null && ConnectivityMonitor.get(context).getState().isMobile();
 	}
 
 	/**
@@ -71,16 +42,7 @@ public class NetworkUtil {
 	 * @return boolean
      */
 	public static int getConnectedType(Context context) {
-		if (context != null) {
-			ConnectivityManager mConnectivityManager = (ConnectivityManager) context
-					.getSystemService(Context.CONNECTIVITY_SERVICE);
-			NetworkInfo mNetworkInfo = mConnectivityManager
-					.getActiveNetworkInfo();
-			if (mNetworkInfo != null && mNetworkInfo.isAvailable()) {
-				return mNetworkInfo.getType();
-			}
-		}
-		return -1;
+		return context == null ? -1 : ConnectivityMonitor.get(context).getState().getType();
 	}
 	/**
 	 * 开启设置
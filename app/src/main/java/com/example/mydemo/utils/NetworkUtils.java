@@ -3,8 +3,6 @@ package com.example.mydemo.utils;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.provider.Settings;
 
 /**
@@ -20,41 +18,21 @@ public class NetworkUtils {
      * 判断网络是否连接
      */
     public static boolean isConnected(Context context) {
-        ConnectivityManager connectivity = (ConnectivityManager) context
-                .getSystemService(Context.CONNECTIVITY_SERVICE);
-        if (null != connectivity) {
-            NetworkInfo info = connectivity.getActiveNetworkInfo();
-            if (null != info && info.isConnected()) {
-                if (info.getState() == NetworkInfo.State.CONNECTED) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return ConnectivityMonitor.get(context).isConnected();
     }
 
     /**
      * 是否有网络，需要加上访问网络状态的权限
      */
     public static boolean hasNetwork(Context context) {
-        ConnectivityManager con = (ConnectivityManager) context
-                .getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo workinfo = con.getActiveNetworkInfo();
-        if (workinfo == null || !workinfo.isAvailable()) {
-            return false;
-        }
-        return true;
+        return ConnectivityMonitor.get(context).isConnected();
     }
 
     /**
      * 判断是否是WiFi网络
      */
     public static boolean isWifiNet(Context context) {
-        ConnectivityManager con = (ConnectivityManager) context
-                .getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo workinfo = con.getActiveNetworkInfo();
-        return workinfo != null
-                && workinfo.getType() == ConnectivityManager.TYPE_WIFI;
+        return ConnectivityMonitor.get(context).getState().isWifi();
     }
 
     /**
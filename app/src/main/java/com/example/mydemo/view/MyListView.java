@@ -3,14 +3,15 @@ package com.example.mydemo.view;
 import android.content.Context;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
-import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.AbsListView;
 import android.widget.ListView;
 
+import com.example.mydemo.utils.AppLog;
 import com.example.mydemo.utils.ScreenUtils;
-import com.orhanobut.logger.Logger;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * 在原有 ListView上进行拓展
@@ -18,6 +19,10 @@ import com.orhanobut.logger.Logger;
  */
 public class MyListView extends ListView implements View.OnTouchListener, AbsListView.OnScrollListener {
 
+    private static final String TAG = "MyListView";
+    //触摸和滚动回调每帧都会调用，日志最多半秒一条
+    private static final AppLog.Sampler TOUCH_LOG = new AppLog.Sampler(500, TimeUnit.MILLISECONDS);
+    private static final AppLog.Sampler SCROLL_LOG = new AppLog.Sampler(500, TimeUnit.MILLISECONDS);
 
     private int lastVisibleItemPostion;
 
@@ -62,7 +67,9 @@ public class MyListView extends ListView implements View.OnTouchListener, AbsLis
     @Override
     public boolean onTouch(View v, MotionEvent event) {
         int eventAction = event.getAction();
-        Log.i("sjb", "onTouch" + eventAction);
+        if (AppLog.DEBUG && TOUCH_LOG.sample()) {
+            AppLog.d("sjb", "onTouch%d", eventAction);
+        }
         if (eventAction == MotionEvent.ACTION_UP) {
             //抬起的时候
         } else if (eventAction == MotionEvent.ACTION_DOWN) {
@@ -76,7 +83,9 @@ public class MyListView extends ListView implements View.OnTouchListener, AbsLis
 
     @Override
     public boolean onTouchEvent(MotionEvent ev) {
-        Log.i("sjb", "onTouchEvent" + ev.getAction() + "");
+        if (AppLog.DEBUG && TOUCH_LOG.sample()) {
+            AppLog.d("sjb", "onTouchEvent%d", ev.getAction());
+        }
         return super.onTouchEvent(ev);
     }
 
@@ -92,17 +101,23 @@ public class MyListView extends ListView implements View.OnTouchListener, AbsLis
         switch (scrollState) {
             case OnScrollListener.SCROLL_STATE_IDLE:
                 //滑动停止的时候
-                Logger.d("滑动停止的时候");
+                if (AppLog.DEBUG) {
+                    AppLog.d(TAG, "滑动停止的时候");
+                }
                 break;
 
             case OnScrollListener.SCROLL_STATE_TOUCH_SCROLL:
                 //正在滚动的时候
-                Logger.d("正在滚动的时候");
+                if (AppLog.DEBUG) {
+                    AppLog.d(TAG, "正在滚动的时候");
+                }
                 break;
             case OnScrollListener.SCROLL_STATE_FLING:
                 //手指抛动时  即 手指用力滑动
                 //在离开 ListView 由于惯性继续滑动
-                Logger.d("在离开 ListView 由于惯性继续滑动");
+                if (AppLog.DEBUG) {
+                    AppLog.d(TAG, "在离开 ListView 由于惯性继续滑动");
+                }
 
             default:
                 break;
@@ -122,15 +137,21 @@ public class MyListView extends ListView implements View.OnTouchListener, AbsLis
         //当滚动的时候 一直是被调用的
         if (firstVisibleItem + visibleItemCount == totalItemCount && totalItemCount > 0) {
             //这种情况的话 说明已经滑到了最后一行
-            Logger.d("已经到了底部了");
+            if (AppLog.DEBUG && SCROLL_LOG.sample()) {
+                AppLog.d(TAG, "已经到了底部了");
+            }
         }
 
         if (firstVisibleItem > lastVisibleItemPostion) {
             //上滑
-            Logger.d("上滑");
+            if (AppLog.DEBUG && SCROLL_LOG.sample()) {
+                AppLog.d(TAG, "上滑");
+            }
         } else if (firstVisibleItem < lastVisibleItemPostion) {
             //下滑
-            Logger.d("下滑");
+            if (AppLog.DEBUG && SCROLL_LOG.sample()) {
+                AppLog.d(TAG, "下滑");
+            }
         }
 
         lastVisibleItemPostion = firstVisibleItem;
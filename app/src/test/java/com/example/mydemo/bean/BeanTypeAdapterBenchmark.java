@@ -0,0 +1,81 @@
+package com.example.mydemo.bean;
+
+import com.example.benchmark.Baseline;
+import com.example.benchmark.BenchmarkRunner;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The generated adapters against Gson's reflective ones. The results are only reported until a
+ * baseline is recorded in {@code gson-benchmark.properties}.
+ * <ul>
+ * <li>{@code cold}: a new Gson parses one top250 page of 20, so adapter creation dominates. The
+ * JVM keeps its reflection caches between iterations, so this understates a real cold start.</li>
+ * <li>{@code top250}: a warmed-up Gson parses the full 250-item body.</li>
+ * </ul>
+ * <pre>
+ *     ./gradlew :app:testDebugUnitTest --tests '*BeanTypeAdapterBenchmark' -Pbenchmark
+ * </pre>
+ */
+public class BeanTypeAdapterBenchmark {
+    private static final String PAGE = Top250.json(20);
+    private static final String TOP250 = Top250.json(250);
+
+    private BenchmarkRunner mRunner;
+
+    @Before
+    public void setUp() throws IOException {
+        mRunner = new BenchmarkRunner(Baseline.load(getClass().getResourceAsStream("/gson-benchmark.properties")));
+    }
+
+    @Test
+    public void coldStart() {
+        mRunner.run("gson.reflective.cold", new Runnable() {
+            @Override
+            public void run() {
+                check(new Gson().fromJson(PAGE, Movie.class), 20);
+            }
+        });
+        mRunner.run("gson.generated.cold", new Runnable() {
+            @Override
+            public void run() {
+                check(generated().fromJson(PAGE, Movie.class), 20);
+            }
+        });
+        mRunner.finish();
+    }
+
+    @Test
+    public void steadyState() {
+        final Gson reflective = new Gson();
+        final Gson generated = generated();
+        mRunner.run("gson.reflective.top250", new Runnable() {
+            @Override
+            public void run() {
+                check(reflective.fromJson(TOP250, Movie.class), 250);
+            }
+        });
+        mRunner.run("gson.generated.top250", new Runnable() {
+            @Override
+            public void run() {
+                check(generated.fromJson(TOP250, Movie.class), 250);
+            }
+        });
+        mRunner.finish();
+    }
+
+    private static Gson generated() {
+        return new GsonBuilder().registerTypeAdapterFactory(new BeanTypeAdapterFactory()).create();
+    }
+
+    private static void check(Movie movie, int size) {
+        assertEquals(size, movie.getSubjects().size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.mydemo.bean;
+
+import com.example.mydemo.utils.GsonUtil;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BeanTypeAdapterFactoryTest {
+    private final Gson mGenerated = new GsonBuilder().registerTypeAdapterFactory(new BeanTypeAdapterFactory()).create();
+    private final Gson mReflective = new Gson();
+
+    @Test
+    public void sharedGsonUsesTheGeneratedAdapters() {
+        assertTrue(GsonUtil.getGson().getAdapter(Movie.class) instanceof MovieTypeAdapter);
+        assertTrue(GsonUtil.getGson().getAdapter(Subjects.class) instanceof SubjectsTypeAdapter);
+        assertTrue(GsonUtil.getGson().getAdapter(BankModelInfo.class) instanceof BankModelInfoTypeAdapter);
+    }
+
+    @Test
+    public void readsTheSameAsReflection() {
+        String json = Top250.json(250);
+        Movie generated = mGenerated.fromJson(json, Movie.class);
+        Movie reflective = mReflective.fromJson(json, Movie.class);
+
+        assertEquals(reflective.getTitle(), generated.getTitle());
+        assertEquals(250, generated.getSubjects().size());
+        for (int i = 0; i < 250; i++) {
+            Subjects expected = reflective.getSubjects().get(i);
+            Subjects actual = generated.getSubjects().get(i);
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getYear(), actual.getYear());
+            assertEquals(expected.getId(), actual.getId());
+        }
+    }
+
+    @Test
+    public void writesTheSameAsReflection() {
+        Movie movie = mReflective.fromJson(Top250.json(3), Movie.class);
+        assertEquals(mReflective.toJson(movie), mGenerated.toJson(movie));
+
+        PointBean point = new PointBean(0.1f, 2.5f);
+        assertEquals("{\"x\":0.1,\"y\":2.5}", mGenerated.toJson(point));
+        assertEquals(0.1f, mGenerated.fromJson("{\"x\":0.1,\"y\":2.5}", PointBean.class).getX(), 0f);
+    }
+
+    @Test
+    public void honoursSerializedNamesAndKeepsDefaults() {
+        BankModelInfo info = mGenerated.fromJson("{\"status\":\"0\",\"data\":["
+                + "{\"summ\":\"desc\",\"name\":\"bank\",\"numb\":\"102\",\"unknown\":{\"a\":[1]}}]}", BankModelInfo.class);
+
+        assertEquals("0", info.getStatus());
+        BankModel bank = info.getData().get(0);
+        assertEquals("desc", bank.bankDesc);
+        assertEquals("bank", bank.bankName);
+        assertEquals("102", bank.bankCode);
+        assertEquals("", bank.bankLogo);
+    }
+
+    @Test
+    public void nullKeepsThePrimitiveDefault() {
+        MyData2 data = mGenerated.fromJson("{\"id\":7,\"userAge\":null,\"userName\":null}", MyData2.class);
+        assertEquals(7, data.getId());
+        assertEquals(0, data.getUserAge());
+        assertEquals(null, data.getUserName());
+    }
+
+    @Test
+    public void gsonToListKeepsTheElementType() {
+        List<Subjects> subjects = GsonUtil.GsonToList(
+                "[{\"title\":\"a\",\"year\":\"1994\",\"id\":\"1\"}]", Subjects.class);
+        assertEquals("a", subjects.get(0).getTitle());
+
+        List<Subjects> array = GsonUtil.stringToArray(
+                "[{\"title\":\"b\",\"year\":\"1993\",\"id\":\"2\"}]", Subjects[].class);
+        assertEquals("2", array.get(0).getId());
+    }
+}
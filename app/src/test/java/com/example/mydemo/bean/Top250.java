@@ -0,0 +1,36 @@
+package com.example.mydemo.bean;
+
+/**
+ * A top250 body shaped like the real one: every subject carries fields the beans do not map,
+ * which the adapters have to skip.
+ */
+final class Top250 {
+
+    private Top250() {
+    }
+
+    static String json(int count) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"count\":").append(count).append(",\"start\":0,\"total\":250,\"subjects\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"rating\":{\"max\":10,\"average\":").append(9.7 - i * 0.001)
+                    .append(",\"stars\":\"50\",\"min\":0},")
+                    .append("\"genres\":[\"犯罪\",\"剧情\"],")
+                    .append("\"title\":\"电影").append(i).append("\",")
+                    .append("\"casts\":[{\"alt\":\"https://movie.douban.com/celebrity/").append(1000 + i)
+                    .append("/\",\"avatars\":{\"small\":\"s.jpg\",\"large\":\"l.jpg\",\"medium\":\"m.jpg\"},")
+                    .append("\"name\":\"演员").append(i).append("\",\"id\":\"").append(1000 + i).append("\"}],")
+                    .append("\"collect_count\":").append(1000000 + i).append(',')
+                    .append("\"original_title\":\"Movie ").append(i).append("\",")
+                    .append("\"subtype\":\"movie\",")
+                    .append("\"year\":\"").append(1950 + i % 70).append("\",")
+                    .append("\"alt\":\"https://movie.douban.com/subject/").append(1292000 + i).append("/\",")
+                    .append("\"id\":\"").append(1292000 + i).append("\"}");
+        }
+        json.append("],\"title\":\"豆瓣电影Top250\"}");
+        return json.toString();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.mydemo.db;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import com.example.mydemo.bean.MyData2;
+import com.example.mydemo.bean.MyObjectBox;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.objectbox.Box;
+import io.objectbox.BoxStore;
+import io.objectbox.reactive.RunWithParam;
+import io.objectbox.reactive.Scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs against a real store. Ids are delivered on ObjectBox's notification thread, so every
+ * check waits for the notifications first.
+ */
+public class ObjectBoxDataSourceTest {
+    private static final Scheduler DIRECT = new Scheduler() {
+        @Override
+        public <T> void run(RunWithParam<T> runnable, T param) {
+            runnable.run(param);
+        }
+    };
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private BoxStore mStore;
+    private Box<MyData2> mBox;
+    private final Recorder mRecorder = new Recorder();
+
+    @Before
+    public void setUp() throws IOException {
+        mStore = MyObjectBox.builder().directory(mFolder.newFolder()).build();
+        mBox = mStore.boxFor(MyData2.class);
+    }
+
+    @After
+    public void tearDown() {
+        mStore.close();
+    }
+
+    @Test
+    public void entitiesAreReadOnlyWhenBound() throws InterruptedException {
+        putRows(1000);
+        ObjectBoxDataSource<MyData2> source = attach(20);
+        mRecorder.expect("inserted 0 1000");
+        assertEquals(1000, source.size());
+        assertEquals(0, source.getCachedCount());
+
+        for (int i = 0; i < source.size(); i++) {
+            assertEquals("user" + i, source.get(i).getUserName());
+        }
+        assertEquals(20, source.getCachedCount());
+    }
+
+    @Test
+    public void changesAreNotifiedMinimally() throws InterruptedException {
+        putRows(100);
+        final ObjectBoxDataSource<MyData2> source = attach(20);
+        mRecorder.expect("inserted 0 100");
+        for (int i = 0; i < 10; i++) {
+            source.get(i);
+        }
+
+        final long removed = source.getId(50);
+        mStore.runInTx(new Runnable() {
+            @Override
+            public void run() {
+                mBox.remove(removed);
+                mBox.put(row("added"));
+            }
+        });
+        mRecorder.expect("removed 50 1", "inserted 99 1", "changed 0 10");
+        assertEquals(100, source.size());
+        assertEquals("added", source.get(99).getUserName());
+
+        MyData2 third = source.get(3);
+        third.setUserName("renamed");
+        mBox.put(third);
+        mRecorder.expect("changed 3 1", "changed 99 1");
+        assertEquals("renamed", source.get(3).getUserName());
+    }
+
+    @Test
+    public void detachingStopsListening() throws InterruptedException {
+        putRows(10);
+        ObjectBoxDataSource<MyData2> source = attach(20);
+        mRecorder.expect("inserted 0 10");
+        source.get(0);
+
+        source.setCallback(null);
+        assertEquals(0, source.getCachedCount());
+        mBox.put(row("ignored"));
+        assertNull(mRecorder.mEvents.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(10, source.size());
+    }
+
+    private ObjectBoxDataSource<MyData2> attach(int cacheSize) {
+        ObjectBoxDataSource<MyData2> source =
+                new ObjectBoxDataSource<>(mStore, MyData2.class, mBox.query().build(), cacheSize, DIRECT);
+        source.setCallback(mRecorder);
+        return source;
+    }
+
+    private void putRows(int count) {
+        List<MyData2> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(row("user" + i));
+        }
+        mBox.put(rows);
+    }
+
+    private static MyData2 row(String name) {
+        MyData2 data = new MyData2();
+        data.setUserName(name);
+        data.setGender_new_now("数据2222");
+        return data;
+    }
+
+    private static final class Recorder implements ListUpdateCallback {
+        final BlockingQueue<String> mEvents = new LinkedBlockingQueue<>();
+
+        void expect(String... events) throws InterruptedException {
+            for (String event : events) {
+                assertEquals(event, mEvents.poll(5, TimeUnit.SECONDS));
+            }
+            assertTrue("Unexpected " + mEvents, mEvents.isEmpty());
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            mEvents.add("inserted " + position + " " + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mEvents.add("removed " + position + " " + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mEvents.add("moved " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mEvents.add("changed " + position + " " + count);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.mydemo.db;
+
+import com.example.benchmark.Baseline;
+import com.example.benchmark.BenchmarkRunner;
+import com.example.benchmark.Result;
+import com.example.mydemo.bean.MyData2;
+import com.example.mydemo.bean.MyData2_;
+import com.example.mydemo.bean.MyObjectBox;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.objectbox.Box;
+import io.objectbox.BoxStore;
+import io.objectbox.query.QueryBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Single-row lookups in 100k MyData2. The indexed lookup must be at least 10x the scan, both
+ * measured in the same run; the numbers are also reported against
+ * {@code objectbox-benchmark.properties}.
+ * <ul>
+ * <li>{@code indexed}: a prepared query on the indexed gender_new_now.</li>
+ * <li>{@code scanned}: the same query on userName, which has no index, so every row is read.</li>
+ * <li>{@code rebuilt}: the indexed query built again for every lookup, as ObjectBoxActivity did.</li>
+ * </ul>
+ * <pre>
+ *     ./gradlew :app:testDebugUnitTest --tests '*QueryBenchmark' -Pbenchmark
+ * </pre>
+ */
+public class QueryBenchmark {
+    private static final int ROWS = 100000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private BoxStore mStore;
+    private BenchmarkRunner mRunner;
+    private int mNext;
+
+    @Before
+    public void setUp() throws IOException {
+        mStore = MyObjectBox.builder().directory(mFolder.newFolder()).build();
+        List<MyData2> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            MyData2 data = new MyData2();
+            data.setUserName(key(i));
+            data.setUserAge(i % 100);
+            data.setGender_new_now(key(i));
+            rows.add(data);
+        }
+        mStore.boxFor(MyData2.class).put(rows);
+        mRunner = new BenchmarkRunner(Baseline.load(getClass().getResourceAsStream("/objectbox-benchmark.properties")));
+    }
+
+    @After
+    public void tearDown() {
+        mStore.close();
+    }
+
+    @Test
+    public void indexedAgainstScanned() {
+        QueryRegistry registry = new QueryRegistry(mStore);
+        final PreparedQuery<MyData2> byGender = registry.prepare("byGender", MyData2.class,
+                new QueryRegistry.Shape<MyData2>() {
+                    @Override
+                    public void apply(QueryBuilder<MyData2> builder) {
+                        builder.equal(MyData2_.gender_new_now, "");
+                    }
+                });
+        final PreparedQuery<MyData2> byName = registry.prepare("byName", MyData2.class,
+                new QueryRegistry.Shape<MyData2>() {
+                    @Override
+                    public void apply(QueryBuilder<MyData2> builder) {
+                        builder.equal(MyData2_.userName, "");
+                    }
+                });
+        final Box<MyData2> box = mStore.boxFor(MyData2.class);
+
+        Result indexed = mRunner.run("objectbox.query.indexed", new Runnable() {
+            @Override
+            public void run() {
+                check(byGender.find(MyData2_.gender_new_now, nextKey()));
+            }
+        });
+        Result scanned = mRunner.run("objectbox.query.scanned", new Runnable() {
+            @Override
+            public void run() {
+                check(byName.find(MyData2_.userName, nextKey()));
+            }
+        });
+        mRunner.run("objectbox.query.rebuilt", new Runnable() {
+            @Override
+            public void run() {
+                check(box.query().equal(MyData2_.gender_new_now, nextKey()).build().find());
+            }
+        });
+        mRunner.finish();
+        assertTrue(indexed + " against " + scanned, indexed.getOpsPerSecond() > 10 * scanned.getOpsPerSecond());
+    }
+
+    private String nextKey() {
+        mNext = (mNext + 7919) % ROWS;
+        return key(mNext);
+    }
+
+    private static String key(int i) {
+        return "user" + i;
+    }
+
+    private static void check(List<MyData2> found) {
+        assertEquals(1, found.size());
+    }
+}
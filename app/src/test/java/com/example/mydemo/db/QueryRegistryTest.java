@@ -0,0 +1,128 @@
+package com.example.mydemo.db;
+
+import com.example.mydemo.bean.MyData2;
+import com.example.mydemo.bean.MyData2_;
+import com.example.mydemo.bean.MyObjectBox;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.objectbox.BoxStore;
+import io.objectbox.query.QueryBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class QueryRegistryTest {
+    private static final int ROWS = 100;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private BoxStore mStore;
+    private QueryRegistry mRegistry;
+
+    @Before
+    public void setUp() throws IOException {
+        mStore = MyObjectBox.builder().directory(mFolder.newFolder()).build();
+        List<MyData2> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            MyData2 data = new MyData2();
+            data.setUserName("user" + i);
+            data.setUserAge(i);
+            data.setGender_new_now("gender" + i % 10);
+            rows.add(data);
+        }
+        mStore.boxFor(MyData2.class).put(rows);
+        mRegistry = new QueryRegistry(mStore);
+    }
+
+    @After
+    public void tearDown() {
+        mStore.close();
+    }
+
+    @Test
+    public void aNameIsBuiltOnce() {
+        PreparedQuery<MyData2> first = mRegistry.prepare("byGender", MyData2.class, BY_GENDER);
+        assertSame(first, mRegistry.prepare("byGender", MyData2.class, BY_GENDER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void aNameHasOneEntity() {
+        mRegistry.prepare("byGender", MyData2.class, BY_GENDER);
+        mRegistry.prepare("byGender", Object.class, new QueryRegistry.Shape<Object>() {
+            @Override
+            public void apply(QueryBuilder<Object> builder) {
+            }
+        });
+    }
+
+    @Test
+    public void everyRunBindsItsOwnParameters() {
+        PreparedQuery<MyData2> byGender = mRegistry.prepare("byGender", MyData2.class, BY_GENDER);
+        assertGender("gender3", byGender.find(MyData2_.gender_new_now, "gender3"));
+        assertGender("gender7", byGender.find(MyData2_.gender_new_now, "gender7"));
+        assertEquals(0, byGender.find(MyData2_.gender_new_now, "none").size());
+
+        PreparedQuery<MyData2> byAge = mRegistry.prepare("byAge", MyData2.class, new QueryRegistry.Shape<MyData2>() {
+            @Override
+            public void apply(QueryBuilder<MyData2> builder) {
+                builder.between(MyData2_.userAge, 0, 0);
+            }
+        });
+        assertEquals(4, byAge.count(new PreparedQuery.Parameters().set(MyData2_.userAge, 20, 23)));
+        assertEquals(11, byAge.count(new PreparedQuery.Parameters().set(MyData2_.userAge, 0, 10)));
+    }
+
+    @Test
+    public void concurrentReadersDoNotSeeEachOthersParameters() throws Exception {
+        final PreparedQuery<MyData2> byGender = mRegistry.prepare("byGender", MyData2.class, BY_GENDER);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final String gender = "gender" + t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < 500; i++) {
+                            assertGender(gender, byGender.find(MyData2_.gender_new_now, gender));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertGender(String gender, List<MyData2> found) {
+        assertEquals(ROWS / 10, found.size());
+        for (MyData2 data : found) {
+            assertEquals(gender, data.getGender_new_now());
+        }
+    }
+
+    private static final QueryRegistry.Shape<MyData2> BY_GENDER = new QueryRegistry.Shape<MyData2>() {
+        @Override
+        public void apply(QueryBuilder<MyData2> builder) {
+            builder.equal(MyData2_.gender_new_now, "");
+        }
+    };
+}
@@ -0,0 +1,97 @@
+package com.example.mydemo.db;
+
+import com.example.benchmark.Baseline;
+import com.example.benchmark.BenchmarkRunner;
+import com.example.benchmark.Result;
+import com.example.mydemo.bean.MyData2;
+import com.example.mydemo.bean.MyObjectBox;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.objectbox.Box;
+import io.objectbox.BoxStore;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 10k small writes both ways in the same run. Write-behind must be at least {@link #MIN_SPEEDUP}
+ * times as fast; the numbers are also reported against {@code objectbox-benchmark.properties}.
+ * <ul>
+ * <li>{@code direct}: one transaction per write, as ObjectBoxActivity used to do.</li>
+ * <li>{@code writeBehind}: queued in a {@link WriteBehindQueue}, then flushed and waited for.</li>
+ * </ul>
+ * <pre>
+ *     ./gradlew :app:testDebugUnitTest --tests '*WriteBehindBenchmark' -Pbenchmark
+ * </pre>
+ */
+public class WriteBehindBenchmark {
+    private static final int WRITES = 10000;
+    // Batches of 256 commit about 40 times instead of 10000, so the real gain is far larger. The
+    // margin absorbs a noisy box.
+    private static final double MIN_SPEEDUP = 2;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private BoxStore mStore;
+    private BenchmarkRunner mRunner;
+
+    @Before
+    public void setUp() throws IOException {
+        mStore = MyObjectBox.builder().directory(mFolder.newFolder()).build();
+        mRunner = new BenchmarkRunner(Baseline.load(getClass().getResourceAsStream("/objectbox-benchmark.properties")));
+    }
+
+    @After
+    public void tearDown() {
+        mStore.close();
+    }
+
+    @Test
+    public void directAgainstWriteBehind() {
+        final Box<MyData2> directBox = mStore.boxFor(MyData2.class);
+        final WriteBehindQueue queue = new WriteBehindQueue(mStore, 256, 1, TimeUnit.HOURS, new TestScheduler());
+        final WriteBehindBox<MyData2> box = queue.box(MyData2.class);
+
+        Result direct = mRunner.run("objectbox.put10k.direct", new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < WRITES; i++) {
+                    directBox.put(data(i));
+                }
+            }
+        });
+        Result writeBehind = mRunner.run("objectbox.put10k.writeBehind", new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < WRITES; i++) {
+                    box.put(data(i));
+                }
+                try {
+                    assertTrue(queue.flushAndWait(30, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        mRunner.finish();
+        assertTrue(writeBehind + " against " + direct,
+                writeBehind.getOpsPerSecond() >= MIN_SPEEDUP * direct.getOpsPerSecond());
+    }
+
+    private static MyData2 data(int i) {
+        MyData2 data = new MyData2();
+        data.setUserName("user" + i);
+        data.setUserAge(20);
+        data.setGender_new_now("数据2222");
+        return data;
+    }
+}
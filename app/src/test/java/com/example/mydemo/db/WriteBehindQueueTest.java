@@ -0,0 +1,181 @@
+package com.example.mydemo.db;
+
+import com.example.mydemo.bean.MyData2;
+import com.example.mydemo.bean.MyObjectBox;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import io.objectbox.Box;
+import io.objectbox.BoxStore;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs against a real store, with the ObjectBox native library for the desktop.
+ */
+public class WriteBehindQueueTest {
+    private static final int WRITES = 10000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private BoxStore mStore;
+    private TestScheduler mScheduler;
+
+    @Before
+    public void setUp() throws IOException {
+        mStore = MyObjectBox.builder().directory(mFolder.newFolder()).build();
+        mScheduler = new TestScheduler();
+    }
+
+    @After
+    public void tearDown() {
+        mStore.close();
+    }
+
+    @Test
+    public void queuedWritesAreReadBeforeTheyAreCommitted() throws InterruptedException {
+        WriteBehindQueue queue = new WriteBehindQueue(mStore, 100, 1, TimeUnit.HOURS, mScheduler);
+        WriteBehindBox<MyData2> box = queue.box(MyData2.class);
+        MyData2 stored = data("stored");
+        box.getBox().put(stored);
+
+        MyData2 added = data("added");
+        box.put(added);
+        MyData2 changed = data("changed");
+        changed.setId(stored.getId());
+        box.put(changed);
+
+        assertEquals(0, added.getId());
+        assertEquals("Nothing is written yet", "stored", box.getBox().get(stored.getId()).getUserName());
+        assertSame(changed, box.get(stored.getId()));
+        List<MyData2> all = box.getAll();
+        assertEquals(2, all.size());
+        assertSame(changed, all.get(0));
+        assertSame(added, all.get(1));
+
+        box.remove(stored.getId());
+        assertNull(box.get(stored.getId()));
+        assertEquals(1, box.getAll().size());
+
+        assertTrue(queue.flushAndWait(5, TimeUnit.SECONDS));
+        assertTrue(added.getId() != 0);
+        assertNull(box.getBox().get(stored.getId()));
+        assertEquals(1, box.getBox().count());
+        assertEquals("added", box.get(added.getId()).getUserName());
+    }
+
+    @Test
+    public void removeAllDropsWhatIsQueuedBeforeIt() throws InterruptedException {
+        WriteBehindQueue queue = new WriteBehindQueue(mStore, 100, 1, TimeUnit.HOURS, mScheduler);
+        WriteBehindBox<MyData2> box = queue.box(MyData2.class);
+        box.getBox().put(data("stored"));
+        box.put(data("dropped"));
+        box.removeAll();
+        MyData2 kept = data("kept");
+        box.put(kept);
+
+        assertEquals(1, box.getAll().size());
+        assertTrue(queue.flushAndWait(5, TimeUnit.SECONDS));
+        List<MyData2> all = box.getBox().getAll();
+        assertEquals(1, all.size());
+        assertEquals("kept", all.get(0).getUserName());
+    }
+
+    @Test
+    public void flushesWhenTheBatchIsFull() throws InterruptedException {
+        WriteBehindQueue queue = new WriteBehindQueue(mStore, 10, 1, TimeUnit.HOURS, mScheduler);
+        WriteBehindBox<MyData2> box = queue.box(MyData2.class);
+        for (int i = 0; i < 10; i++) {
+            box.put(data("user" + i));
+        }
+        awaitCount(box.getBox(), 10);
+    }
+
+    @Test
+    public void flushesAfterTheDelay() throws InterruptedException {
+        WriteBehindQueue queue = new WriteBehindQueue(mStore, 100, 200, TimeUnit.MILLISECONDS, mScheduler);
+        WriteBehindBox<MyData2> box = queue.box(MyData2.class);
+        box.put(data("user"));
+
+        mScheduler.advanceTimeBy(199, TimeUnit.MILLISECONDS);
+        Thread.sleep(100);
+        assertEquals(0, box.getBox().count());
+        mScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        awaitCount(box.getBox(), 1);
+    }
+
+    @Test
+    public void writesAreCommittedInFullBatches() throws InterruptedException {
+        WriteBehindQueue queue = new WriteBehindQueue(mStore, 256, 1, TimeUnit.HOURS, mScheduler);
+        WriteBehindBox<MyData2> box = queue.box(MyData2.class);
+        for (int i = 0; i < WRITES; i++) {
+            box.put(data("user" + i));
+        }
+        assertTrue(queue.flushAndWait(30, TimeUnit.SECONDS));
+
+        assertEquals(WRITES, box.getBox().count());
+        // Every batch but the last holds at least 256 writes, more while another was in flight.
+        int batches = queue.getBatchCount();
+        assertTrue(batches + " batches", batches >= 1 && batches <= (WRITES + 255) / 256);
+    }
+
+    @Test
+    public void failedBatchesReachTheCaller() throws InterruptedException {
+        WriteBehindQueue queue = new WriteBehindQueue(mStore, 100, 1, TimeUnit.HOURS, mScheduler);
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        queue.setOnBatchFailedListener(new WriteBehindQueue.OnBatchFailedListener() {
+            @Override
+            public void onBatchFailed(Throwable error) {
+                failures.add(error);
+            }
+        });
+        WriteBehindBox<MyData2> box = queue.box(MyData2.class);
+        MyData2 unknown = data("unknown");
+        unknown.setId(1000000); // Above the id sequence, ObjectBox refuses it.
+        box.put(unknown);
+
+        try {
+            queue.flushAndWait(5, TimeUnit.SECONDS);
+            fail("Expected a WriteFailedException");
+        } catch (WriteBehindQueue.WriteFailedException expected) {
+            assertEquals(1, failures.size());
+            assertSame(failures.get(0), expected.getCause());
+        }
+        assertEquals(0, box.getBox().count());
+
+        box.put(data("next"));
+        assertTrue("Later batches are not affected", queue.flushAndWait(5, TimeUnit.SECONDS));
+        assertEquals(1, box.getBox().count());
+    }
+
+    private static MyData2 data(String name) {
+        MyData2 data = new MyData2();
+        data.setUserName(name);
+        data.setUserAge(20);
+        data.setGender_new_now("数据2222");
+        return data;
+    }
+
+    private static void awaitCount(Box<MyData2> box, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (box.count() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, box.count());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.bean.Subjects;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.subscribers.TestSubscriber;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Pages of 2 subjects. Requests run on the RequestScheduler threads, so every check on the
+ * server waits for the requests first.
+ */
+public class ApiMethodsTest {
+    private static final int PAGE_SIZE = 2;
+
+    private final MockWebServer mServer = new MockWebServer();
+    private ApiService mService;
+    // Subjects in the whole list.
+    private volatile int mTotal;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int start = Integer.parseInt(request.getRequestUrl().queryParameter("start"));
+                int count = Integer.parseInt(request.getRequestUrl().queryParameter("count"));
+                StringBuilder body = new StringBuilder("{\"title\":\"top250\",\"subjects\":[");
+                for (int i = start; i < Math.min(start + count, mTotal); i++) {
+                    if (i > start) {
+                        body.append(',');
+                    }
+                    body.append("{\"id\":\"").append(i).append("\",\"title\":\"movie").append(i).append("\"}");
+                }
+                return new MockResponse().setBody(body.append("]}").toString());
+            }
+        });
+        mServer.start();
+        mService = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build()
+                .create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void loadsOnlyTheNextPageAhead() throws Exception {
+        mTotal = 100;
+        TestSubscriber<Subjects> subscriber = ApiMethods.getPages(mService, PAGE_SIZE).test(0);
+
+        // Nothing requested yet: the first page and the one after it.
+        expectPages(0, 2);
+        subscriber.assertNoValues();
+
+        // Page 0 consumed, page 1 is handed over and page 2 loads.
+        subscriber.request(2);
+        subscriber.awaitCount(2);
+        expectPages(4);
+
+        subscriber.request(1);
+        subscriber.awaitCount(3);
+        expectPages();
+        subscriber.assertValueCount(3).assertNotTerminated();
+        assertEquals("movie2", subscriber.values().get(2).getTitle());
+        subscriber.dispose();
+    }
+
+    @Test
+    public void completesAfterAShortPage() throws Exception {
+        mTotal = 5;
+        TestSubscriber<Subjects> subscriber = ApiMethods.getPages(mService, PAGE_SIZE).test();
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertComplete().assertValueCount(5);
+        assertEquals("4", subscriber.values().get(4).getId());
+        expectPages(0, 2, 4);
+    }
+
+    @Test
+    public void completesAfterAnEmptyPage() throws Exception {
+        mTotal = 4;
+        TestSubscriber<Subjects> subscriber = ApiMethods.getPages(mService, PAGE_SIZE).test();
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertComplete().assertValueCount(4);
+        expectPages(0, 2, 4);
+    }
+
+    /**
+     * Checks the starts of the pages requested since the last call, and that no other is.
+     */
+    private void expectPages(int... starts) throws InterruptedException {
+        for (int start : starts) {
+            RecordedRequest request = mServer.takeRequest(5, TimeUnit.SECONDS);
+            assertEquals(String.valueOf(start), request.getRequestUrl().queryParameter("start"));
+            assertEquals(String.valueOf(PAGE_SIZE), request.getRequestUrl().queryParameter("count"));
+        }
+        assertNull(mServer.takeRequest(200, TimeUnit.MILLISECONDS));
+    }
+}
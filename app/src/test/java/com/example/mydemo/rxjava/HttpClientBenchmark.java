@@ -0,0 +1,137 @@
+package com.example.mydemo.rxjava;
+
+import com.example.benchmark.Baseline;
+import com.example.benchmark.BenchmarkRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A client per call (what OkHttpActivity used to do) against the shared client of
+ * {@link HttpClientProvider}, on a local server. Reports throughput and checks the number of
+ * connections and threads each approach leaves behind.
+ * <pre>
+ *     ./gradlew :app:testDebugUnitTest --tests '*HttpClientBenchmark' -Pbenchmark
+ * </pre>
+ */
+public class HttpClientBenchmark {
+    private static final int CALLS = 50;
+
+    private final MockWebServer mServer = new MockWebServer();
+    private BenchmarkRunner mRunner;
+    private Request mRequest;
+    private volatile int mNewConnections;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getSequenceNumber() == 0) {
+                    mNewConnections++; // First request on its connection.
+                }
+                return new MockResponse().setBody("{}");
+            }
+        });
+        mServer.start();
+        mRequest = new Request.Builder().url(mServer.url("/top250")).build();
+        mRunner = new BenchmarkRunner(Baseline.load(getClass().getResourceAsStream("/http-benchmark.properties")));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void connectionsAndThreads() throws Exception {
+        int threadsBefore = Thread.activeCount();
+        for (int i = 0; i < CALLS; i++) {
+            enqueueAndWait(HttpClientProvider.create());
+        }
+        int perCallConnections = mNewConnections;
+        int perCallThreads = Thread.activeCount() - threadsBefore;
+
+        mNewConnections = 0;
+        threadsBefore = Thread.activeCount();
+        OkHttpClient shared = HttpClientProvider.create();
+        for (int i = 0; i < CALLS; i++) {
+            enqueueAndWait(i % 2 == 0 ? shared : shared.newBuilder().readTimeout(5, TimeUnit.SECONDS).build());
+        }
+        int sharedConnections = mNewConnections;
+        int sharedThreads = Thread.activeCount() - threadsBefore;
+
+        mRunner.note("http.clientPerCall.connections", perCallConnections);
+        mRunner.note("http.clientPerCall.threads", perCallThreads);
+        mRunner.note("http.sharedClient.connections", sharedConnections);
+        mRunner.note("http.sharedClient.threads", sharedThreads);
+        mRunner.finish();
+        assertEquals(CALLS, perCallConnections);
+        assertEquals(1, sharedConnections);
+        assertTrue(sharedThreads < perCallThreads);
+    }
+
+    @Test
+    public void throughput() {
+        final OkHttpClient shared = HttpClientProvider.create();
+        mRunner.run("http.clientPerCall", new Runnable() {
+            @Override
+            public void run() {
+                OkHttpClient client = HttpClientProvider.create();
+                execute(client);
+                // Let the pool's cleanup thread end, thousands of idle pools would otherwise pile up.
+                client.connectionPool().evictAll();
+            }
+        });
+        mRunner.run("http.sharedClient", new Runnable() {
+            @Override
+            public void run() {
+                execute(shared);
+            }
+        });
+        mRunner.finish();
+    }
+
+    private void execute(OkHttpClient client) {
+        try {
+            client.newCall(mRequest).execute().close();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private void enqueueAndWait(OkHttpClient client) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        client.newCall(mRequest).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                done.countDown();
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
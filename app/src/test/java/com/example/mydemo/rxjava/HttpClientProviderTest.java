@@ -0,0 +1,184 @@
+package com.example.mydemo.rxjava;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpClientProviderTest {
+    private final MockWebServer mServer = new MockWebServer();
+    private final AtomicInteger mRunning = new AtomicInteger();
+    private final AtomicInteger mMaxRunning = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int running = mRunning.incrementAndGet();
+                while (mMaxRunning.get() < running) {
+                    mMaxRunning.compareAndSet(mMaxRunning.get(), running);
+                }
+                Thread.sleep(50);
+                mRunning.decrementAndGet();
+                return new MockResponse().setBody("ok");
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void executedCallsRespectThePerHostLimit() throws Exception {
+        final OkHttpClient client = HttpClientProvider.create();
+        HttpClientProvider.setMaxRequestsPerHost(client, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws IOException {
+                        Response response = client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute();
+                        try {
+                            return response.body().string();
+                        } finally {
+                            response.close();
+                        }
+                    }
+                }));
+            }
+            for (Future<String> future : futures) {
+                assertEquals("ok", future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, mMaxRunning.get());
+    }
+
+    @Test
+    public void theSlotIsHeldUntilTheBodyIsClosed() throws Exception {
+        OkHttpClient client = HttpClientProvider.create();
+        HttpClientProvider.setMaxRequestsPerHost(client, 1);
+        Response open = client.newCall(request()).execute();
+
+        long start = System.nanoTime();
+        try {
+            client.newCall(request().newBuilder().header(HttpClientProvider.CONNECT_TIMEOUT, "200").build()).execute();
+            throw new AssertionError("Expected an InterruptedIOException");
+        } catch (InterruptedIOException expected) {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        }
+        assertEquals(1, mServer.getRequestCount());
+
+        open.close();
+        client.newCall(request()).execute().close();
+        assertEquals(2, mServer.getRequestCount());
+    }
+
+    @Test
+    public void cancelWakesAWaitingCall() throws Exception {
+        OkHttpClient client = HttpClientProvider.create();
+        HttpClientProvider.setMaxRequestsPerHost(client, 1);
+        Response open = client.newCall(request()).execute();
+        final Call waiting = client.newCall(request());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Response> future = executor.submit(new Callable<Response>() {
+                @Override
+                public Response call() throws IOException {
+                    return waiting.execute();
+                }
+            });
+            Thread.sleep(100);
+            long start = System.nanoTime();
+            waiting.cancel();
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                throw new AssertionError("Expected an IOException");
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof IOException);
+            }
+            // Well before the 10s connect timeout.
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        } finally {
+            executor.shutdown();
+            open.close();
+        }
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void enqueuedCallsAreOnlyLimitedByTheDispatcher() throws Exception {
+        OkHttpClient client = HttpClientProvider.create();
+        HttpClientProvider.setMaxRequestsPerHost(client, 1);
+        Response open = client.newCall(request()).execute();
+        final CountDownLatch done = new CountDownLatch(1);
+        try {
+            // The executed call holds the interceptor's slot, not one of the dispatcher.
+            client.newCall(request()).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            open.close();
+        }
+    }
+
+    @Test
+    public void invalidTimeoutHeaderFailsTheCall() throws Exception {
+        Request request = new Request.Builder()
+                .url(mServer.url("/"))
+                .header(HttpClientProvider.READ_TIMEOUT, "soon")
+                .build();
+        try {
+            HttpClientProvider.create().newCall(request).execute();
+            throw new AssertionError("Expected an IOException");
+        } catch (IOException expected) {
+            assertEquals("Invalid " + HttpClientProvider.READ_TIMEOUT + ": soon", expected.getMessage());
+        }
+        assertEquals(0, mServer.getRequestCount());
+    }
+
+    private Request request() {
+        return new Request.Builder().url(mServer.url("/")).build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.utils.AppLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class HttpLogInterceptorTest {
+    private static final int PREVIEW = 1024;
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final List<String> mLogged = Collections.synchronizedList(new ArrayList<String>());
+    private final OkHttpClient mClient = new OkHttpClient.Builder()
+            .addInterceptor(new HttpLogInterceptor(PREVIEW))
+            .build();
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Release builds do not log requests", AppLog.DEBUG);
+        mServer.start();
+        AppLog.setSink(new AppLog.Sink() {
+            @Override
+            public void write(int priority, String tag, String message, Throwable throwable) {
+                mLogged.add(message);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void previewsTheStartOfALargeBodyAndPassesAllOfItOn() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        while (json.length() < 64 * 1024) {
+            json.append("{\"title\":\"movie\"},");
+        }
+        json.append("{}]");
+        mServer.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(json.toString()));
+
+        Response response = mClient.newCall(new Request.Builder().url(mServer.url("/top250")).build()).execute();
+        assertEquals(json.toString(), response.body().string());
+
+        String logged = responseLine();
+        assertTrue(logged, logged.startsWith("<-- 200 " + mServer.url("/top250")));
+        String preview = logged.substring(logged.indexOf('\n') + 1);
+        assertTrue(preview.endsWith("…"));
+        assertEquals(json.substring(0, PREVIEW), preview.substring(0, preview.length() - 1));
+    }
+
+    @Test
+    public void doesNotReadBinaryBodies() throws Exception {
+        mServer.enqueue(new MockResponse()
+                .setHeader("Content-Type", "image/png")
+                .setBody(new Buffer().write(new byte[4096])));
+
+        Response response = mClient.newCall(new Request.Builder().url(mServer.url("/poster.png")).build()).execute();
+        assertEquals(4096, response.body().bytes().length);
+        assertTrue(responseLine().endsWith("(4096-byte body)"));
+    }
+
+    private String responseLine() {
+        assertTrue(AppLog.flush(5, TimeUnit.SECONDS));
+        synchronized (mLogged) {
+            for (String message : mLogged) {
+                if (message.startsWith("<--")) {
+                    return message;
+                }
+            }
+        }
+        throw new AssertionError("No response logged: " + mLogged);
+    }
+}
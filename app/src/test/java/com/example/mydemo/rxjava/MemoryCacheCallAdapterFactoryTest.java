@@ -0,0 +1,209 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.bean.Movie;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.functions.BooleanSupplier;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class MemoryCacheCallAdapterFactoryTest {
+    private static final String BODY = "{\"title\":\"top250\",\"subjects\":[]}";
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final TestScheduler mClock = new TestScheduler();
+    private final ResponseMemoryCache mCache = new ResponseMemoryCache(1024 * 1024);
+    private final AtomicBoolean mOnline = new AtomicBoolean(true);
+    private final List<Call> mCalls = new CopyOnWriteArrayList<>();
+    private ApiService mService;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer.start();
+        final OkHttpClient client = new OkHttpClient();
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .callFactory(new Call.Factory() {
+                    @Override
+                    public Call newCall(Request request) {
+                        Call call = client.newCall(request);
+                        mCalls.add(call);
+                        return call;
+                    }
+                })
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(new MemoryCacheCallAdapterFactory(mCache, 60, 600, TimeUnit.SECONDS, mClock,
+                        new BooleanSupplier() {
+                            @Override
+                            public boolean getAsBoolean() {
+                                return mOnline.get();
+                            }
+                        }))
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build();
+        mService = retrofit.create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void freshEntryIsServedFromMemory() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        Movie first = get(0);
+        first.getSubjects().add(null);
+        Movie second = get(0);
+
+        assertNotSame(first, second);
+        assertEquals("Decoded again", 0, second.getSubjects().size());
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(1, mCache.getMissCount());
+        assertEquals(1, mCache.getHitCount());
+    }
+
+    @Test
+    public void staleEntryIsServedWhileRevalidating() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY).setHeader("ETag", "\"v1\""));
+        mServer.enqueue(new MockResponse().setResponseCode(304));
+        get(0);
+        mServer.takeRequest();
+
+        mClock.advanceTimeBy(61, TimeUnit.SECONDS);
+        assertEquals("top250", get(0).getTitle());
+        RecordedRequest revalidation = mServer.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+        awaitRevalidations(1);
+        assertEquals(1, mCache.getStaleHitCount());
+        assertEquals(1, mCache.getNotModifiedCount());
+
+        // The 304 renewed the entry.
+        assertEquals("top250", get(0).getTitle());
+        assertEquals(1, mCache.getHitCount());
+        assertEquals(2, mServer.getRequestCount());
+    }
+
+    @Test
+    public void modifiedResponseReplacesEntry() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY).setHeader("Last-Modified", "Mon, 01 Oct 2018 00:00:00 GMT"));
+        mServer.enqueue(new MockResponse().setBody("{\"title\":\"new\",\"subjects\":[]}"));
+        get(0);
+
+        mClock.advanceTimeBy(61, TimeUnit.SECONDS);
+        assertEquals("top250", get(0).getTitle());
+        awaitRevalidations(1);
+        assertEquals(0, mCache.getNotModifiedCount());
+        assertEquals("new", get(0).getTitle());
+    }
+
+    @Test
+    public void aBodyThatNoLongerDecodesIsDropped() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        mServer.enqueue(new MockResponse().setBody("<html>"));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        get(0);
+
+        mClock.advanceTimeBy(61, TimeUnit.SECONDS);
+        get(0);
+        awaitRevalidations(1);
+        TestObserver<Movie> observer = mService.getTopMovie(0, 10).test();
+        observer.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        observer.assertNoValues().assertTerminated();
+        assertFalse(observer.errors().isEmpty());
+
+        assertEquals("top250", get(0).getTitle());
+        assertEquals(2, mCache.getMissCount());
+        assertEquals(3, mServer.getRequestCount());
+    }
+
+    @Test
+    public void expiredEntryIsAMiss() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        get(0);
+
+        mClock.advanceTimeBy(661, TimeUnit.SECONDS);
+        get(0);
+        assertEquals(2, mCache.getMissCount());
+        assertEquals(0, mCache.getStaleHitCount());
+        assertEquals(2, mServer.getRequestCount());
+    }
+
+    @Test
+    public void staleEntryIsNotRevalidatedOffline() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY).setHeader("ETag", "\"v1\""));
+        mServer.enqueue(new MockResponse().setResponseCode(304));
+        get(0);
+
+        mOnline.set(false);
+        mClock.advanceTimeBy(61, TimeUnit.SECONDS);
+        assertEquals("top250", get(0).getTitle());
+        Thread.sleep(200);
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(0, mCache.getRevalidationCount());
+
+        mOnline.set(true);
+        assertEquals("top250", get(0).getTitle());
+        awaitRevalidations(1);
+        assertEquals(2, mServer.getRequestCount());
+    }
+
+    @Test
+    public void disposingCancelsTheCall() throws Exception {
+        mServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        TestObserver<Movie> observer = mService.getTopMovie(0, 10).subscribeOn(Schedulers.io()).test();
+        mServer.takeRequest(5, TimeUnit.SECONDS);
+
+        observer.dispose();
+        assertFalse(mCalls.isEmpty());
+        for (Call call : mCalls) {
+            assertTrue(call.isCanceled());
+        }
+        observer.assertNoValues().assertNoErrors();
+    }
+
+    private Movie get(int start) {
+        TestObserver<Movie> observer = mService.getTopMovie(start, 10).test();
+        observer.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        observer.assertValueCount(1).assertComplete();
+        return observer.values().get(0);
+    }
+
+    private void awaitRevalidations(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mCache.getRevalidationCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, mCache.getRevalidationCount());
+    }
+}
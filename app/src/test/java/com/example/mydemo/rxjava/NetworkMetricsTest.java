@@ -0,0 +1,114 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.bean.Movie;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NetworkMetricsTest {
+    private static final String BODY = "{\"title\":\"top250\",\"subjects\":[]}";
+
+    private final MockWebServer mServer = new MockWebServer();
+    private ApiService mService;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer.start();
+        mService = service(new Retrofit.Builder().addCallAdapterFactory(NetworkMetrics.callAdapterFactory()));
+        NetworkMetrics.reset();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        NetworkMetrics.setEnabled(false);
+        mServer.shutdown();
+    }
+
+    @Test
+    public void recordsPhasesPerEndpoint() throws Exception {
+        NetworkMetrics.setEnabled(true);
+        mServer.enqueue(new MockResponse().setBody(BODY).setBodyDelay(20, TimeUnit.MILLISECONDS));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        mService.getTopMovie(0, 10).test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+        mService.getTopMovie(10, 10).test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+
+        String endpoint = "GET /v2/movie/top250";
+        assertEquals(2, NetworkMetrics.getHistogram(endpoint, NetworkMetrics.Phase.TOTAL).getCount());
+        assertEquals(2, NetworkMetrics.getHistogram(endpoint, NetworkMetrics.Phase.TTFB).getCount());
+        assertEquals(2, NetworkMetrics.getHistogram(endpoint, NetworkMetrics.Phase.DECODE).getCount());
+        // The second call reuses the pooled connection.
+        assertEquals(1, NetworkMetrics.getHistogram(endpoint, NetworkMetrics.Phase.CONNECT).getCount());
+        assertNull(NetworkMetrics.getHistogram(endpoint, NetworkMetrics.Phase.TLS));
+        assertTrue(NetworkMetrics.getHistogram(endpoint, NetworkMetrics.Phase.TOTAL).getMax() >= 20000);
+
+        String json = NetworkMetrics.toJson();
+        assertTrue(json, json.startsWith("{\"GET /v2/movie/top250\":{"));
+        assertTrue(json, json.contains("\"CONNECT\":{\"count\":1,"));
+    }
+
+    @Test
+    public void nothingIsLeftOnThePooledThread() throws Exception {
+        NetworkMetrics.setEnabled(true);
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+
+        // Emitted, but not through observeOnMainThread(), as in the paging stream.
+        service(new Retrofit.Builder()).getTopMovie(0, 10).blockingFirst();
+        assertEquals("Left over without the call adapter", "GET /v2/movie/top250", NetworkMetrics.pendingEndpoint());
+        mService.getTopMovie(0, 10).blockingFirst();
+        assertNull(NetworkMetrics.pendingEndpoint());
+    }
+
+    @Test
+    public void disabledRecordsNothing() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        Movie movie = mService.getTopMovie(0, 10).blockingFirst();
+
+        assertNotNull(movie);
+        assertEquals("{}", NetworkMetrics.toJson());
+    }
+
+    @Test
+    public void histogramStaysWithinItsPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50000.5, histogram.getMean(), 0.001);
+        assertWithin(50000, histogram.getValueAtPercentile(50));
+        assertWithin(99000, histogram.getValueAtPercentile(99));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        for (int bucket = 0; bucket < 300; bucket++) {
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.lowerBoundOf(bucket)));
+        }
+    }
+
+    private ApiService service(Retrofit.Builder builder) {
+        return builder
+                .client(HttpClientProvider.create())
+                .baseUrl(mServer.url("/v2/movie/"))
+                .addConverterFactory(NetworkMetrics.timing(GsonConverterFactory.create()))
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build()
+                .create(ApiService.class);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " ~ " + actual, Math.abs(expected - actual) <= expected / 16);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.bean.Movie;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+
+public class RequestCoalescerTest {
+    private static final String BODY = "{\"title\":\"top250\",\"subjects\":[]}";
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+    private final TestScheduler mClock = new TestScheduler();
+    private ApiService mService;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                mRelease.await(5, TimeUnit.SECONDS); // Hold the response so that callers overlap.
+                return new MockResponse().setBody(BODY);
+            }
+        });
+        mServer.start();
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.createAsync())
+                .build();
+        mService = new RequestCoalescer(3, TimeUnit.SECONDS, mClock)
+                .wrap(ApiService.class, retrofit.create(ApiService.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void concurrentCallsShareOneRequest() throws Exception {
+        TestObserver<Movie> first = mService.getTopMovie(0, 10).test();
+        TestObserver<Movie> second = mService.getTopMovie(0, 10).test();
+        TestObserver<Movie> third = mService.getTopMovie(0, 10).test();
+        mRelease.countDown();
+
+        first.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        second.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        third.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        first.assertValueCount(1).assertComplete();
+        second.assertValueCount(1).assertComplete();
+        third.assertValueCount(1).assertComplete();
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void differentArgumentsAreNotShared() throws Exception {
+        mRelease.countDown();
+        mService.getTopMovie(0, 10).test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+        mService.getTopMovie(10, 10).test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+        assertEquals(2, mServer.getRequestCount());
+    }
+
+    @Test
+    public void lateSubscribersReuseResultUntilTtl() throws Exception {
+        mRelease.countDown();
+        mService.getTopMovie(0, 10).test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+
+        mClock.advanceTimeBy(2, TimeUnit.SECONDS);
+        TestObserver<Movie> cached = mService.getTopMovie(0, 10).test();
+        cached.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        cached.assertValueCount(1).assertComplete();
+        assertEquals(1, mServer.getRequestCount());
+
+        mClock.advanceTimeBy(2, TimeUnit.SECONDS);
+        mService.getTopMovie(0, 10).test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+        assertEquals(2, mServer.getRequestCount());
+    }
+}
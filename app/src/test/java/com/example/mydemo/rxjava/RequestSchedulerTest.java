@@ -0,0 +1,133 @@
+package com.example.mydemo.rxjava;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RequestSchedulerTest {
+
+    @Test
+    public void queuedWorkRunsByPriority() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        scheduler.scheduler(RequestScheduler.Priority.USER_BLOCKING).scheduleDirect(await(gate));
+        scheduler.scheduler(RequestScheduler.Priority.PREFETCH).scheduleDirect(append(order, "prefetch", done));
+        scheduler.scheduler(RequestScheduler.Priority.VISIBLE).scheduleDirect(append(order, "visible", done));
+        scheduler.scheduler(RequestScheduler.Priority.USER_BLOCKING).scheduleDirect(append(order, "blocking", done));
+        gate.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("blocking", "visible", "prefetch"), order);
+    }
+
+    @Test
+    public void prefetchLeavesThreadsForUserBlockingWork() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(4);
+        CountDownLatch gate = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            scheduler.scheduler(RequestScheduler.Priority.PREFETCH).scheduleDirect(
+                    counting(running, maxRunning, await(gate)));
+        }
+        awaitRunning(running, 2);
+        Thread.sleep(50);
+        assertEquals("Half of the threads at most", 2, running.get());
+
+        CountDownLatch blocking = new CountDownLatch(1);
+        scheduler.scheduler(RequestScheduler.Priority.USER_BLOCKING).scheduleDirect(append(
+                new ArrayList<String>(), "blocking", blocking));
+        assertTrue("Ran while prefetching is stuck", blocking.await(5, TimeUnit.SECONDS));
+
+        gate.countDown();
+        awaitRunning(running, 0);
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void visibleAndPrefetchTogetherLeaveAThreadForUserBlockingWork() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(4);
+        CountDownLatch gate = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            scheduler.scheduler(RequestScheduler.Priority.PREFETCH).scheduleDirect(
+                    counting(running, maxRunning, await(gate)));
+        }
+        for (int i = 0; i < 3; i++) {
+            scheduler.scheduler(RequestScheduler.Priority.VISIBLE).scheduleDirect(
+                    counting(running, maxRunning, await(gate)));
+        }
+        awaitRunning(running, 3);
+        Thread.sleep(50);
+        assertEquals("All threads but one at most", 3, running.get());
+
+        CountDownLatch blocking = new CountDownLatch(1);
+        scheduler.scheduler(RequestScheduler.Priority.USER_BLOCKING).scheduleDirect(append(
+                new ArrayList<String>(), "blocking", blocking));
+        assertTrue("Ran while the other lanes are stuck", blocking.await(5, TimeUnit.SECONDS));
+
+        gate.countDown();
+        awaitRunning(running, 0);
+        assertEquals(3, maxRunning.get());
+    }
+
+    private static Runnable counting(final AtomicInteger running, final AtomicInteger maxRunning,
+                                     final Runnable waiting) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                int now = running.incrementAndGet();
+                int max;
+                while (now > (max = maxRunning.get()) && !maxRunning.compareAndSet(max, now)) {
+                    // Retry.
+                }
+                waiting.run();
+                running.decrementAndGet();
+            }
+        };
+    }
+
+    private static void awaitRunning(AtomicInteger running, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (running.get() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, running.get());
+    }
+
+    private static Runnable await(final CountDownLatch gate) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private static Runnable append(final List<String> order, final String name, final CountDownLatch done) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+                done.countDown();
+            }
+        };
+    }
+}
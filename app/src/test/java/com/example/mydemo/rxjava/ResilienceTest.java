@@ -0,0 +1,220 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.bean.Movie;
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.HttpException;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Faults are injected by the MockWebServer; every delay runs on a TestScheduler, Retrofit calls
+ * are synchronous, so each step happens inside subscribe() or advanceTimeBy().
+ */
+public class ResilienceTest {
+    private static final String BODY = "{\"title\":\"top250\",\"subjects\":[]}";
+    private static final String CACHED = "{\"title\":\"cached\",\"subjects\":[]}";
+    private static final long MAX_DELAY = 4;
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final TestScheduler mScheduler = new TestScheduler();
+    private final Resilience mResilience = new Resilience(mScheduler, new Random(7))
+            .setMaxRetries(3)
+            .setBackoff(1, MAX_DELAY, TimeUnit.SECONDS)
+            .setCircuitBreaker(100, 30, TimeUnit.SECONDS);
+    private ApiService mRaw;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer.start();
+        mRaw = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build()
+                .create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void retriesServerErrorsWithBackoff() {
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        mServer.enqueue(new MockResponse().setResponseCode(429));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        TestObserver<Movie> observer = service(null).getTopMovie(0, 10).test();
+        assertEquals(1, mServer.getRequestCount());
+        observer.assertNotTerminated();
+
+        mScheduler.advanceTimeBy(MAX_DELAY, TimeUnit.SECONDS);
+        assertEquals(2, mServer.getRequestCount());
+        mScheduler.advanceTimeBy(MAX_DELAY, TimeUnit.SECONDS);
+        assertEquals(3, mServer.getRequestCount());
+        observer.assertValueCount(1).assertComplete();
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() {
+        mServer.enqueue(new MockResponse().setResponseCode(404));
+        TestObserver<Movie> observer = service(null).getTopMovie(0, 10).test();
+        mScheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+
+        observer.assertError(HttpException.class);
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void classifiesErrors() {
+        assertTrue(Resilience.isRetryable(new IOException()));
+        assertTrue(Resilience.isRetryable(httpError(503)));
+        assertTrue(Resilience.isRetryable(httpError(429)));
+        assertFalse(Resilience.isRetryable(httpError(404)));
+        assertFalse(Resilience.isRetryable(new Resilience.CircuitOpenException("getTopMovie")));
+        assertFalse(Resilience.isRetryable(new IllegalStateException()));
+    }
+
+    @Test
+    public void backoffGrowsAndStaysUnderTheCap() {
+        Resilience resilience = new Resilience(mScheduler, new Random(1))
+                .setBackoff(100, 1000, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(resilience.backoff(1) < 100);
+            assertTrue(resilience.backoff(3) < 400);
+            assertTrue(resilience.backoff(10) < 1000);
+        }
+    }
+
+    @Test
+    public void retryBudgetLimitsRetriesOfAFailingEndpoint() {
+        for (int i = 0; i < 20; i++) {
+            mServer.enqueue(new MockResponse().setResponseCode(500));
+        }
+        ApiService service = service(null);
+        for (int i = 0; i < 5; i++) {
+            service.getTopMovie(0, 10).test();
+            mScheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        }
+        // 10 retries in the budget: 3 + 3 + 3 + 1 + 0.
+        assertEquals(5 + 10, mServer.getRequestCount());
+    }
+
+    @Test
+    public void openBreakerFailsFastThenRecoversAfterATrial() {
+        Resilience resilience = new Resilience(mScheduler, new Random(7))
+                .setMaxRetries(0)
+                .setCircuitBreaker(2, 30, TimeUnit.SECONDS);
+        ApiService service = resilience.wrap(ApiService.class, mRaw, null);
+        mServer.enqueue(new MockResponse().setResponseCode(500));
+        mServer.enqueue(new MockResponse().setResponseCode(500));
+        service.getTopMovie(0, 10).test().assertError(HttpException.class);
+        service.getTopMovie(0, 10).test().assertError(HttpException.class);
+        assertEquals(Resilience.CircuitState.OPEN, resilience.getState("getTopMovie"));
+
+        service.getTopMovie(0, 10).test().assertError(Resilience.CircuitOpenException.class);
+        assertEquals(2, mServer.getRequestCount());
+
+        mScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+        assertEquals(Resilience.CircuitState.HALF_OPEN, resilience.getState("getTopMovie"));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        service.getTopMovie(0, 10).test().assertValueCount(1).assertComplete();
+        assertEquals(Resilience.CircuitState.CLOSED, resilience.getState("getTopMovie"));
+    }
+
+    @Test
+    public void openBreakerFallsBackToTheCache() {
+        Resilience resilience = new Resilience(mScheduler, new Random(7))
+                .setMaxRetries(0)
+                .setCircuitBreaker(1, 30, TimeUnit.SECONDS);
+        ApiService fallback = new ApiService() {
+            @Override
+            public Observable<Movie> getTopMovie(int start, int count) {
+                return Observable.fromCallable(new Callable<Movie>() {
+                    @Override
+                    public Movie call() throws Exception {
+                        return new Gson().fromJson(CACHED, Movie.class);
+                    }
+                });
+            }
+
+            @Override
+            public Call<ResponseBody> getTopMovieStream(int start, int count) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        ApiService service = resilience.wrap(ApiService.class, mRaw, fallback);
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        service.getTopMovie(0, 10).test().assertError(HttpException.class);
+
+        TestObserver<Movie> observer = service.getTopMovie(0, 10).test();
+        observer.assertValueCount(1).assertComplete();
+        assertEquals("cached", observer.values().get(0).getTitle());
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void retriesStayOnTheRequestsLane() throws Exception {
+        final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+        Observable<String> upstream = Observable.fromCallable(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                threads.add(Thread.currentThread().getName());
+                if (threads.size() == 1) {
+                    throw new IOException("reset");
+                }
+                return "ok";
+            }
+        });
+        TestObserver<String> observer = mResilience.protect("lane", upstream, null)
+                .subscribeOn(new RequestScheduler(1).scheduler(RequestScheduler.Priority.PREFETCH))
+                .test();
+        // The timer is scheduled from the lane, advance until it has been.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (threads.size() < 2 && System.currentTimeMillis() < deadline) {
+            mScheduler.advanceTimeBy(MAX_DELAY, TimeUnit.SECONDS);
+            Thread.sleep(5);
+        }
+
+        assertTrue(observer.awaitTerminalEvent(5, TimeUnit.SECONDS));
+        observer.assertValue("ok");
+        assertEquals(2, threads.size());
+        for (String thread : threads) {
+            assertTrue(thread, thread.startsWith("api-request-"));
+        }
+    }
+
+    private static HttpException httpError(int code) {
+        return new HttpException(Response.error(code, ResponseBody.create(null, "")));
+    }
+
+    private ApiService service(ApiService fallback) {
+        return mResilience.wrap(ApiService.class, mRaw, fallback);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.mydemo.rxjava;
+
+import com.example.mydemo.bean.Subjects;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.subscribers.TestSubscriber;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SubjectsStreamDecoderTest {
+    private static final String BODY = "{\"count\":3,\"start\":0,\"subjects\":["
+            + "{\"title\":\"a\",\"year\":\"1994\",\"id\":\"1\",\"genres\":[\"x\"]},"
+            + "{\"title\":\"b\",\"year\":\"1993\",\"id\":\"2\"},"
+            + "{\"title\":\"c\",\"year\":\"1972\",\"id\":\"3\"}],"
+            + "\"title\":\"top250\"}";
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final SubjectsStreamDecoder mDecoder = new SubjectsStreamDecoder();
+    private ApiService mService;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer.start();
+        mService = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build()
+                .create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void emitsEverySubjectInOrder() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        TestSubscriber<Subjects> subscriber = mDecoder.decode(mService.getTopMovieStream(0, 3)).test();
+
+        subscriber.assertComplete().assertValueCount(3);
+        assertEquals("a", subscriber.values().get(0).getTitle());
+        assertEquals("2", subscriber.values().get(1).getId());
+        assertEquals("1972", subscriber.values().get(2).getYear());
+    }
+
+    @Test
+    public void parsesOnlyWhatIsRequested() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        TestSubscriber<Subjects> subscriber = mDecoder.decode(mService.getTopMovieStream(0, 3)).test(0);
+        subscriber.assertNoValues();
+        assertEquals("Nothing is sent before the first request", 0, mServer.getRequestCount());
+
+        subscriber.request(1);
+        subscriber.assertValueCount(1).assertNotTerminated();
+        subscriber.request(2);
+        subscriber.assertValueCount(3).assertNotTerminated();
+        subscriber.request(1);
+        subscriber.assertComplete().assertValueCount(3);
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void emitsBeforeTheBodyHasArrived() throws Exception {
+        mServer.enqueue(new MockResponse().setChunkedBody(BODY, 16).throttleBody(16, 100, TimeUnit.MILLISECONDS));
+        TestSubscriber<Subjects> subscriber = mDecoder.decode(mService.getTopMovieStream(0, 3))
+                .subscribeOn(Schedulers.io())
+                .test();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (subscriber.valueCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, subscriber.valueCount());
+        assertFalse(subscriber.isTerminated());
+
+        subscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        subscriber.assertComplete().assertValueCount(3);
+    }
+
+    @Test
+    public void httpErrorIsReported() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(500));
+        mDecoder.decode(mService.getTopMovieStream(0, 3)).test()
+                .assertNoValues()
+                .assertError(retrofit2.HttpException.class);
+    }
+}
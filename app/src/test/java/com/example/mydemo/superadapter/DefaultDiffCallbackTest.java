@@ -0,0 +1,60 @@
+package com.example.mydemo.superadapter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DefaultDiffCallbackTest {
+    private static final int TITLE = 1;
+    private static final int PRICE = 1 << 1;
+    private static final int IMAGE = 1 << 2;
+
+    @Test
+    public void fieldsOfEveryPayloadAreMerged() {
+        assertEquals(TITLE | IMAGE, DefaultDiffCallback.mergeChangedFields(Arrays.<Object>asList(TITLE, IMAGE)));
+        assertEquals(PRICE, DefaultDiffCallback.mergeChangedFields(Arrays.<Object>asList(PRICE, PRICE)));
+    }
+
+    @Test
+    public void anyOtherPayloadAsksForAFullRebind() {
+        assertEquals(0, DefaultDiffCallback.mergeChangedFields(Collections.emptyList()));
+        assertEquals(0, DefaultDiffCallback.mergeChangedFields(Arrays.<Object>asList(TITLE, "selected")));
+        assertEquals(0, DefaultDiffCallback.mergeChangedFields(Arrays.<Object>asList(null, PRICE)));
+    }
+
+    @Test
+    public void changedFieldsBecomeThePayload() {
+        DefaultDiffCallback<String> callback = new FieldsCallback(Arrays.asList("a", "b"), Arrays.asList("a", "B"));
+        assertNull(callback.getChangePayload(0, 0));
+        assertEquals(TITLE | PRICE, callback.getChangePayload(1, 1));
+    }
+
+    /**
+     * Title and price changed when the case differs.
+     */
+    private static final class FieldsCallback extends DefaultDiffCallback<String> {
+        FieldsCallback(List<String> oldList, List<String> newList) {
+            super(oldList, newList);
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return getOldList().get(oldItemPosition).equalsIgnoreCase(getNewList().get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return getOldList().get(oldItemPosition).equals(getNewList().get(newItemPosition));
+        }
+
+        @Override
+        public int getChangedFields(int oldItemPosition, int newItemPosition) {
+            return areContentsTheSame(oldItemPosition, newItemPosition) ? 0 : TITLE | PRICE;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.mydemo.superadapter;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Every diff is checked by replaying its operations on a copy of the old list, which must end up
+ * equal to the new one.
+ */
+public class KeyedDiffTest {
+    private static final IItemKey<Item> KEY = new IItemKey<Item>() {
+        @Override
+        public long getItemKey(Item item) {
+            return item.mKey;
+        }
+    };
+
+    @Test
+    public void insertsRemovesAndChanges() {
+        Replay replay = check(items(1, 2, 3, 4, 5), Arrays.asList(
+                new Item(0, 0), new Item(1, 0), new Item(3, 1), new Item(4, 0), new Item(6, 0), new Item(7, 0)));
+        assertEquals(0, replay.mMoves);
+    }
+
+    @Test
+    public void movingOneItemIsOneMove() {
+        assertEquals(1, check(items(0, 1, 2, 3, 4, 5), items(5, 0, 1, 2, 3, 4)).mMoves);
+        assertEquals(1, check(items(0, 1, 2, 3, 4, 5), items(1, 2, 3, 4, 5, 0)).mMoves);
+        assertEquals(1, check(items(0, 1, 2, 3, 4, 5), items(0, 1, 4, 2, 3, 5)).mMoves);
+    }
+
+    @Test
+    public void reversingMovesAllButOne() {
+        assertEquals(7, check(items(0, 1, 2, 3, 4, 5, 6, 7), items(7, 6, 5, 4, 3, 2, 1, 0)).mMoves);
+    }
+
+    @Test
+    public void reorderHeavyChangesReplay() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            List<Item> oldList = new ArrayList<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                oldList.add(new Item(random.nextInt(60), 0));
+            }
+            oldList = unique(oldList);
+            List<Item> newList = new ArrayList<>();
+            for (Item item : oldList) {
+                // Most items stay, some of them changed.
+                if (random.nextInt(5) != 0) {
+                    newList.add(new Item(item.mKey, random.nextInt(4) == 0 ? 1 : 0));
+                }
+            }
+            for (int i = random.nextInt(10); i > 0; i--) {
+                newList.add(new Item(random.nextInt(60), 0));
+            }
+            newList = unique(newList);
+            Collections.shuffle(newList, random);
+            check(oldList, newList);
+        }
+    }
+
+    @Test
+    public void bareKeysReplay() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<Item> oldList = new ArrayList<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                oldList.add(new Item(random.nextInt(60), 0));
+            }
+            oldList = unique(oldList);
+            List<Item> newList = new ArrayList<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                newList.add(new Item(random.nextInt(60), 0));
+            }
+            newList = unique(newList);
+
+            Replay replay = new Replay(oldList, newList);
+            assertTrue(KeyedDiff.dispatch(keys(oldList), keys(newList), replay));
+            replay.finish();
+            assertEquals(oldList + " -> " + newList, newList, replay.mList);
+        }
+        assertFalse(KeyedDiff.dispatch(new long[]{1, 2}, new long[]{2, 2}, new Replay(items(1, 2), items(2, 2))));
+    }
+
+    @Test
+    public void emptyListsReplay() {
+        check(items(), items(1, 2, 3));
+        check(items(1, 2, 3), items());
+        check(items(), items());
+    }
+
+    @Test
+    public void duplicateKeysDispatchNothing() {
+        Replay replay = new Replay(items(1, 2, 3), items(3, 3, 1));
+        assertFalse(KeyedDiff.dispatch(replay.mList, replay.mNewList, KEY, replay));
+        assertEquals(items(1, 2, 3), replay.mList);
+
+        replay = new Replay(items(1, 2, 1), items(2, 1));
+        assertFalse(KeyedDiff.dispatch(replay.mList, replay.mNewList, KEY, replay));
+        assertEquals(items(1, 2, 1), replay.mList);
+    }
+
+    private static Replay check(List<Item> oldList, List<Item> newList) {
+        Replay replay = new Replay(oldList, newList);
+        assertTrue(KeyedDiff.dispatch(new ArrayList<>(oldList), newList, KEY, replay));
+        replay.finish();
+        assertEquals(oldList + " -> " + newList, newList, replay.mList);
+        return replay;
+    }
+
+    private static List<Item> items(long... keys) {
+        List<Item> items = new ArrayList<>();
+        for (long key : keys) {
+            items.add(new Item(key, 0));
+        }
+        return items;
+    }
+
+    private static long[] keys(List<Item> items) {
+        long[] keys = new long[items.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = items.get(i).mKey;
+        }
+        return keys;
+    }
+
+    private static List<Item> unique(List<Item> items) {
+        Set<Long> keys = new HashSet<>();
+        List<Item> unique = new ArrayList<>();
+        for (Item item : items) {
+            if (keys.add(item.mKey)) {
+                unique.add(item);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Applies the operations to a copy of the old list. Inserted positions hold null until
+     * {@link #finish()} fills them; it also applies the changes, so they must be at final positions.
+     */
+    private static final class Replay implements ListUpdateCallback {
+        final List<Item> mList;
+        final List<Item> mNewList;
+        final Set<Long> mOldKeys = new HashSet<>();
+        final Set<Integer> mChanged = new HashSet<>();
+        int mMoves;
+
+        Replay(List<Item> oldList, List<Item> newList) {
+            mList = new ArrayList<>(oldList);
+            mNewList = newList;
+            for (Item item : oldList) {
+                mOldKeys.add(item.mKey);
+            }
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            assertTrue(mChanged.isEmpty());
+            mList.addAll(position, Collections.<Item>nCopies(count, null));
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            assertTrue(mChanged.isEmpty());
+            mList.subList(position, position + count).clear();
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            assertTrue(mChanged.isEmpty());
+            mList.add(toPosition, mList.remove(fromPosition));
+            mMoves++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            assertNull(payload);
+            for (int i = position; i < position + count; i++) {
+                assertTrue("Changed twice: " + i, mChanged.add(i));
+            }
+        }
+
+        void finish() {
+            assertEquals(mNewList.size(), mList.size());
+            for (int i = 0; i < mList.size(); i++) {
+                Item item = mList.get(i);
+                Item newItem = mNewList.get(i);
+                if (item == null) {
+                    assertFalse("Inserted an old item: " + newItem, mOldKeys.contains(newItem.mKey));
+                    mList.set(i, newItem);
+                } else if (mChanged.contains(i)) {
+                    assertEquals(newItem.mKey, item.mKey);
+                    assertFalse("Not changed: " + newItem, item.equals(newItem));
+                    mList.set(i, newItem);
+                }
+            }
+        }
+    }
+
+    private static final class Item {
+        final long mKey;
+        final int mVersion;
+
+        Item(long key, int version) {
+            mKey = key;
+            mVersion = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).mKey == mKey && ((Item) o).mVersion == mVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) mKey + mVersion;
+        }
+
+        @Override
+        public String toString() {
+            return mKey + (mVersion == 0 ? "" : "'");
+        }
+    }
+}
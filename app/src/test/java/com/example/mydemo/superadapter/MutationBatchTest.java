@@ -0,0 +1,118 @@
+package com.example.mydemo.superadapter;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MutationBatchTest {
+    private final Recorder mTarget = new Recorder();
+    private final MutationBatch mBatch = new MutationBatch(mTarget);
+
+    @Test
+    public void adjacentRangesAreMerged() {
+        ListUpdateCallback recorder = mBatch.recorder();
+        // Appending one by one, as add() does in a loop.
+        for (int i = 0; i < 10; i++) {
+            recorder.onInserted(20 + i, 1);
+        }
+        // Removing the same position repeatedly.
+        for (int i = 0; i < 5; i++) {
+            recorder.onRemoved(3, 1);
+        }
+        // Overlapping and adjacent changes with the same payload.
+        recorder.onChanged(5, 2, null);
+        recorder.onChanged(7, 1, null);
+        recorder.onChanged(4, 2, null);
+        assertTrue(mTarget.mEvents.isEmpty());
+
+        assertTrue(mBatch.dispatch(16));
+        assertEquals(Arrays.asList("inserted 20 10", "removed 3 5", "changed 4 4"), mTarget.mEvents);
+    }
+
+    @Test
+    public void differentKindsAreKeptInOrder() {
+        ListUpdateCallback recorder = mBatch.recorder();
+        recorder.onInserted(0, 1);
+        recorder.onChanged(0, 1, null);
+        recorder.onMoved(3, 1);
+        recorder.onRemoved(2, 1);
+        recorder.onChanged(1, 1, "payload");
+
+        assertTrue(mBatch.dispatch(16));
+        assertEquals(Arrays.asList("inserted 0 1", "changed 0 1", "moved 3 1", "removed 2 1", "changed 1 1 payload"),
+                mTarget.mEvents);
+    }
+
+    @Test
+    public void scatteredRangesOverTheThresholdDispatchNothing() {
+        ListUpdateCallback recorder = mBatch.recorder();
+        for (int i = 0; i < 5; i++) {
+            recorder.onChanged(i * 2, 1, null);
+        }
+
+        assertFalse(mBatch.isEmpty());
+        assertFalse(mBatch.dispatch(4));
+        assertEquals(Collections.emptyList(), mTarget.mEvents);
+    }
+
+    @Test
+    public void rangesUpToTheThresholdAreDispatched() {
+        ListUpdateCallback recorder = mBatch.recorder();
+        for (int i = 0; i < 4; i++) {
+            recorder.onChanged(i * 2, 1, null);
+        }
+
+        assertTrue(mBatch.dispatch(4));
+        assertEquals(4, mTarget.mEvents.size());
+    }
+
+    @Test
+    public void invalidatedBatchDispatchesNothing() {
+        mBatch.recorder().onInserted(0, 1);
+        mBatch.invalidate();
+
+        assertFalse(mBatch.isEmpty());
+        assertFalse(mBatch.dispatch(Integer.MAX_VALUE));
+        assertEquals(Collections.emptyList(), mTarget.mEvents);
+    }
+
+    @Test
+    public void emptyUntilSomethingIsRecorded() {
+        assertTrue(mBatch.isEmpty());
+        mBatch.recorder().onRemoved(0, 1);
+        assertFalse(mBatch.isEmpty());
+    }
+
+    private static final class Recorder implements ListUpdateCallback {
+        final List<String> mEvents = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, int count) {
+            mEvents.add("inserted " + position + " " + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mEvents.add("removed " + position + " " + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mEvents.add("moved " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mEvents.add("changed " + position + " " + count + (payload == null ? "" : " " + payload));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.mydemo.superadapter;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class NestedListSupportTest {
+    private static final int LIST = 1;
+    private static final int OTHER_LIST = 2;
+
+    private final NestedListSupport mSupport = new NestedListSupport(0);
+    private RecyclerView mView;
+
+    @Before
+    public void setUp() {
+        mView = new RecyclerView(RuntimeEnvironment.application);
+        mView.setLayoutManager(new LinearLayoutManager(RuntimeEnvironment.application,
+                LinearLayoutManager.HORIZONTAL, false));
+    }
+
+    @Test
+    public void listsWithTheSameIdShareAPool() {
+        RecyclerView other = new RecyclerView(RuntimeEnvironment.application);
+        mSupport.attach(mView, LIST);
+        mSupport.attach(other, LIST);
+
+        assertSame(mView.getRecycledViewPool(), other.getRecycledViewPool());
+    }
+
+    @Test
+    public void onlyTheRecentStatesAreKept() {
+        for (long key = 0; key < NestedListSupport.MAX_STATES * 3; key++) {
+            mSupport.save(mView, LIST, key);
+        }
+        mSupport.save(mView, OTHER_LIST, 0);
+
+        assertEquals(NestedListSupport.MAX_STATES, mSupport.stateCount(LIST));
+        assertEquals("Bounded per view id", 1, mSupport.stateCount(OTHER_LIST));
+
+        mSupport.clearStates();
+        assertEquals(0, mSupport.stateCount(LIST));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.mydemo.superadapter;
+
+import android.content.Context;
+import android.database.DataSetObserver;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pages of 10, prefetched 3 positions ahead, at most 3 resident. Pages load only when the test
+ * completes them, on the main thread.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class PagedListTest {
+    private static final int PAGE_SIZE = 10;
+
+    private final FakeLoader mLoader = new FakeLoader();
+    private final PagedList<String> mList = new PagedList<>(mLoader, PAGE_SIZE, 3, 3);
+    private final List<String> mEvents = new ArrayList<>();
+
+    @Test
+    public void pagesOutsideTheWindowBecomePlaceholders() {
+        mList.setCallback(new Recorder());
+        mList.loadAround(0);
+        mLoader.complete(0, PAGE_SIZE);
+        for (int page = 1; page <= 3; page++) {
+            mList.loadAround(page * PAGE_SIZE - 1); // Last item of the previous page.
+            mLoader.complete(page, PAGE_SIZE);
+        }
+        assertEquals(40, mList.size());
+        assertTrue(mList.isPlaceholder(0));
+        assertNull(mList.get(0));
+        assertEquals("1-5", mList.get(15));
+
+        mList.loadAround(35);
+        assertTrue(mList.isPlaceholder(15));
+        assertEquals("3-5", mList.get(35));
+        assertEquals(40, mList.size());
+
+        // Close to the start of page 2, so the evicted page 1 loads again.
+        mList.loadAround(22);
+        mLoader.complete(1, PAGE_SIZE);
+        assertEquals("1-5", mList.get(15));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 1), mLoader.mRequested);
+        assertEquals(Arrays.asList("inserted 0 10", "inserted 10 10", "inserted 20 10", "inserted 30 10",
+                "changed 10 10"), mEvents);
+    }
+
+    @Test
+    public void aShortPageEndsTheList() {
+        mList.setCallback(new Recorder());
+        mList.loadAround(0);
+        mLoader.complete(0, PAGE_SIZE);
+        mList.loadAround(9);
+        mLoader.complete(1, 4);
+
+        assertTrue(mList.isEndReached());
+        assertEquals(14, mList.size());
+        mList.loadAround(13);
+        assertEquals(Arrays.asList(0, 1), mLoader.mRequested);
+    }
+
+    @Test
+    public void aRefreshDropsLoadsInFlight() {
+        mList.setCallback(new Recorder());
+        mList.loadAround(0);
+        mList.refresh();
+        mLoader.complete(0, PAGE_SIZE); // The load from before the refresh.
+
+        assertEquals(0, mList.size());
+        mLoader.complete(0, PAGE_SIZE);
+        assertEquals(10, mList.size());
+    }
+
+    @Test
+    public void boundPositionsPrefetchThroughTheAdapter() {
+        StringAdapter adapter = new StringAdapter(RuntimeEnvironment.application);
+        adapter.mRecyclerView = new RecyclerView(RuntimeEnvironment.application);
+        adapter.setPagedList(mList);
+        assertEquals(Arrays.asList(0), mLoader.mRequested);
+        mLoader.complete(0, PAGE_SIZE);
+
+        adapter.onItemBound(6);
+        assertEquals(Arrays.asList(0), mLoader.mRequested);
+        adapter.onItemBound(7);
+        assertEquals(Arrays.asList(0, 1), mLoader.mRequested);
+        mLoader.complete(1, PAGE_SIZE);
+        assertEquals(20, adapter.getItemCount());
+    }
+
+    @Test
+    public void withoutARecyclerViewEveryChangeIsADataSetChange() {
+        StringAdapter adapter = new StringAdapter(RuntimeEnvironment.application);
+        final int[] changes = new int[1];
+        adapter.registerDataSetObserver(new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                changes[0]++;
+            }
+        });
+
+        adapter.setPagedList(mList);
+        assertEquals(1, changes[0]);
+        mLoader.complete(0, PAGE_SIZE);
+        assertEquals(2, changes[0]);
+        adapter.onItemBound(9);
+        mLoader.complete(1, PAGE_SIZE);
+        assertEquals(3, changes[0]);
+        assertEquals(20, adapter.getCount());
+        assertFalse(mList.isPlaceholder(19));
+    }
+
+    /**
+     * Holds every request until the test completes it.
+     */
+    private static final class FakeLoader implements IPageLoader<String> {
+        final List<Integer> mRequested = new ArrayList<>();
+        private final Map<Integer, List<Callback<String>>> mPending = new HashMap<>();
+
+        @Override
+        public void loadPage(int page, int pageSize, Callback<String> callback) {
+            mRequested.add(page);
+            List<Callback<String>> callbacks = mPending.get(page);
+            if (callbacks == null) {
+                callbacks = new ArrayList<>();
+                mPending.put(page, callbacks);
+            }
+            callbacks.add(callback);
+        }
+
+        /**
+         * Complete the oldest pending request for a page with {@code count} items.
+         */
+        void complete(int page, int count) {
+            List<String> items = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                items.add(page + "-" + i);
+            }
+            mPending.get(page).remove(0).onPageLoaded(items);
+            Robolectric.flushForegroundThreadScheduler();
+        }
+    }
+
+    private final class Recorder implements ListUpdateCallback {
+        @Override
+        public void onInserted(int position, int count) {
+            mEvents.add("inserted " + position + " " + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mEvents.add("removed " + position + " " + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mEvents.add("moved " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mEvents.add("changed " + position + " " + count);
+        }
+    }
+
+    private static final class StringAdapter extends SuperAdapter<String> {
+        StringAdapter(Context context) {
+            super(context, new ArrayList<String>(), 0);
+        }
+
+        @Override
+        public void onBind(SuperViewHolder holder, int viewType, int layoutPosition, String item) {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.mydemo.superadapter;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Inflates android.R.layout.simple_list_item_1, a single TextView. All pools share one inflate
+ * thread, so once a later request is served every earlier one has finished.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class PreInflatePoolTest {
+    private static final int TYPE = 1;
+    private static final int LAYOUT = android.R.layout.simple_list_item_1;
+
+    private Context mContext;
+    private FrameLayout mParent;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mParent = new FrameLayout(mContext);
+    }
+
+    @Test
+    public void viewsAreHandedOutOnce() {
+        PreInflatePool pool = new PreInflatePool(LayoutInflater.from(mContext));
+        assertNull(pool.obtain(TYPE));
+
+        pool.preInflate(LAYOUT, TYPE, mParent, 2);
+        View first = awaitView(pool, TYPE);
+        View second = awaitView(pool, TYPE);
+        assertTrue(first instanceof TextView);
+        assertNotSame(first, second);
+        assertNull(pool.obtain(TYPE));
+        assertNull("Other types are separate", pool.obtain(TYPE + 1));
+    }
+
+    @Test
+    public void requestsAreBoundedByTheCapacity() {
+        PreInflatePool pool = new PreInflatePool(LayoutInflater.from(mContext));
+        pool.setCapacity(TYPE, 2);
+        pool.preInflate(LAYOUT, TYPE, mParent, 5);
+        // Counted against the views already pending.
+        pool.preInflate(LAYOUT, TYPE, mParent, 5);
+        drain();
+
+        assertEquals(2, count(pool, TYPE));
+    }
+
+    @Test
+    public void aLoweredCapacityDropsIdleViews() {
+        PreInflatePool pool = new PreInflatePool(LayoutInflater.from(mContext));
+        pool.preInflate(LAYOUT, TYPE, mParent, 4);
+        drain();
+        pool.setCapacity(TYPE, 1);
+
+        assertEquals(1, count(pool, TYPE));
+    }
+
+    @Test
+    public void aFailureDisablesTheType() {
+        final AtomicInteger attempts = new AtomicInteger();
+        LayoutInflater inflater = LayoutInflater.from(mContext).cloneInContext(mContext);
+        inflater.setFactory(new LayoutInflater.Factory() {
+            @Override
+            public View onCreateView(String name, Context context, AttributeSet attrs) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("Needs a Looper");
+            }
+        });
+        PreInflatePool pool = new PreInflatePool(inflater);
+
+        pool.preInflate(LAYOUT, TYPE, mParent, 3);
+        drain();
+        pool.preInflate(LAYOUT, TYPE, mParent, 3);
+        drain();
+
+        assertEquals(1, attempts.get());
+        assertNull(pool.obtain(TYPE));
+    }
+
+    /**
+     * Waits until everything queued on the inflate thread so far has run.
+     */
+    private void drain() {
+        PreInflatePool marker = new PreInflatePool(LayoutInflater.from(mContext));
+        marker.preInflate(LAYOUT, TYPE, mParent, 1);
+        awaitView(marker, TYPE);
+    }
+
+    private static View awaitView(PreInflatePool pool, int viewType) {
+        long deadline = System.currentTimeMillis() + 5000;
+        View view;
+        while ((view = pool.obtain(viewType)) == null) {
+            assertTrue("Nothing inflated", System.currentTimeMillis() < deadline);
+            Thread.yield();
+        }
+        return view;
+    }
+
+    private static int count(PreInflatePool pool, int viewType) {
+        int count = 0;
+        while (pool.obtain(viewType) != null) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.mydemo.superadapter;
+
+import android.animation.Animator;
+import android.content.Context;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.example.benchmark.Baseline;
+import com.example.benchmark.BenchmarkRunner;
+import com.example.mydemo.superadapter.animation.AlphaInAnimation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Headless benchmarks of the bind and diff pipeline, reported and checked against
+ * {@code superadapter-benchmark.properties} once a baseline is recorded there.
+ * <pre>
+ *     ./gradlew :app:testDebugUnitTest --tests '*SuperAdapterBenchmark' -Pbenchmark
+ *     ./gradlew :app:testDebugUnitTest --tests '*SuperAdapterBenchmark' -Pbenchmark.record=/tmp/baseline.properties
+ * </pre>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class SuperAdapterBenchmark {
+    private static final int[] LIST_SIZES = {100, 1000, 10000};
+    private static final double[] CHANGE_RATIOS = {0.01, 0.1, 0.5};
+    private static final int LAYOUT_IDS = 24;
+
+    private Context mContext;
+    private BenchmarkRunner mRunner;
+
+    @Before
+    public void setUp() throws IOException {
+        mContext = RuntimeEnvironment.application;
+        mRunner = new BenchmarkRunner(Baseline.load(
+                getClass().getResourceAsStream("/superadapter-benchmark.properties")));
+    }
+
+    @Test
+    public void diff() {
+        for (int size : LIST_SIZES) {
+            for (double ratio : CHANGE_RATIOS) {
+                final List<Item> oldList = items(size);
+                final List<Item> newList = mutate(oldList, ratio, new Random(size));
+                final ItemDiffCallback callback = new ItemDiffCallback(oldList, newList);
+                String suffix = "." + size + "." + Math.round(ratio * 100) + "pct";
+                mRunner.run("diff.myers" + suffix, new Runnable() {
+                    @Override
+                    public void run() {
+                        DiffUtil.calculateDiff(callback).dispatchUpdatesTo(NO_OP_CALLBACK);
+                    }
+                });
+                mRunner.run("diff.keyed" + suffix, new Runnable() {
+                    @Override
+                    public void run() {
+                        KeyedDiff.dispatch(oldList, newList, ITEM_KEY, NO_OP_CALLBACK);
+                    }
+                });
+            }
+        }
+        mRunner.finish();
+    }
+
+    @Test
+    public void viewHolderLookup() {
+        final View itemView = layout(LAYOUT_IDS);
+        final ViewIndex viewIndex = new ViewIndex(itemView);
+        assertEquals(LAYOUT_IDS, viewIndex.size());
+        mRunner.run("lookup.sparseArray." + LAYOUT_IDS + "ids", new Runnable() {
+            @Override
+            public void run() {
+                lookUpAll(new SuperViewHolder(itemView));
+            }
+        });
+        mRunner.run("lookup.viewIndex." + LAYOUT_IDS + "ids", new Runnable() {
+            @Override
+            public void run() {
+                SuperViewHolder holder = new SuperViewHolder(itemView);
+                holder.setViewIndex(viewIndex);
+                lookUpAll(holder);
+            }
+        });
+        mRunner.finish();
+    }
+
+    @Test
+    public void crudBurst() {
+        final ItemAdapter adapter = attachedAdapter(items(1000));
+        final CountingObserver observer = new CountingObserver();
+        adapter.registerAdapterDataObserver(observer);
+
+        setBurst(adapter, false);
+        assertEquals(50, observer.mEvents);
+        observer.mEvents = 0;
+        setBurst(adapter, true);
+        assertEquals("Adjacent sets merge into one range", 1, observer.mEvents);
+
+        mRunner.run("crud.set50.unbatched", new Runnable() {
+            @Override
+            public void run() {
+                setBurst(adapter, false);
+            }
+        });
+        mRunner.run("crud.set50.batched", new Runnable() {
+            @Override
+            public void run() {
+                setBurst(adapter, true);
+            }
+        });
+        mRunner.finish();
+    }
+
+    @Test
+    public void loadAnimation() {
+        final ItemAdapter adapter = attachedAdapter(items(10));
+        adapter.enableLoadAnimation();
+        adapter.setOnlyOnce(false);
+        final SuperViewHolder holder = new SuperViewHolder(new FrameLayout(mContext));
+        final AlphaInAnimation animation = new AlphaInAnimation();
+        mRunner.run("animation.fresh", new Runnable() {
+            @Override
+            public void run() {
+                for (Animator animator : animation.getAnimators(holder.itemView)) {
+                    animator.setDuration(300).start();
+                    animator.end();
+                }
+            }
+        });
+        mRunner.run("animation.reused", new Runnable() {
+            @Override
+            public void run() {
+                adapter.addLoadAnimation(holder);
+                holder.endLoadAnimators();
+            }
+        });
+        mRunner.finish();
+    }
+
+    private static void setBurst(ItemAdapter adapter, boolean batched) {
+        if (batched)
+            adapter.beginBatch();
+        for (int i = 100; i < 150; i++) {
+            Item item = adapter.getData().get(i);
+            adapter.set(i, new Item(item.mId, item.mVersion + 1));
+        }
+        if (batched)
+            adapter.commitBatch();
+    }
+
+    private ItemAdapter attachedAdapter(List<Item> items) {
+        ItemAdapter adapter = new ItemAdapter(mContext, items);
+        // Notifications only reach registered observers; a RecyclerView that never lays out
+        // would queue them forever.
+        adapter.mRecyclerView = new RecyclerView(mContext);
+        return adapter;
+    }
+
+    private static void lookUpAll(SuperViewHolder holder) {
+        for (int round = 0; round < 2; round++) { // Cold, then cached.
+            for (int id = 1; id <= LAYOUT_IDS; id++) {
+                holder.findViewById(id);
+            }
+        }
+    }
+
+    /**
+     * Item layout with nested groups, the ids in depth-first order.
+     */
+    private View layout(int ids) {
+        LinearLayout root = new LinearLayout(mContext);
+        ViewGroup group = root;
+        for (int id = 1; id <= ids; id++) {
+            if (id % 4 == 1) {
+                LinearLayout child = new LinearLayout(mContext);
+                root.addView(child);
+                group = child;
+            }
+            TextView textView = new TextView(mContext);
+            textView.setId(id);
+            group.addView(textView);
+        }
+        return root;
+    }
+
+    private static List<Item> items(int size) {
+        List<Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(i, 0));
+        }
+        return items;
+    }
+
+    /**
+     * Change about {@code ratio} of the items: a third edited, a third removed, a third inserted.
+     */
+    private static List<Item> mutate(List<Item> items, double ratio, Random random) {
+        List<Item> result = new ArrayList<>(items);
+        int changes = Math.max(1, (int) (items.size() * ratio / 3));
+        long nextId = items.size();
+        for (int i = 0; i < changes; i++) {
+            int position = random.nextInt(result.size());
+            Item item = result.get(position);
+            result.set(position, new Item(item.mId, item.mVersion + 1));
+            result.remove(random.nextInt(result.size()));
+            result.add(random.nextInt(result.size() + 1), new Item(nextId++, 0));
+        }
+        return result;
+    }
+
+    private static final ListUpdateCallback NO_OP_CALLBACK = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+        }
+    };
+
+    private static final IItemKey<Item> ITEM_KEY = new IItemKey<Item>() {
+        @Override
+        public long getItemKey(Item item) {
+            return item.mId;
+        }
+    };
+
+    private static final class Item {
+        final long mId;
+        final int mVersion;
+
+        Item(long id, int version) {
+            mId = id;
+            mVersion = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).mId == mId && ((Item) o).mVersion == mVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (mId * 31 + mVersion);
+        }
+    }
+
+    private static final class ItemDiffCallback extends DefaultDiffCallback<Item> {
+        ItemDiffCallback(List<Item> oldList, List<Item> newList) {
+            super(oldList, newList);
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return getOldList().get(oldItemPosition).mId == getNewList().get(newItemPosition).mId;
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return getOldList().get(oldItemPosition).equals(getNewList().get(newItemPosition));
+        }
+    }
+
+    private static final class ItemAdapter extends SuperAdapter<Item> {
+        ItemAdapter(Context context, List<Item> items) {
+            super(context, items, 0);
+        }
+
+        @Override
+        public void onBind(SuperViewHolder holder, int viewType, int layoutPosition, Item item) {
+        }
+    }
+
+    private static final class CountingObserver extends RecyclerView.AdapterDataObserver {
+        int mEvents;
+
+        @Override
+        public void onChanged() {
+            mEvents++;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            mEvents++;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mEvents++;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mEvents++;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mEvents++;
+        }
+    }
+}
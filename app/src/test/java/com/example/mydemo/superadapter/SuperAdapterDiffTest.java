@@ -0,0 +1,158 @@
+package com.example.mydemo.superadapter;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The diff runs on the real worker thread. Its result is posted to the main looper, which is
+ * paused so that the test decides when results are applied.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class SuperAdapterDiffTest {
+    private Context mContext;
+    private Scheduler mMainScheduler;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mMainScheduler = Robolectric.getForegroundThreadScheduler();
+        mMainScheduler.pause();
+    }
+
+    @Test
+    public void onlyTheLatestDiffIsApplied() throws Exception {
+        StringAdapter adapter = attachedAdapter("a", "b", "c");
+        CountDownLatch gate = new CountDownLatch(1);
+        Committed first = new Committed();
+        Committed second = new Committed();
+
+        BlockingCallback blocked = new BlockingCallback(adapter.getData(), list("a", "c"), gate);
+        adapter.diff(blocked, first);
+        // Past its generation check on the worker, so that it finishes and posts its result.
+        assertTrue(blocked.mStarted.await(5, TimeUnit.SECONDS));
+        adapter.diff(new BlockingCallback(adapter.getData(), list("c", "d"), null), second);
+        gate.countDown();
+        awaitPosted(2);
+
+        assertEquals(list("a", "b", "c"), adapter.getData());
+        mMainScheduler.advanceToLastPostedRunnable();
+        assertEquals(list("c", "d"), adapter.getData());
+        assertNull(first.mList);
+        assertEquals(list("c", "d"), second.mList);
+    }
+
+    @Test
+    public void crudDuringADiffWinsAndIsSafe() throws Exception {
+        StringAdapter adapter = attachedAdapter("a", "b", "c", "d");
+        CountDownLatch gate = new CountDownLatch(1);
+        BlockingCallback callback = new BlockingCallback(adapter.getData(), list("d", "c", "b", "a"), gate);
+        Committed committed = new Committed();
+
+        adapter.diff(callback, committed);
+        assertTrue(callback.mStarted.await(5, TimeUnit.SECONDS));
+        // The worker is in the middle of reading the old list.
+        adapter.clear();
+        adapter.add("e");
+        gate.countDown();
+        awaitPosted(1);
+        mMainScheduler.advanceToLastPostedRunnable();
+
+        assertNull("The worker read the live list", callback.mError);
+        assertEquals(list("e"), adapter.getData());
+        assertNull(committed.mList);
+    }
+
+    private StringAdapter attachedAdapter(String... items) {
+        StringAdapter adapter = new StringAdapter(mContext, list(items));
+        adapter.mRecyclerView = new RecyclerView(mContext);
+        return adapter;
+    }
+
+    private void awaitPosted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mMainScheduler.size() < count) {
+            assertTrue("Diff not finished", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> list(String... items) {
+        return new ArrayList<>(Arrays.asList(items));
+    }
+
+    /**
+     * Blocks in the first comparison until the gate opens, and records anything thrown there.
+     */
+    private static final class BlockingCallback extends DefaultDiffCallback<String> {
+        final CountDownLatch mStarted = new CountDownLatch(1);
+        private final CountDownLatch mGate;
+        volatile RuntimeException mError;
+
+        BlockingCallback(List<String> oldList, List<String> newList, CountDownLatch gate) {
+            super(oldList, newList);
+            mGate = gate;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            mStarted.countDown();
+            if (mGate != null) {
+                try {
+                    mGate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            try {
+                return getOldList().get(oldItemPosition).equals(getNewList().get(newItemPosition));
+            } catch (RuntimeException e) {
+                mError = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return true;
+        }
+    }
+
+    private static final class Committed implements OnDiffCommittedListener<String> {
+        List<String> mList;
+
+        @Override
+        public void onDiffCommitted(List<String> newList) {
+            mList = newList;
+        }
+    }
+
+    private static final class StringAdapter extends SuperAdapter<String> {
+        StringAdapter(Context context, List<String> items) {
+            super(context, items, 0);
+        }
+
+        @Override
+        public void onBind(SuperViewHolder holder, int viewType, int layoutPosition, String item) {
+        }
+    }
+}
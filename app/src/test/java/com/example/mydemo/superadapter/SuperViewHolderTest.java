@@ -0,0 +1,87 @@
+package com.example.mydemo.superadapter;
+
+import android.animation.Animator;
+import android.animation.ObjectAnimator;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.example.mydemo.superadapter.animation.AlphaInAnimation;
+import com.example.mydemo.superadapter.animation.BaseAnimation;
+import com.example.mydemo.superadapter.animation.SlideInLeftAnimation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Load animators of a view holder.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class SuperViewHolderTest {
+    private View mItem;
+    private SuperViewHolder mHolder;
+
+    @Before
+    public void setUp() {
+        mItem = new FrameLayout(RuntimeEnvironment.application);
+        mHolder = SuperViewHolder.get(null, mItem);
+    }
+
+    @Test
+    public void reusableAnimatorsAreCreatedOnce() {
+        AlphaInAnimation animation = new AlphaInAnimation();
+        Animator[] animators = mHolder.obtainLoadAnimators(animation);
+
+        assertSame(animators, mHolder.obtainLoadAnimators(animation));
+        assertNotSame("Another animation", animators, mHolder.obtainLoadAnimators(new AlphaInAnimation()));
+    }
+
+    @Test
+    public void otherAnimationsGetNewAnimators() {
+        BaseAnimation animation = new BaseAnimation() {
+            @Override
+            public Animator[] getAnimators(View view) {
+                return new Animator[]{ObjectAnimator.ofFloat(view, "alpha", 0f, 1f)};
+            }
+        };
+        Animator[] animators = mHolder.obtainLoadAnimators(animation);
+
+        assertNotSame(animators, mHolder.obtainLoadAnimators(animation));
+    }
+
+    @Test
+    public void resetAnimatorsFollowsTheViewSize() {
+        SlideInLeftAnimation animation = new SlideInLeftAnimation();
+        mItem.layout(0, 0, 200, 50);
+        ObjectAnimator animator = (ObjectAnimator) mHolder.obtainLoadAnimators(animation)[0];
+        assertEquals(-200f, startValue(animator), 0f);
+
+        mItem.layout(0, 0, 300, 50);
+        assertSame(animator, mHolder.obtainLoadAnimators(animation)[0]);
+        assertEquals(-300f, startValue(animator), 0f);
+    }
+
+    @Test
+    public void endedAnimatorsLeaveTheEndValue() {
+        Animator animator = mHolder.obtainLoadAnimators(new AlphaInAnimation())[0];
+        animator.start();
+        mHolder.endLoadAnimators();
+
+        assertFalse(animator.isStarted());
+        assertEquals(1f, mItem.getAlpha(), 0f);
+    }
+
+    private static float startValue(ObjectAnimator animator) {
+        animator.setCurrentPlayTime(0);
+        return (Float) animator.getAnimatedValue();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.mydemo.superadapter;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The item layout: a FrameLayout holding a LinearLayout with a title and a price.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class ViewIndexTest {
+    private static final int ROW = 1;
+    private static final int TITLE = 2;
+    private static final int PRICE = 3;
+    private static final int BADGE = 4;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void pathsLeadToTheViews() {
+        View item = item();
+        ViewIndex index = new ViewIndex(item);
+
+        assertEquals(3, index.size());
+        assertSame(item.findViewById(TITLE), index.find(item, TITLE));
+        assertSame(item.findViewById(PRICE), index.find(item, PRICE));
+        // Shared by another item view of the same type.
+        View other = item();
+        assertSame(other.findViewById(PRICE), index.find(other, PRICE));
+    }
+
+    @Test
+    public void aChangedLayoutFallsBackToASearch() {
+        View item = item();
+        ViewIndex index = new ViewIndex(item);
+        LinearLayout row = item.findViewById(ROW);
+        // Shifts the title and the price by one child.
+        row.addView(view(BADGE), 0);
+
+        assertSame(row.getChildAt(1), index.find(item, TITLE));
+        assertSame(row.getChildAt(2), index.find(item, PRICE));
+        assertSame("Not indexed", row.getChildAt(0), index.find(item, BADGE));
+
+        row.removeAllViews();
+        assertNull(index.find(item, TITLE));
+    }
+
+    @Test
+    public void theFirstViewWithAnIdWins() {
+        View item = item();
+        LinearLayout row = item.findViewById(ROW);
+        row.addView(view(TITLE));
+        ViewIndex index = new ViewIndex(item);
+
+        assertSame(row.getChildAt(0), index.find(item, TITLE));
+    }
+
+    @Test
+    public void theHolderLooksUpThroughTheIndex() {
+        View item = item();
+        SuperViewHolder holder = SuperViewHolder.get(null, item);
+        holder.setViewIndex(new ViewIndex(item()));
+
+        assertSame(item.findViewById(PRICE), holder.findViewById(PRICE));
+        assertNull(holder.findViewById(BADGE));
+    }
+
+    private View item() {
+        LinearLayout row = new LinearLayout(mContext);
+        row.setId(ROW);
+        row.addView(view(TITLE));
+        row.addView(view(PRICE));
+        FrameLayout item = new FrameLayout(mContext);
+        item.addView(row);
+        return item;
+    }
+
+    private View view(int id) {
+        TextView view = new TextView(mContext);
+        view.setId(id);
+        return view;
+    }
+}
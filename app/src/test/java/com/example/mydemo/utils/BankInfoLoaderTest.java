@@ -0,0 +1,121 @@
+package com.example.mydemo.utils;
+
+import com.example.mydemo.bean.BankModel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BankInfoLoaderTest {
+    private static final File ASSET = new File("src/main/assets/bankInfo.json");
+    private static final long INSTALLED = 1000L;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mSnapshot;
+
+    @Before
+    public void setUp() {
+        mSnapshot = new File(mFolder.getRoot(), "bankInfo.snapshot");
+    }
+
+    @Test
+    public void parsesTheAsset() throws IOException {
+        List<BankModel> banks = BankInfoLoader.load(new CountingAsset(bytes(ASSET)), INSTALLED, mSnapshot);
+
+        assertTrue(banks.size() > 10);
+        assertEquals("浦发银行", banks.get(0).bankName);
+        assertEquals("310290000013", banks.get(0).bankCode);
+        assertEquals("单笔5万，日累计20万", banks.get(0).bankDesc);
+    }
+
+    @Test
+    public void laterLoadsReadTheSnapshotInsteadOfJson() throws IOException {
+        CountingAsset first = new CountingAsset(bytes(ASSET));
+        List<BankModel> parsed = BankInfoLoader.load(first, INSTALLED, mSnapshot);
+        assertEquals(1, first.mOpens);
+        assertTrue(mSnapshot.exists());
+
+        CountingAsset second = new CountingAsset(bytes(ASSET));
+        List<BankModel> restored = BankInfoLoader.load(second, INSTALLED, mSnapshot);
+        assertEquals("The asset is not touched", 0, second.mOpens);
+        assertSameBanks(parsed, restored);
+    }
+
+    @Test
+    public void anUpdateIsParsedAgain() throws IOException {
+        BankInfoLoader.load(new CountingAsset(bytes(ASSET)), INSTALLED, mSnapshot);
+
+        byte[] json = "{\"status\":1000,\"data\":[{\"summ\":\"s\",\"name\":\"n\",\"logo\":null,\"numb\":\"1\"}]}"
+                .getBytes(Charset.forName("UTF-8"));
+        CountingAsset changed = new CountingAsset(json);
+        List<BankModel> banks = BankInfoLoader.load(changed, INSTALLED + 1, mSnapshot);
+        assertEquals(1, changed.mOpens);
+        assertEquals(1, banks.size());
+        assertEquals(null, banks.get(0).bankLogo);
+
+        List<BankModel> restored = BankInfoLoader.load(new CountingAsset(json), INSTALLED + 1, mSnapshot);
+        assertSameBanks(banks, restored);
+    }
+
+    @Test
+    public void aTruncatedSnapshotIsIgnored() throws IOException {
+        List<BankModel> parsed = BankInfoLoader.load(new CountingAsset(bytes(ASSET)), INSTALLED, mSnapshot);
+        RandomAccessFile file = new RandomAccessFile(mSnapshot, "rw");
+        file.setLength(file.length() / 2);
+        file.close();
+
+        CountingAsset asset = new CountingAsset(bytes(ASSET));
+        assertSameBanks(parsed, BankInfoLoader.load(asset, INSTALLED, mSnapshot));
+        assertEquals(1, asset.mOpens);
+    }
+
+    private static void assertSameBanks(List<BankModel> expected, List<BankModel> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).bankDesc, actual.get(i).bankDesc);
+            assertEquals(expected.get(i).bankName, actual.get(i).bankName);
+            assertEquals(expected.get(i).bankLogo, actual.get(i).bankLogo);
+            assertEquals(expected.get(i).bankCode, actual.get(i).bankCode);
+        }
+    }
+
+    private static byte[] bytes(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private static final class CountingAsset implements BankInfoLoader.Asset {
+        private final byte[] mBytes;
+        int mOpens;
+
+        CountingAsset(byte[] bytes) {
+            mBytes = bytes;
+        }
+
+        @Override
+        public InputStream open() {
+            mOpens++;
+            return new ByteArrayInputStream(mBytes);
+        }
+    }
+}
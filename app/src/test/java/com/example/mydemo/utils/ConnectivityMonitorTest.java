@@ -0,0 +1,165 @@
+package com.example.mydemo.utils;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowConnectivityManager;
+import org.robolectric.shadows.ShadowNetwork;
+import org.robolectric.shadows.ShadowNetworkInfo;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Every test starts offline, with a new monitor on the shadowed ConnectivityManager.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 26)
+public class ConnectivityMonitorTest {
+    private static final ConnectivityMonitor.State WIFI = new ConnectivityMonitor.State(true, ConnectivityManager.TYPE_WIFI);
+    private static final ConnectivityMonitor.State MOBILE = new ConnectivityMonitor.State(true, ConnectivityManager.TYPE_MOBILE);
+
+    private Context mContext;
+    private ShadowConnectivityManager mShadow;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mShadow = shadowOf((ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE));
+        mShadow.setActiveNetworkInfo(null);
+    }
+
+    @Test
+    public void networkCallbackTracksEveryNetwork() {
+        ConnectivityMonitor monitor = new ConnectivityMonitor(mContext);
+        ConnectivityManager.NetworkCallback callback = callback();
+        Network mobile = network(1, ConnectivityManager.TYPE_MOBILE);
+        Network wifi = network(2, ConnectivityManager.TYPE_WIFI);
+        assertEquals(ConnectivityMonitor.State.OFFLINE, monitor.getState());
+
+        callback.onAvailable(mobile);
+        assertEquals(MOBILE, monitor.getState());
+        callback.onAvailable(wifi);
+        assertEquals("Wi-Fi wins", WIFI, monitor.getState());
+        callback.onLost(wifi);
+        assertEquals(MOBILE, monitor.getState());
+        // A transport the monitor does not know keeps the type it had.
+        callback.onCapabilitiesChanged(mobile, capabilities());
+        assertEquals(MOBILE, monitor.getState());
+        callback.onLost(mobile);
+        assertEquals(ConnectivityMonitor.State.OFFLINE, monitor.getState());
+    }
+
+    @Test
+    @Config(sdk = 19)
+    public void broadcastBeforeLollipop() {
+        ConnectivityMonitor monitor = new ConnectivityMonitor(mContext);
+        assertEquals(ConnectivityMonitor.State.OFFLINE, monitor.getState());
+
+        mShadow.setActiveNetworkInfo(info(ConnectivityManager.TYPE_WIFI));
+        mContext.sendBroadcast(new Intent(ConnectivityManager.CONNECTIVITY_ACTION));
+        assertEquals(WIFI, monitor.getState());
+
+        mShadow.setActiveNetworkInfo(null);
+        mContext.sendBroadcast(new Intent(ConnectivityManager.CONNECTIVITY_ACTION));
+        assertEquals(ConnectivityMonitor.State.OFFLINE, monitor.getState());
+    }
+
+    @Test
+    public void anUnchangedStateIsNotPublished() {
+        ConnectivityMonitor monitor = new ConnectivityMonitor(mContext);
+        ConnectivityManager.NetworkCallback callback = callback();
+        Network mobile = network(1, ConnectivityManager.TYPE_MOBILE);
+        TestObserver<ConnectivityMonitor.State> states = monitor.observe().test();
+
+        callback.onAvailable(mobile);
+        ConnectivityMonitor.State published = monitor.getState();
+        callback.onAvailable(mobile);
+        callback.onCapabilitiesChanged(mobile, capabilities());
+
+        assertSame(published, monitor.getState());
+        states.assertValues(ConnectivityMonitor.State.OFFLINE, MOBILE);
+    }
+
+    @Test
+    public void whenConnectedQueuesUntilOnline() {
+        ConnectivityMonitor monitor = new ConnectivityMonitor(mContext);
+        ConnectivityManager.NetworkCallback callback = callback();
+        List<String> subscribed = new ArrayList<>();
+
+        TestObserver<String> first = whenConnected(monitor, "first", subscribed).test();
+        TestObserver<String> dropped = whenConnected(monitor, "dropped", subscribed).test();
+        TestObserver<String> second = whenConnected(monitor, "second", subscribed).test();
+        dropped.dispose();
+        assertTrue(subscribed.isEmpty());
+
+        callback.onAvailable(network(1, ConnectivityManager.TYPE_WIFI));
+        assertEquals(Arrays.asList("first", "second"), subscribed);
+        first.assertResult("first");
+        second.assertResult("second");
+
+        // Online: upstream is subscribed right away.
+        whenConnected(monitor, "now", subscribed).test().assertResult("now");
+        assertEquals(Arrays.asList("first", "second", "now"), subscribed);
+    }
+
+    private ConnectivityManager.NetworkCallback callback() {
+        assertEquals(1, mShadow.getNetworkCallbacks().size());
+        return mShadow.getNetworkCallbacks().iterator().next();
+    }
+
+    private Network network(int netId, int type) {
+        Network network = ShadowNetwork.newInstance(netId);
+        mShadow.addNetwork(network, info(type));
+        return network;
+    }
+
+    private static NetworkInfo info(int type) {
+        return ShadowNetworkInfo.newInstance(NetworkInfo.DetailedState.CONNECTED, type, 0, true, true);
+    }
+
+    /**
+     * No transport at all; the constructor is hidden.
+     */
+    private static NetworkCapabilities capabilities() {
+        return ReflectionHelpers.callConstructor(NetworkCapabilities.class);
+    }
+
+    /**
+     * A request that records when it is subscribed.
+     */
+    private static Observable<String> whenConnected(ConnectivityMonitor monitor, final String name,
+                                                    final List<String> subscribed) {
+        return Observable.just(name)
+                .doOnSubscribe(new Consumer<Disposable>() {
+                    @Override
+                    public void accept(Disposable disposable) {
+                        subscribed.add(name);
+                    }
+                })
+                .compose(monitor.<String>whenConnected(Schedulers.trampoline()));
+    }
+}
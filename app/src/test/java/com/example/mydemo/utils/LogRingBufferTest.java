@@ -0,0 +1,118 @@
+package com.example.mydemo.utils;
+
+import android.util.Log;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogRingBufferTest {
+
+    @Test
+    public void deliversEveryMessageInOrderPerProducer() throws Exception {
+        final int producers = 4;
+        final int perProducer = 5000;
+        final List<String> written = Collections.synchronizedList(new ArrayList<String>());
+        final LogRingBuffer buffer = new LogRingBuffer(256, new AppLog.Sink() {
+            @Override
+            public void write(int priority, String tag, String message, Throwable throwable) {
+                written.add(tag + ":" + message);
+            }
+        });
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final String tag = "p" + p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    awaitQuietly(start);
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(Log.DEBUG, tag, "%d", new Object[]{i}, null)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(buffer.flush(5, TimeUnit.SECONDS));
+
+        int[] next = new int[producers];
+        int messages = 0;
+        for (String line : written) {
+            if (!line.startsWith("p")) {
+                continue; // Drop reports.
+            }
+            int producer = line.charAt(1) - '0';
+            assertEquals(line, next[producer]++, Integer.parseInt(line.substring(3)));
+            messages++;
+        }
+        assertEquals(producers * perProducer, messages);
+    }
+
+    @Test
+    public void dropsInsteadOfBlockingWhenTheWriterIsBehind() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> written = Collections.synchronizedList(new ArrayList<String>());
+        LogRingBuffer buffer = new LogRingBuffer(4, new AppLog.Sink() {
+            @Override
+            public void write(int priority, String tag, String message, Throwable throwable) {
+                awaitQuietly(release);
+                written.add(message);
+            }
+        });
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (buffer.offer(Log.DEBUG, "tag", "m" + i, null, null)) {
+                accepted++;
+            }
+        }
+        // The writer holds one message, the buffer the next four.
+        assertTrue(accepted <= 5);
+        assertEquals(20 - accepted, buffer.getDropped());
+
+        release.countDown();
+        assertTrue(buffer.flush(5, TimeUnit.SECONDS));
+        assertTrue(buffer.offer(Log.DEBUG, "tag", "after", null, null));
+        assertTrue(buffer.flush(5, TimeUnit.SECONDS));
+        assertTrue(written.contains((20 - accepted) + " log messages dropped"));
+        assertTrue(written.contains("after"));
+    }
+
+    @Test
+    public void formatsOnTheWriterThread() {
+        assertEquals("a 1 true", LogRingBuffer.format("a %d %b", new Object[]{1, true}));
+        assertEquals("plain %d", LogRingBuffer.format("plain %d", null));
+        assertEquals("bad %q [1]", LogRingBuffer.format("bad %q", new Object[]{1}));
+    }
+
+    @Test
+    public void samplerLetsOneCallThroughPerInterval() {
+        AppLog.Sampler sampler = new AppLog.Sampler(1, TimeUnit.HOURS);
+        assertTrue(sampler.sample());
+        for (int i = 0; i < 100; i++) {
+            assertFalse(sampler.sample());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
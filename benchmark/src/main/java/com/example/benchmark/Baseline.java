@@ -0,0 +1,98 @@
+package com.example.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Expected results, stored as properties:
+ * <pre>
+ *     diff.1000.opsPerSecond=12000
+ *     diff.1000.bytesPerOp=48000
+ * </pre>
+ * A result fails if its throughput is below {@code opsPerSecond * (1 - tolerance)} or its
+ * allocations are above {@code bytesPerOp * (1 + tolerance) + 64}. Benchmarks missing from the
+ * baseline are reported but never fail.
+ * <p>
+ * Run with {@code -Dbenchmark.record=<file>} to write the current results as a new baseline
+ * instead of checking them.
+ */
+public final class Baseline {
+    public static final String RECORD_PROPERTY = "benchmark.record";
+    private static final double DEFAULT_TOLERANCE = 0.3;
+    private static final double BYTES_SLACK = 64;
+
+    private final Properties mExpected;
+    private final double mTolerance;
+
+    private Baseline(Properties expected) {
+        mExpected = expected;
+        mTolerance = Double.parseDouble(expected.getProperty("tolerance", String.valueOf(DEFAULT_TOLERANCE)));
+    }
+
+    public static Baseline load(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        if (in != null) {
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        }
+        return new Baseline(properties);
+    }
+
+    void check(List<Result> results) {
+        String record = System.getProperty(RECORD_PROPERTY);
+        if (record != null && !record.isEmpty()) {
+            write(results, new File(record));
+            return;
+        }
+        StringBuilder failures = new StringBuilder();
+        for (Result result : results) {
+            String ops = mExpected.getProperty(result.getName() + ".opsPerSecond");
+            if (ops != null && result.getOpsPerSecond() < Double.parseDouble(ops) * (1 - mTolerance)) {
+                failures.append(String.format(Locale.US, "%n%s: %.1f ops/s, baseline %s",
+                        result.getName(), result.getOpsPerSecond(), ops));
+            }
+            String bytes = mExpected.getProperty(result.getName() + ".bytesPerOp");
+            if (bytes != null && result.getBytesPerOp() >= 0
+                    && result.getBytesPerOp() > Double.parseDouble(bytes) * (1 + mTolerance) + BYTES_SLACK) {
+                failures.append(String.format(Locale.US, "%n%s: %.1f B/op, baseline %s",
+                        result.getName(), result.getBytesPerOp(), bytes));
+            }
+        }
+        if (failures.length() > 0) {
+            throw new AssertionError("Benchmarks outside the baseline:" + failures);
+        }
+    }
+
+    private void write(List<Result> results, File file) {
+        Properties properties = new Properties();
+        properties.setProperty("tolerance", String.valueOf(mTolerance));
+        for (Result result : results) {
+            properties.setProperty(result.getName() + ".opsPerSecond",
+                    String.format(Locale.US, "%.0f", result.getOpsPerSecond()));
+            if (result.getBytesPerOp() >= 0) {
+                properties.setProperty(result.getName() + ".bytesPerOp",
+                        String.format(Locale.US, "%.0f", result.getBytesPerOp()));
+            }
+        }
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                properties.store(out, "Benchmark baseline");
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Can not write baseline " + file, e);
+        }
+        System.out.println("Baseline recorded to " + file.getAbsolutePath());
+    }
+}
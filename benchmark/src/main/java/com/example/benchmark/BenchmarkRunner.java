@@ -0,0 +1,125 @@
+package com.example.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal single-threaded harness: warm-up, then timed iterations of an operation, reporting
+ * throughput and allocated bytes per operation of the calling thread.
+ * <pre>
+ *     BenchmarkRunner runner = new BenchmarkRunner(Baseline.load(stream));
+ *     runner.run("diff.1000", new Runnable() { ... });
+ *     runner.finish(); // Prints a report and fails if a result is outside the baseline.
+ * </pre>
+ */
+public final class BenchmarkRunner {
+    private static final long DEFAULT_WARMUP_NANOS = 300000000L;
+    private static final long DEFAULT_MEASURE_NANOS = 1000000000L;
+
+    private final Baseline mBaseline;
+    private final long mWarmupNanos;
+    private final long mMeasureNanos;
+    private final List<Result> mResults = new ArrayList<>();
+    private final List<String> mNotes = new ArrayList<>();
+    private final AllocationCounter mAllocationCounter = new AllocationCounter();
+
+    public BenchmarkRunner(Baseline baseline) {
+        this(baseline, DEFAULT_WARMUP_NANOS, DEFAULT_MEASURE_NANOS);
+    }
+
+    public BenchmarkRunner(Baseline baseline, long warmupNanos, long measureNanos) {
+        mBaseline = baseline;
+        mWarmupNanos = warmupNanos;
+        mMeasureNanos = measureNanos;
+    }
+
+    public Result run(String name, Runnable operation) {
+        loop(operation, mWarmupNanos);
+        long bytesBefore = mAllocationCounter.allocatedBytes();
+        long start = System.nanoTime();
+        long ops = loop(operation, mMeasureNanos);
+        long elapsed = System.nanoTime() - start;
+        long bytesAfter = mAllocationCounter.allocatedBytes();
+        double bytesPerOp = bytesBefore < 0 ? -1 : (double) (bytesAfter - bytesBefore) / ops;
+        Result result = new Result(name, ops * 1e9 / elapsed, bytesPerOp);
+        mResults.add(result);
+        return result;
+    }
+
+    private static long loop(Runnable operation, long nanos) {
+        long ops = 0;
+        long deadline = System.nanoTime() + nanos;
+        // Check the clock after 1, 2, 4... up to every 16 operations, so that cheap operations are
+        // not dominated by it and slow ones do not run 16 times past the deadline.
+        int batch = 1;
+        do {
+            for (int i = 0; i < batch; i++) {
+                operation.run();
+            }
+            ops += batch;
+            batch = Math.min(batch * 2, 16);
+        } while (System.nanoTime() < deadline);
+        return ops;
+    }
+
+    /**
+     * Add a measurement that is not a throughput, e.g. a count, to the report. Notes are never
+     * checked against the baseline.
+     */
+    public void note(String name, Object value) {
+        mNotes.add(String.format(Locale.US, "%-48s %s", name, value));
+    }
+
+    public List<Result> getResults() {
+        return mResults;
+    }
+
+    /**
+     * Print all results, then check them against the baseline.
+     *
+     * @throws AssertionError listing every result outside the baseline.
+     */
+    public void finish() {
+        for (Result result : mResults) {
+            System.out.println(result);
+        }
+        for (String note : mNotes) {
+            System.out.println(note);
+        }
+        mBaseline.check(mResults);
+    }
+
+    /**
+     * Thread allocation counter of HotSpot, looked up reflectively so that other JVMs just report -1.
+     */
+    private static final class AllocationCounter {
+        private final ThreadMXBean mBean = ManagementFactory.getThreadMXBean();
+        private Method mGetThreadAllocatedBytes;
+
+        AllocationCounter() {
+            try {
+                Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+                if (type.isInstance(mBean)) {
+                    mGetThreadAllocatedBytes = type.getMethod("getThreadAllocatedBytes", long.class);
+                }
+            } catch (ReflectiveOperationException ignored) {
+                mGetThreadAllocatedBytes = null;
+            }
+        }
+
+        long allocatedBytes() {
+            if (mGetThreadAllocatedBytes == null) {
+                return -1;
+            }
+            try {
+                return (Long) mGetThreadAllocatedBytes.invoke(mBean, Thread.currentThread().getId());
+            } catch (ReflectiveOperationException e) {
+                return -1;
+            }
+        }
+    }
+}
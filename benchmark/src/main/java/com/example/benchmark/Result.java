@@ -0,0 +1,38 @@
+package com.example.benchmark;
+
+import java.util.Locale;
+
+/**
+ * Measurement of one benchmark.
+ */
+public final class Result {
+    private final String mName;
+    private final double mOpsPerSecond;
+    private final double mBytesPerOp;
+
+    Result(String name, double opsPerSecond, double bytesPerOp) {
+        mName = name;
+        mOpsPerSecond = opsPerSecond;
+        mBytesPerOp = bytesPerOp;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public double getOpsPerSecond() {
+        return mOpsPerSecond;
+    }
+
+    /**
+     * @return Allocated bytes per operation, or -1 if the JVM can not measure allocations.
+     */
+    public double getBytesPerOp() {
+        return mBytesPerOp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%-48s %14.1f ops/s %12.1f B/op", mName, mOpsPerSecond, mBytesPerOp);
+    }
+}
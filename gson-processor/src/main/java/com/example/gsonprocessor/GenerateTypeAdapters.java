@@ -0,0 +1,30 @@
+package com.example.gsonprocessor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Put on a package (in its package-info.java) to generate a Gson TypeAdapter for every class of
+ * the package, and one TypeAdapterFactory that returns them:
+ * <pre>
+ *     &#64;GenerateTypeAdapters(factory = "BeanTypeAdapterFactory")
+ *     package com.example.mydemo.bean;
+ *
+ *     new GsonBuilder().registerTypeAdapterFactory(new BeanTypeAdapterFactory()).create();
+ * </pre>
+ * The adapters read and write the fields directly, or through a setter, getter or constructor
+ * parameter of the same name when a field is private, so Gson does not have to reflect over the
+ * class. Static and transient fields are skipped and {@code @SerializedName} is honoured.
+ * Classes that cannot be handled this way (generic, abstract, with a superclass, or with a field
+ * that is not reachable) are left to Gson's reflective adapter, with a warning.
+ */
+@Target(ElementType.PACKAGE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface GenerateTypeAdapters {
+    /**
+     * Simple name of the generated factory, in the annotated package.
+     */
+    String factory() default "GeneratedTypeAdapterFactory";
+}
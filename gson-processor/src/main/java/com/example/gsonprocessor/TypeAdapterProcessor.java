@@ -0,0 +1,613 @@
+package com.example.gsonprocessor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates the TypeAdapters and the factory requested by {@link GenerateTypeAdapters}.
+ * <p>
+ * The generated code only uses the public API of Gson, which the processor itself does not
+ * depend on: {@code @SerializedName} is read from the annotation mirrors by name.
+ */
+public class TypeAdapterProcessor extends AbstractProcessor {
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private static final String HEADER = "// Generated by TypeAdapterProcessor. Do not edit.\n";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(GenerateTypeAdapters.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateTypeAdapters.class)) {
+            if (element.getKind() != ElementKind.PACKAGE) {
+                continue;
+            }
+            PackageElement pkg = (PackageElement) element;
+            String factory = pkg.getAnnotation(GenerateTypeAdapters.class).factory();
+            List<Bean> beans = new ArrayList<>();
+            for (TypeElement type : ElementFilter.typesIn(pkg.getEnclosedElements())) {
+                // Classes written by other processors (e.g. ObjectBox cursors) are not beans.
+                if (roundEnv.getRootElements().contains(type)) {
+                    Bean bean = analyze(type);
+                    if (bean != null) {
+                        beans.add(bean);
+                    }
+                }
+            }
+            try {
+                for (Bean bean : beans) {
+                    write(pkg, bean.adapterName(), adapterSource(pkg, factory, bean), bean.mType);
+                }
+                write(pkg, factory, factorySource(pkg, factory, beans), pkg);
+            } catch (IOException e) {
+                error(pkg, "Could not write the type adapters: " + e);
+            }
+        }
+        return true;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Analysis
+
+    private Bean analyze(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS
+                || type.getModifiers().contains(Modifier.ABSTRACT)
+                || type.getModifiers().contains(Modifier.PRIVATE)
+                || !type.getTypeParameters().isEmpty()) {
+            return skip(type, "it is not a concrete, non-generic class");
+        }
+        if (!isObject(type.getSuperclass())) {
+            return skip(type, "it has a superclass");
+        }
+        Bean bean = new Bean(type);
+        Map<String, Property> byField = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            Property property = new Property(field);
+            readSerializedName(field, property);
+            if (!names.add(property.mName)) {
+                return skip(type, "more than one field is named \"" + property.mName + "\"");
+            }
+            for (String alternate : property.mAlternates) {
+                if (!names.add(alternate)) {
+                    return skip(type, "more than one field is named \"" + alternate + "\"");
+                }
+            }
+            byField.put(property.mField, property);
+        }
+        bean.mProperties.addAll(byField.values());
+
+        ExecutableElement constructor = chooseConstructor(type, byField);
+        if (constructor == null) {
+            return skip(type, "none of its constructors can be called with its fields");
+        }
+        for (VariableElement parameter : constructor.getParameters()) {
+            Property property = byField.get(parameter.getSimpleName().toString());
+            property.mConstructorIndex = bean.mConstructorArgs.size();
+            bean.mConstructorArgs.add(property);
+        }
+        for (Property property : bean.mProperties) {
+            boolean isPrivate = property.mElement.getModifiers().contains(Modifier.PRIVATE);
+            if (property.mConstructorIndex < 0) {
+                if (!isPrivate && !property.mElement.getModifiers().contains(Modifier.FINAL)) {
+                    property.mSetter = null;
+                } else if ((property.mSetter = findSetter(type, property)) == null) {
+                    return skip(type, "field " + property.mField + " can not be set");
+                }
+            }
+            if (isPrivate && (property.mGetter = findGetter(type, property)) == null) {
+                return skip(type, "field " + property.mField + " can not be read");
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * The no-arg constructor, or else the longest one whose parameters all match a field.
+     */
+    private ExecutableElement chooseConstructor(TypeElement type, Map<String, Property> byField) {
+        ExecutableElement best = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            boolean matches = true;
+            for (VariableElement parameter : constructor.getParameters()) {
+                Property property = byField.get(parameter.getSimpleName().toString());
+                if (property == null || !sameType(parameter.asType(), property.mElement.asType())) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (!matches) {
+                continue;
+            }
+            if (constructor.getParameters().isEmpty()) {
+                return constructor;
+            }
+            if (best == null || constructor.getParameters().size() > best.getParameters().size()) {
+                best = constructor;
+            }
+        }
+        return best;
+    }
+
+    private String findSetter(TypeElement type, Property property) {
+        String name = "set" + capitalize(property.mField);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(name) && isInstanceMember(method)
+                    && method.getParameters().size() == 1
+                    && sameType(method.getParameters().get(0).asType(), property.mElement.asType())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String findGetter(TypeElement type, Property property) {
+        String get = "get" + capitalize(property.mField);
+        String is = "is" + capitalize(property.mField);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            String name = method.getSimpleName().toString();
+            boolean named = name.equals(get)
+                    || (name.equals(is) && property.mElement.asType().getKind() == TypeKind.BOOLEAN);
+            if (named && isInstanceMember(method) && method.getParameters().isEmpty()
+                    && sameType(method.getReturnType(), property.mElement.asType())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private void readSerializedName(VariableElement field, Property property) {
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(SERIALIZED_NAME)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : annotation.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                if (key.equals("value")) {
+                    property.mName = (String) entry.getValue().getValue();
+                } else if (key.equals("alternate")) {
+                    @SuppressWarnings("unchecked")
+                    List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                    for (AnnotationValue value : values) {
+                        property.mAlternates.add((String) value.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Code generation
+
+    private String adapterSource(PackageElement pkg, String factory, Bean bean) {
+        String beanName = bean.mType.getQualifiedName().toString();
+        StringBuilder s = new StringBuilder(HEADER);
+        s.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        s.append("final class ").append(bean.adapterName())
+                .append(" extends com.google.gson.TypeAdapter<").append(beanName).append("> {\n");
+
+        // Adapters of the fields that are not read inline.
+        for (Property property : bean.mProperties) {
+            if (kind(property) == Kind.OTHER) {
+                s.append("    private final com.google.gson.TypeAdapter<").append(boxedName(property.type()))
+                        .append("> ").append(property.adapterField()).append(";\n");
+            }
+        }
+        s.append("\n    ").append(bean.adapterName()).append("(com.google.gson.Gson gson) {\n");
+        for (Property property : bean.mProperties) {
+            if (kind(property) == Kind.OTHER) {
+                s.append("        ").append(property.adapterField()).append(" = gson.getAdapter(")
+                        .append(typeToken(property.type())).append(");\n");
+            }
+        }
+        s.append("    }\n\n");
+
+        // write()
+        s.append("    @Override\n");
+        s.append("    public void write(com.google.gson.stream.JsonWriter out, ").append(beanName)
+                .append(" value) throws java.io.IOException {\n");
+        s.append("        if (value == null) {\n            out.nullValue();\n            return;\n        }\n");
+        s.append("        out.beginObject();\n");
+        for (Property property : bean.mProperties) {
+            String source = property.mGetter != null
+                    ? "value." + property.mGetter + "()" : "value." + property.mField;
+            s.append("        out.name(").append(literal(property.mName)).append(");\n");
+            switch (kind(property)) {
+                case FLOAT:
+                    // Written as a Float so that 0.1f does not come out as 0.10000000149011612.
+                    s.append("        out.value(java.lang.Float.valueOf(").append(source).append("));\n");
+                    break;
+                case OTHER:
+                    s.append("        ").append(property.adapterField()).append(".write(out, ")
+                            .append(source).append(");\n");
+                    break;
+                default:
+                    s.append("        out.value(").append(source).append(");\n");
+                    break;
+            }
+        }
+        s.append("        out.endObject();\n    }\n\n");
+
+        // read()
+        boolean viaConstructor = !bean.mConstructorArgs.isEmpty();
+        s.append("    @Override\n");
+        s.append("    public ").append(beanName)
+                .append(" read(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n");
+        s.append("        if (in.peek() == com.google.gson.stream.JsonToken.NULL) {\n")
+                .append("            in.nextNull();\n            return null;\n        }\n");
+        if (viaConstructor) {
+            for (Property property : bean.mProperties) {
+                s.append("        ").append(property.type()).append(' ').append(property.local())
+                        .append(" = ").append(defaultValue(property.type())).append(";\n");
+                if (property.mConstructorIndex < 0) {
+                    s.append("        boolean ").append(property.flag()).append(" = false;\n");
+                }
+            }
+        } else {
+            s.append("        ").append(beanName).append(" value = new ").append(beanName).append("();\n");
+        }
+        s.append("        in.beginObject();\n");
+        s.append("        while (in.hasNext()) {\n");
+        s.append("            switch (in.nextName()) {\n");
+        for (Property property : bean.mProperties) {
+            s.append("                case ").append(literal(property.mName)).append(":\n");
+            for (String alternate : property.mAlternates) {
+                s.append("                case ").append(literal(alternate)).append(":\n");
+            }
+            readProperty(s, factory, property, viaConstructor);
+            s.append("                    break;\n");
+        }
+        s.append("                default:\n");
+        s.append("                    in.skipValue();\n");
+        s.append("                    break;\n");
+        s.append("            }\n");
+        s.append("        }\n");
+        s.append("        in.endObject();\n");
+        if (viaConstructor) {
+            s.append("        ").append(beanName).append(" value = new ").append(beanName).append('(');
+            for (int i = 0; i < bean.mConstructorArgs.size(); i++) {
+                s.append(i == 0 ? "" : ", ").append(bean.mConstructorArgs.get(i).local());
+            }
+            s.append(");\n");
+            for (Property property : bean.mProperties) {
+                if (property.mConstructorIndex < 0) {
+                    s.append("        if (").append(property.flag()).append(") {\n");
+                    s.append("            ").append(assignment(property, property.local())).append('\n');
+                    s.append("        }\n");
+                }
+            }
+        }
+        s.append("        return value;\n    }\n}\n");
+        return s.toString();
+    }
+
+    private void readProperty(StringBuilder s, String factory, Property property, boolean viaConstructor) {
+        String indent = "                    ";
+        Kind kind = kind(property);
+        String expression;
+        switch (kind) {
+            case STRING:
+                expression = factory + ".readString(in)";
+                break;
+            case BOOLEAN:
+                expression = factory + ".readBoolean(in)";
+                break;
+            case INT:
+                expression = factory + ".readInt(in)";
+                break;
+            case LONG:
+                expression = factory + ".readLong(in)";
+                break;
+            case DOUBLE:
+                expression = factory + ".readDouble(in)";
+                break;
+            case FLOAT:
+                expression = "(float) " + factory + ".readDouble(in)";
+                break;
+            default:
+                expression = property.adapterField() + ".read(in)";
+                break;
+        }
+        String target = viaConstructor
+                ? property.local() + " = " + expression + ";"
+                : assignment(property, expression);
+        String flag = viaConstructor && property.mConstructorIndex < 0 ? property.flag() + " = true;" : null;
+        boolean primitive = property.type().getKind().isPrimitive();
+        if (primitive && kind == Kind.OTHER) {
+            // Other primitives go through Gson's boxed adapters; null keeps the default, as in Gson.
+            s.append(indent).append("{\n");
+            s.append(indent).append("    ").append(boxedName(property.type())).append(" read = ")
+                    .append(expression).append(";\n");
+            s.append(indent).append("    if (read != null) {\n");
+            s.append(indent).append("        ").append(viaConstructor
+                    ? property.local() + " = read;" : assignment(property, "read")).append('\n');
+            if (flag != null) {
+                s.append(indent).append("        ").append(flag).append('\n');
+            }
+            s.append(indent).append("    }\n");
+            s.append(indent).append("}\n");
+        } else if (primitive) {
+            s.append(indent).append("if (in.peek() == com.google.gson.stream.JsonToken.NULL) {\n");
+            s.append(indent).append("    in.nextNull();\n");
+            s.append(indent).append("} else {\n");
+            s.append(indent).append("    ").append(target).append('\n');
+            if (flag != null) {
+                s.append(indent).append("    ").append(flag).append('\n');
+            }
+            s.append(indent).append("}\n");
+        } else {
+            s.append(indent).append(target).append('\n');
+            if (flag != null) {
+                s.append(indent).append(flag).append('\n');
+            }
+        }
+    }
+
+    private static String assignment(Property property, String expression) {
+        if (property.mSetter != null) {
+            return "value." + property.mSetter + "(" + expression + ");";
+        }
+        return "value." + property.mField + " = " + expression + ";";
+    }
+
+    private String factorySource(PackageElement pkg, String factory, List<Bean> beans) {
+        StringBuilder s = new StringBuilder(HEADER);
+        s.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        s.append("public final class ").append(factory)
+                .append(" implements com.google.gson.TypeAdapterFactory {\n\n");
+        s.append("    @Override\n");
+        s.append("    @SuppressWarnings(\"unchecked\")\n");
+        s.append("    public <T> com.google.gson.TypeAdapter<T> create(com.google.gson.Gson gson, ")
+                .append("com.google.gson.reflect.TypeToken<T> type) {\n");
+        s.append("        Class<? super T> raw = type.getRawType();\n");
+        for (Bean bean : beans) {
+            s.append("        if (raw == ").append(bean.mType.getQualifiedName()).append(".class) {\n");
+            s.append("            return (com.google.gson.TypeAdapter<T>) new ").append(bean.adapterName())
+                    .append("(gson);\n");
+            s.append("        }\n");
+        }
+        s.append("        return null;\n    }\n\n");
+
+        // Same leniency as Gson's own adapters: strings accept numbers and booleans, numbers and
+        // booleans accept strings, and malformed numbers are syntax errors.
+        s.append("    static String readString(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n")
+                .append("        com.google.gson.stream.JsonToken token = in.peek();\n")
+                .append("        if (token == com.google.gson.stream.JsonToken.NULL) {\n")
+                .append("            in.nextNull();\n")
+                .append("            return null;\n")
+                .append("        }\n")
+                .append("        if (token == com.google.gson.stream.JsonToken.BOOLEAN) {\n")
+                .append("            return Boolean.toString(in.nextBoolean());\n")
+                .append("        }\n")
+                .append("        return in.nextString();\n")
+                .append("    }\n\n");
+        s.append("    static boolean readBoolean(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n")
+                .append("        if (in.peek() == com.google.gson.stream.JsonToken.STRING) {\n")
+                .append("            return Boolean.parseBoolean(in.nextString());\n")
+                .append("        }\n")
+                .append("        return in.nextBoolean();\n")
+                .append("    }\n\n");
+        for (String[] number : new String[][]{{"int", "Int"}, {"long", "Long"}, {"double", "Double"}}) {
+            s.append("    static ").append(number[0]).append(" read").append(number[1])
+                    .append("(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n")
+                    .append("        try {\n")
+                    .append("            return in.next").append(number[1]).append("();\n")
+                    .append("        } catch (NumberFormatException e) {\n")
+                    .append("            throw new com.google.gson.JsonSyntaxException(e);\n")
+                    .append("        }\n")
+                    .append("    }\n\n");
+        }
+        s.setLength(s.length() - 1);
+        s.append("}\n");
+        return s.toString();
+    }
+
+    private void write(PackageElement pkg, String simpleName, String source, Element origin) throws IOException {
+        JavaFileObject file = processingEnv.getFiler()
+                .createSourceFile(pkg.getQualifiedName() + "." + simpleName, origin);
+        Writer writer = file.openWriter();
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Helpers
+
+    private enum Kind {
+        STRING, BOOLEAN, INT, LONG, DOUBLE, FLOAT, OTHER
+    }
+
+    private Kind kind(Property property) {
+        TypeMirror type = property.type();
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            case INT:
+                return Kind.INT;
+            case LONG:
+                return Kind.LONG;
+            case DOUBLE:
+                return Kind.DOUBLE;
+            case FLOAT:
+                return Kind.FLOAT;
+            case DECLARED:
+                TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+                return element.getQualifiedName().contentEquals("java.lang.String") ? Kind.STRING : Kind.OTHER;
+            default:
+                return Kind.OTHER;
+        }
+    }
+
+    private String boxedName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type)
+                    .getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private String typeToken(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type + ".class";
+        }
+        if (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return type + ".class";
+        }
+        return "new com.google.gson.reflect.TypeToken<" + type + ">() {\n        }";
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case BYTE:
+            case SHORT:
+            case CHAR:
+                return "(" + type + ") 0";
+            case INT:
+                return "0";
+            case LONG:
+                return "0L";
+            case FLOAT:
+                return "0f";
+            case DOUBLE:
+                return "0d";
+            default:
+                return "null";
+        }
+    }
+
+    private boolean sameType(TypeMirror a, TypeMirror b) {
+        return processingEnv.getTypeUtils().isSameType(a, b);
+    }
+
+    private static boolean isObject(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) type).asElement())
+                .getQualifiedName().contentEquals("java.lang.Object");
+    }
+
+    private static boolean isInstanceMember(Element element) {
+        return !element.getModifiers().contains(Modifier.PRIVATE) && !element.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String literal(String value) {
+        StringBuilder s = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                s.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                s.append(String.format("\\u%04x", (int) c));
+            } else {
+                s.append(c);
+            }
+        }
+        return s.append('"').toString();
+    }
+
+    private Bean skip(TypeElement type, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "No TypeAdapter generated for " + type.getSimpleName() + " because " + reason
+                        + "; Gson falls back to reflection.", type);
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Bean {
+        final TypeElement mType;
+        final List<Property> mProperties = new ArrayList<>();
+        final List<Property> mConstructorArgs = new ArrayList<>();
+
+        Bean(TypeElement type) {
+            mType = type;
+        }
+
+        String adapterName() {
+            return mType.getSimpleName() + "TypeAdapter";
+        }
+    }
+
+    private static final class Property {
+        final VariableElement mElement;
+        final String mField;
+        final List<String> mAlternates = new ArrayList<>();
+        String mName;
+        String mSetter;
+        String mGetter;
+        int mConstructorIndex = -1;
+
+        Property(VariableElement element) {
+            mElement = element;
+            mField = element.getSimpleName().toString();
+            mName = mField;
+        }
+
+        TypeMirror type() {
+            return mElement.asType();
+        }
+
+        String adapterField() {
+            return mField + "Adapter";
+        }
+
+        String local() {
+            return "v_" + mField;
+        }
+
+        String flag() {
+            return "has_" + mField;
+        }
+    }
+}